@@ -0,0 +1,18 @@
+package gr.hua.cache;
+
+import java.util.List;
+
+/**
+ * Committed change to entities of one region, delivered to local observers on every node.
+ * An empty key list means every entry of the region must be dropped.
+ */
+public record CacheInvalidation(CacheRegion region, List<String> keys) {
+
+    public static CacheInvalidation all(CacheRegion region) {
+        return new CacheInvalidation(region, List.of());
+    }
+
+    public boolean isAll() {
+        return keys.isEmpty();
+    }
+}
@@ -0,0 +1,9 @@
+package gr.hua.cache;
+
+/**
+ * Entity types whose in-JVM copies are kept coherent across nodes.
+ */
+public enum CacheRegion {
+    COMPANY,
+    DOCUMENT
+}
@@ -0,0 +1,315 @@
+package gr.hua.cache;
+
+import gr.hua.model.enums.DownloadMode;
+import gr.hua.service.StorageService;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.logging.Log;
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+import io.quarkus.runtime.configuration.MemorySize;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Size-capped LRU copy of stored objects on local disk, keyed by object key. Objects are immutable, so an
+ * entry never goes stale and needs no invalidation; it only ages out.
+ * <p>
+ * The index lives in memory and the directory is emptied on startup. Files are filled through a temporary
+ * name and renamed into place, so a file under its final name is always complete. Callers send cached files
+ * with {@code sendfile}, which opens them after {@link #get} returns, so an evicted file is unlinked only
+ * once it has been out of the index for {@link #RETIRE_DELAY_MILLIS}.
+ * <p>
+ * Only active in {@code proxy} download mode, where this service serves the bytes itself, and in front of a
+ * remote storage backend.
+ */
+@ApplicationScoped
+public class DocumentFileCache {
+
+    public static final String NAME = "document-files";
+    static final long RETIRE_DELAY_MILLIS = 60_000;
+    private static final String PART_SUFFIX = ".part";
+
+    @ConfigProperty(name = "document-file-cache.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @ConfigProperty(name = "document-file-cache.directory")
+    Optional<Path> configuredDirectory;
+
+    @ConfigProperty(name = "document-file-cache.max-size", defaultValue = "1G")
+    MemorySize maxSize;
+
+    @ConfigProperty(name = "document-file-cache.max-object-size", defaultValue = "64M")
+    MemorySize maxObjectSize;
+
+    @ConfigProperty(name = "document-file-cache.prefetch-parallelism", defaultValue = "4")
+    int prefetchParallelism;
+
+    @ConfigProperty(name = "download.mode", defaultValue = "proxy")
+    DownloadMode downloadMode;
+
+    @Inject
+    StorageService storageService;
+
+    @Inject
+    MeterRegistry meterRegistry;
+
+    private record Retired(String objectKey, long retiredAt) {
+    }
+
+    // object key -> size in bytes, in access order; guarded by this
+    private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private long totalBytes;
+
+    private final Map<String, CompletableFuture<Path>> loading = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Retired> retired = new ConcurrentLinkedQueue<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private Path directory;
+    private ExecutorService executor;
+    private Semaphore prefetchPermits;
+
+    void onStart(@Observes StartupEvent event) {
+        FunctionCounter.builder("cache.gets", hits, LongAdder::sum)
+                .tag("cache", NAME).tag("result", "hit")
+                .register(meterRegistry);
+        FunctionCounter.builder("cache.gets", misses, LongAdder::sum)
+                .tag("cache", NAME).tag("result", "miss")
+                .register(meterRegistry);
+        Gauge.builder("cache.size.bytes", this, DocumentFileCache::size)
+                .tag("cache", NAME)
+                .register(meterRegistry);
+        if (enabled) {
+            start();
+        }
+    }
+
+    void onStop(@Observes ShutdownEvent event) {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    void start() {
+        directory = configuredDirectory.orElse(Path.of(System.getProperty("java.io.tmpdir"), "tid-document-cache"));
+        try {
+            Files.createDirectories(directory);
+            try (Stream<Path> stale = Files.list(directory)) {
+                stale.forEach(DocumentFileCache::deleteQuietly);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot prepare document cache directory " + directory, e);
+        }
+        synchronized (this) {
+            entries.clear();
+            totalBytes = 0;
+        }
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        prefetchPermits = new Semaphore(prefetchParallelism);
+        Log.infof("Document file cache in %s, up to %d bytes", directory, maxSize.asLongValue());
+    }
+
+    public boolean isActive() {
+        return enabled && downloadMode == DownloadMode.PROXY && directory != null && !storageService.isLocal();
+    }
+
+    /**
+     * Returns the local copy of the object, or null on a miss. A miss schedules a background fill, so the
+     * caller streams this one request from storage and the next one is served locally.
+     */
+    public Path get(String objectKey, long size) {
+        if (!isActive()) {
+            return null;
+        }
+        synchronized (this) {
+            if (entries.get(objectKey) != null) {
+                hits.increment();
+                return path(objectKey);
+            }
+        }
+        misses.increment();
+        schedule(objectKey, size);
+        return null;
+    }
+
+    /**
+     * Copies the objects to disk in the background, skipping those already cached or too large to cache.
+     */
+    public void prefetch(Map<String, Long> objectSizes) {
+        if (!isActive()) {
+            return;
+        }
+        for (Map.Entry<String, Long> object : objectSizes.entrySet()) {
+            if (!contains(object.getKey())) {
+                schedule(object.getKey(), object.getValue() == null ? -1 : object.getValue());
+            }
+        }
+    }
+
+    /**
+     * Loads the object into the cache, waiting for a fill already in progress. Returns the local path.
+     */
+    public Path fill(String objectKey, long size) {
+        CompletableFuture<Path> mine = new CompletableFuture<>();
+        CompletableFuture<Path> running = loading.putIfAbsent(objectKey, mine);
+        if (running != null) {
+            return running.join();
+        }
+        try {
+            Path path = contains(objectKey) ? path(objectKey) : download(objectKey, size);
+            mine.complete(path);
+            return path;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(objectKey, mine);
+        }
+    }
+
+    public void evict(Collection<String> objectKeys) {
+        if (directory == null) {
+            return;
+        }
+        synchronized (this) {
+            for (String objectKey : objectKeys) {
+                Long size = entries.remove(objectKey);
+                if (size != null) {
+                    totalBytes -= size;
+                    retired.add(new Retired(objectKey, System.currentTimeMillis()));
+                }
+            }
+        }
+        purgeRetired();
+    }
+
+    public synchronized boolean contains(String objectKey) {
+        return entries.containsKey(objectKey);
+    }
+
+    public synchronized long size() {
+        return totalBytes;
+    }
+
+    private boolean cacheable(long size) {
+        return size >= 0 && size <= maxObjectSize.asLongValue() && size <= maxSize.asLongValue();
+    }
+
+    // background fills share prefetch-parallelism permits so a burst of misses cannot flood storage
+    private void schedule(String objectKey, long size) {
+        if (!cacheable(size) || loading.containsKey(objectKey)) {
+            return;
+        }
+        executor.execute(() -> {
+            try {
+                prefetchPermits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            try {
+                fill(objectKey, size);
+            } catch (RuntimeException e) {
+                Log.debugf(e, "Could not cache object %s", objectKey);
+            } finally {
+                prefetchPermits.release();
+            }
+        });
+    }
+
+    private Path download(String objectKey, long size) {
+        Path target = path(objectKey);
+        Path part = target.resolveSibling(target.getFileName() + PART_SUFFIX);
+        try (InputStream content = storageService.downloadFile(objectKey)) {
+            long copied = Files.copy(content, part, StandardCopyOption.REPLACE_EXISTING);
+            if (copied != size) {
+                throw new IOException("Expected " + size + " bytes but storage returned " + copied);
+            }
+            admit(objectKey, size, part, target);
+        } catch (IOException e) {
+            deleteQuietly(part);
+            throw new UncheckedIOException("Failed to cache object " + objectKey, e);
+        }
+        return target;
+    }
+
+    private void admit(String objectKey, long size, Path part, Path target) throws IOException {
+        long now = System.currentTimeMillis();
+        synchronized (this) {
+            // renamed under the lock so purgeRetired never unlinks a file that is being re-admitted
+            Files.move(part, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            Long previous = entries.put(objectKey, size);
+            totalBytes += size - (previous == null ? 0 : previous);
+            Iterator<Map.Entry<String, Long>> eldest = entries.entrySet().iterator();
+            while (totalBytes > maxSize.asLongValue() && eldest.hasNext()) {
+                Map.Entry<String, Long> entry = eldest.next();
+                if (entry.getKey().equals(objectKey)) {
+                    continue;
+                }
+                totalBytes -= entry.getValue();
+                retired.add(new Retired(entry.getKey(), now));
+                eldest.remove();
+            }
+        }
+        purgeRetired();
+    }
+
+    private void purgeRetired() {
+        long cutoff = System.currentTimeMillis() - RETIRE_DELAY_MILLIS;
+        for (Retired entry = retired.peek(); entry != null && entry.retiredAt() <= cutoff; entry = retired.peek()) {
+            if (!retired.remove(entry)) {
+                continue;
+            }
+            synchronized (this) {
+                // the object may have been cached again since it was evicted
+                if (!entries.containsKey(entry.objectKey())) {
+                    deleteQuietly(path(entry.objectKey()));
+                }
+            }
+        }
+    }
+
+    private Path path(String objectKey) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(objectKey.getBytes(StandardCharsets.UTF_8));
+            return directory.resolve(HexFormat.of().formatHex(digest));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            Log.debugf(e, "Could not delete cached file %s", path);
+        }
+    }
+}
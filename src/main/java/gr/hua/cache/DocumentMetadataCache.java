@@ -0,0 +1,106 @@
+package gr.hua.cache;
+
+import gr.hua.model.projection.DocumentMetadata;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongFunction;
+
+/**
+ * Direct-mapped cache of {@link DocumentMetadata} keyed by the primitive document id.
+ * <p>
+ * Each id hashes to exactly one slot and a newer entry simply replaces whatever held the
+ * slot, which bounds memory at {@code capacity} entries with no eviction bookkeeping.
+ * The stored record carries its own id, so a lookup is one array read and one
+ * {@code long} comparison, with no key boxing and no wrapper objects.
+ */
+@ApplicationScoped
+public class DocumentMetadataCache {
+
+    public static final String NAME = "document-metadata";
+
+    @ConfigProperty(name = "document-cache.capacity", defaultValue = "4096")
+    int capacity;
+
+    @Inject
+    MeterRegistry meterRegistry;
+
+    private AtomicReferenceArray<DocumentMetadata> slots;
+    private int shift;
+
+    // bumped on every invalidation so a load racing a delete does not re-install the entry
+    private final AtomicLong generation = new AtomicLong();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    @PostConstruct
+    void init() {
+        int bits = 32 - Integer.numberOfLeadingZeros(Math.max(capacity, 2) - 1);
+        slots = new AtomicReferenceArray<>(1 << bits);
+        shift = 64 - bits;
+        FunctionCounter.builder("cache.gets", hits, LongAdder::sum)
+                .tag("cache", NAME).tag("result", "hit")
+                .register(meterRegistry);
+        FunctionCounter.builder("cache.gets", misses, LongAdder::sum)
+                .tag("cache", NAME).tag("result", "miss")
+                .register(meterRegistry);
+    }
+
+    public DocumentMetadata get(long id, LongFunction<DocumentMetadata> loader) {
+        int slot = slot(id);
+        DocumentMetadata cached = slots.get(slot);
+        if (cached != null && cached.id() == id) {
+            hits.increment();
+            return cached;
+        }
+        misses.increment();
+        long observed = generation.get();
+        DocumentMetadata loaded = loader.apply(id);
+        if (loaded != null && generation.get() == observed) {
+            slots.set(slot, loaded);
+        }
+        return loaded;
+    }
+
+    public void invalidate(long id) {
+        generation.incrementAndGet();
+        int slot = slot(id);
+        DocumentMetadata cached = slots.get(slot);
+        if (cached != null && cached.id() == id) {
+            slots.compareAndSet(slot, cached, null);
+        }
+    }
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        for (int i = 0; i < slots.length(); i++) {
+            slots.set(i, null);
+        }
+    }
+
+    void onInvalidation(@Observes CacheInvalidation event) {
+        if (event.region() != CacheRegion.DOCUMENT) {
+            return;
+        }
+        if (event.isAll()) {
+            invalidateAll();
+            return;
+        }
+        for (String key : event.keys()) {
+            invalidate(Long.parseLong(key));
+        }
+    }
+
+    private int slot(long id) {
+        // Fibonacci hashing: consecutive ids land in well-spread slots
+        return (int) ((id * 0x9E3779B97F4A7C15L) >>> shift);
+    }
+}
@@ -0,0 +1,251 @@
+package gr.hua.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.quarkus.logging.Log;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import jakarta.transaction.Status;
+import jakarta.transaction.Synchronization;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Cluster-wide cache invalidation over PostgreSQL LISTEN/NOTIFY.
+ * <p>
+ * {@link #publish} issues {@code pg_notify} inside the caller's transaction, so Postgres
+ * delivers the message to every listening node only if that transaction commits. The
+ * publishing node applies the invalidation itself right after commit, and the other
+ * nodes apply it when their listener connection receives it. Either way it reaches
+ * local caches as a {@link CacheInvalidation} CDI event.
+ * <p>
+ * The listener holds one dedicated connection outside the pool. When it is lost, every
+ * region is flushed after reconnecting, because notifications sent meanwhile are gone.
+ */
+@ApplicationScoped
+public class InvalidationBus {
+
+    static final String CHANNEL = "tid_cache_invalidation";
+    // pg_notify payloads must stay below 8000 bytes
+    private static final int MAX_PAYLOAD = 7000;
+    private static final int POLL_MILLIS = 5000;
+    private static final Duration MAX_BACKOFF = Duration.ofSeconds(30);
+
+    @ConfigProperty(name = "cache.invalidation.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @ConfigProperty(name = "quarkus.datasource.jdbc.url")
+    String jdbcUrl;
+
+    @ConfigProperty(name = "quarkus.datasource.username")
+    Optional<String> username;
+
+    @ConfigProperty(name = "quarkus.datasource.password")
+    Optional<String> password;
+
+    @Inject
+    EntityManager entityManager;
+
+    @Inject
+    TransactionSynchronizationRegistry transactionSynchronizationRegistry;
+
+    @Inject
+    Event<CacheInvalidation> invalidations;
+
+    @Inject
+    MeterRegistry meterRegistry;
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private volatile boolean running;
+    private volatile boolean connected;
+    private volatile Connection listenerConnection;
+    private Thread listener;
+    private Timer deliveryLag;
+    private Counter received;
+
+    void onStart(@Observes StartupEvent event) {
+        deliveryLag = Timer.builder("cache.invalidation.lag")
+                .description("Time from publish on the publishing node, inside its transaction, to receipt on this node")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        received = Counter.builder("cache.invalidation.received").register(meterRegistry);
+        Gauge.builder("cache.invalidation.connected", this, bus -> bus.connected ? 1 : 0)
+                .register(meterRegistry);
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        listener = Thread.ofVirtual().name("cache-invalidation-listener").start(this::listen);
+    }
+
+    void onStop(@Observes ShutdownEvent event) {
+        running = false;
+        closeQuietly(listenerConnection);
+        if (listener != null) {
+            listener.interrupt();
+        }
+    }
+
+    public void publish(CacheRegion region, long key) {
+        publish(region, List.of(Long.toString(key)));
+    }
+
+    public void publish(CacheRegion region, String key) {
+        publish(region, List.of(key));
+    }
+
+    /**
+     * Publishes invalidations for the given keys once the current transaction commits.
+     * Without an active transaction they are sent and applied immediately.
+     */
+    public void publish(CacheRegion region, Collection<String> keys) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        CacheInvalidation invalidation = new CacheInvalidation(region, List.copyOf(keys));
+        if (!QuarkusTransaction.isActive()) {
+            QuarkusTransaction.requiringNew().run(() -> notifyCluster(invalidation));
+            invalidations.fire(invalidation);
+            return;
+        }
+        notifyCluster(invalidation);
+        transactionSynchronizationRegistry.registerInterposedSynchronization(new Synchronization() {
+            @Override
+            public void beforeCompletion() {
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (status == Status.STATUS_COMMITTED) {
+                    invalidations.fire(invalidation);
+                }
+            }
+        });
+    }
+
+    private void notifyCluster(CacheInvalidation invalidation) {
+        if (!enabled) {
+            return;
+        }
+        String prefix = nodeId + "|" + System.currentTimeMillis() + "|" + invalidation.region() + "|";
+        StringBuilder payload = new StringBuilder(prefix);
+        for (String key : invalidation.keys()) {
+            if (payload.length() > prefix.length() && payload.length() + key.length() + 1 > MAX_PAYLOAD) {
+                sendNotify(payload.toString());
+                payload.setLength(prefix.length());
+            }
+            if (payload.length() > prefix.length()) {
+                payload.append(',');
+            }
+            payload.append(key);
+        }
+        sendNotify(payload.toString());
+    }
+
+    private void sendNotify(String payload) {
+        entityManager.createNativeQuery("select 1 from pg_notify(:channel, :payload)")
+                .setParameter("channel", CHANNEL)
+                .setParameter("payload", payload)
+                .getSingleResult();
+    }
+
+    private void listen() {
+        Duration backoff = Duration.ofSeconds(1);
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(jdbcUrl, username.orElse(null), password.orElse(null))) {
+                listenerConnection = connection;
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                }
+                connected = true;
+                backoff = Duration.ofSeconds(1);
+                // anything published while we were not listening was missed
+                for (CacheRegion region : CacheRegion.values()) {
+                    invalidations.fire(CacheInvalidation.all(region));
+                }
+                Log.infof("Listening for cache invalidations on channel %s", CHANNEL);
+
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(POLL_MILLIS);
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            apply(notification.getParameter());
+                        }
+                    }
+                }
+            } catch (SQLException e) {
+                if (running) {
+                    Log.warnf("Cache invalidation listener disconnected, retrying in %s: %s", backoff, e.getMessage());
+                }
+            } catch (RuntimeException e) {
+                Log.error("Cache invalidation listener failed", e);
+            } finally {
+                connected = false;
+                listenerConnection = null;
+            }
+            if (running) {
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                backoff = backoff.multipliedBy(2).compareTo(MAX_BACKOFF) > 0 ? MAX_BACKOFF : backoff.multipliedBy(2);
+            }
+        }
+    }
+
+    void apply(String payload) {
+        String[] parts = payload.split("\\|", 4);
+        if (parts.length != 4) {
+            Log.warnf("Ignoring malformed cache invalidation: %s", payload);
+            return;
+        }
+        if (nodeId.equals(parts[0])) {
+            return;  // already applied locally after commit
+        }
+        CacheRegion region;
+        long sentAt;
+        try {
+            region = CacheRegion.valueOf(parts[2]);
+            sentAt = Long.parseLong(parts[1]);
+        } catch (IllegalArgumentException e) {
+            Log.warnf("Ignoring malformed cache invalidation: %s", payload);
+            return;
+        }
+        received.increment();
+        deliveryLag.record(Duration.ofMillis(Math.max(0, System.currentTimeMillis() - sentAt)));
+        invalidations.fire(new CacheInvalidation(region, List.of(parts[3].split(","))));
+    }
+
+    private static void closeQuietly(Connection connection) {
+        if (connection == null) {
+            return;
+        }
+        try {
+            connection.close();
+        } catch (SQLException ignored) {
+        }
+    }
+}
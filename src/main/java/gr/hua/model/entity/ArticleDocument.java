@@ -14,7 +14,8 @@ import java.sql.Timestamp;
 public class ArticleDocument {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "articledocument_seq")
+    @SequenceGenerator(name = "articledocument_seq", sequenceName = "articledocument_seq", allocationSize = IdAllocation.ALLOCATION_SIZE)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
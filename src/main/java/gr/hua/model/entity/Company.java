@@ -1,10 +1,13 @@
 package gr.hua.model.entity;
 
 import gr.hua.model.enums.RegistrationState;
+import gr.hua.taxid.TaxIdFormat;
 import jakarta.persistence.*;
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.Formula;
 
 import java.sql.Timestamp;
 import java.util.ArrayList;
@@ -17,7 +20,8 @@ import java.util.List;
 public class Company {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "company_seq")
+    @SequenceGenerator(name = "company_seq", sequenceName = "company_seq", allocationSize = IdAllocation.ALLOCATION_SIZE)
     private Long id;
 
     @Version
@@ -30,6 +34,20 @@ public class Company {
 
     @Column(unique = true)
     private String email;
+
+    /** Nine-digit tax ids, stored as a number. */
+    @Setter(AccessLevel.NONE)
+    @Column(unique = true)
+    private Long taxNumber;
+
+    /** Tax ids in any other format, such as the UUIDs issued before nine-digit ids. */
+    @Setter(AccessLevel.NONE)
+    @Column(length = 36, unique = true)
+    private String legacyTaxId;
+
+    /** The tax id as issued, read from whichever column holds it. Queries should filter on the columns. */
+    @Setter(AccessLevel.NONE)
+    @Formula("coalesce(to_char(taxNumber, 'FM000000000'), legacyTaxId)")
     private String taxId;
 
     private RegistrationState state;
@@ -45,6 +63,13 @@ public class Company {
     public Company() {
     }
 
+    public void setTaxId(String taxId) {
+        long number = TaxIdFormat.toNumber(taxId);
+        this.taxNumber = number < 0 ? null : number;
+        this.legacyTaxId = number < 0 ? taxId : null;
+        this.taxId = taxId;
+    }
+
 
     public Company(KeycloakUser representative, String name, String email, String goal, String hq, String executives) {
         this.representative = representative;
@@ -0,0 +1,16 @@
+package gr.hua.model.entity;
+
+/**
+ * Ids come from one Postgres sequence per entity, handed out in blocks by the pooled-lo optimizer: a
+ * {@code nextval} returning {@code n} reserves {@code n} to {@code n + ALLOCATION_SIZE - 1}. Every sequence is
+ * created with this increment by the migrations, and native inserts that call {@code nextval} themselves must
+ * use a block the same way. Hibernate fixes the mapping at build time, so changing the size takes a migration
+ * and a rebuild.
+ */
+public final class IdAllocation {
+
+    public static final int ALLOCATION_SIZE = 50;
+
+    private IdAllocation() {
+    }
+}
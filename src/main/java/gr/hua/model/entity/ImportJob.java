@@ -0,0 +1,42 @@
+package gr.hua.model.entity;
+
+import gr.hua.model.enums.RecordFormat;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.sql.Timestamp;
+
+@Getter
+@Setter
+@Entity
+public class ImportJob {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "importjob_seq")
+    @SequenceGenerator(name = "importjob_seq", sequenceName = "importjob_seq", allocationSize = IdAllocation.ALLOCATION_SIZE)
+    private Long id;
+
+    @Column(nullable = false)
+    private RecordFormat format;
+
+    private long committedRecords;
+    private long imported;
+    private long skipped;
+    private long rejected;
+
+    @Column(nullable = false)
+    private Timestamp createdAt;
+
+    @Column(nullable = false)
+    private Timestamp updatedAt;
+
+    public ImportJob() {
+    }
+
+    public ImportJob(RecordFormat format) {
+        this.format = format;
+        this.createdAt = new Timestamp(System.currentTimeMillis());
+        this.updatedAt = this.createdAt;
+    }
+}
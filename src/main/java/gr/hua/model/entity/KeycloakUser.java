@@ -12,10 +12,11 @@ import lombok.Setter;
 public class KeycloakUser {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "keycloakuser_seq")
+    @SequenceGenerator(name = "keycloakuser_seq", sequenceName = "keycloakuser_seq", allocationSize = IdAllocation.ALLOCATION_SIZE)
     private long id;
 
-    @Column(nullable = false)
+    @Column(nullable = false, unique = true)
     public String keycloakId;
 
     public String username;
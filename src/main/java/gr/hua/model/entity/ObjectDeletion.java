@@ -0,0 +1,34 @@
+package gr.hua.model.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.sql.Timestamp;
+
+@Getter
+@Setter
+@Entity
+public class ObjectDeletion {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "objectdeletion_seq")
+    @SequenceGenerator(name = "objectdeletion_seq", sequenceName = "objectdeletion_seq", allocationSize = IdAllocation.ALLOCATION_SIZE)
+    private Long id;
+
+    @Column(nullable = false)
+    private String objectKey;
+
+    private int attempts;
+
+    @Column(nullable = false)
+    private Timestamp createdAt;
+
+    public ObjectDeletion() {
+    }
+
+    public ObjectDeletion(String objectKey) {
+        this.objectKey = objectKey;
+        this.createdAt = new Timestamp(System.currentTimeMillis());
+    }
+}
@@ -0,0 +1,48 @@
+package gr.hua.model.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.sql.Timestamp;
+
+@Getter
+@Setter
+@Entity
+public class PendingUpload {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "pendingupload_seq")
+    @SequenceGenerator(name = "pendingupload_seq", sequenceName = "pendingupload_seq", allocationSize = IdAllocation.ALLOCATION_SIZE)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "company_id", nullable = false)
+    private Company company;
+
+    @Column(nullable = false, unique = true)
+    private String objectKey;
+
+    @Column(nullable = false)
+    private String originalFilename;
+
+    @Column(nullable = false)
+    private String contentType;
+
+    private long fileSize;
+
+    @Column(nullable = false)
+    private Timestamp expiresAt;
+
+    public PendingUpload() {
+    }
+
+    public PendingUpload(Company company, String objectKey, String originalFilename, String contentType, long fileSize, Timestamp expiresAt) {
+        this.company = company;
+        this.objectKey = objectKey;
+        this.originalFilename = originalFilename;
+        this.contentType = contentType;
+        this.fileSize = fileSize;
+        this.expiresAt = expiresAt;
+    }
+}
@@ -0,0 +1,38 @@
+package gr.hua.model.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.sql.Timestamp;
+
+/**
+ * One stored object shared by every document with the same content. Written only through
+ * {@link gr.hua.repository.StoredBlobRepository}, whose statements keep {@code refCount} consistent.
+ */
+@Getter
+@Setter
+@Entity
+public class StoredBlob {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "storedblob_seq")
+    @SequenceGenerator(name = "storedblob_seq", sequenceName = "storedblob_seq", allocationSize = IdAllocation.ALLOCATION_SIZE)
+    private Long id;
+
+    @Column(nullable = false, unique = true, length = 64)
+    private String contentHash;
+
+    @Column(nullable = false, unique = true)
+    private String objectKey;
+
+    private long fileSize;
+
+    private int refCount;
+
+    @Column(nullable = false)
+    private Timestamp createdAt;
+
+    @Column(nullable = false)
+    private Timestamp acquiredAt;
+}
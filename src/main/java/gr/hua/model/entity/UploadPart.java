@@ -0,0 +1,37 @@
+package gr.hua.model.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@Entity
+public class UploadPart {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "uploadpart_seq")
+    @SequenceGenerator(name = "uploadpart_seq", sequenceName = "uploadpart_seq", allocationSize = IdAllocation.ALLOCATION_SIZE)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "session_id", nullable = false)
+    private UploadSession session;
+
+    private long partOffset;
+
+    private long size;
+
+    @Column(nullable = false, unique = true)
+    private String objectKey;
+
+    public UploadPart() {
+    }
+
+    public UploadPart(UploadSession session, long partOffset, long size, String objectKey) {
+        this.session = session;
+        this.partOffset = partOffset;
+        this.size = size;
+        this.objectKey = objectKey;
+    }
+}
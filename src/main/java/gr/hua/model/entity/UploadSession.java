@@ -0,0 +1,63 @@
+package gr.hua.model.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.sql.Timestamp;
+
+/**
+ * A resumable upload in progress. {@code uploadOffset} only moves through
+ * {@link gr.hua.repository.UploadSessionRepository#advance}, which checks the offset the chunk was sent for.
+ */
+@Getter
+@Setter
+@Entity
+public class UploadSession {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "uploadsession_seq")
+    @SequenceGenerator(name = "uploadsession_seq", sequenceName = "uploadsession_seq", allocationSize = IdAllocation.ALLOCATION_SIZE)
+    private Long id;
+
+    @Column(nullable = false, unique = true, length = 36)
+    private String token;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "company_id", nullable = false)
+    private Company company;
+
+    /** The document recorded at completion; null while chunks are still expected. */
+    @OneToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "document_id")
+    private ArticleDocument document;
+
+    @Column(nullable = false)
+    private String originalFilename;
+
+    @Column(nullable = false)
+    private String contentType;
+
+    private long fileSize;
+
+    private long uploadOffset;
+
+    @Column(nullable = false)
+    private Timestamp createdAt;
+
+    @Column(nullable = false)
+    private Timestamp expiresAt;
+
+    public UploadSession() {
+    }
+
+    public UploadSession(Company company, String token, String originalFilename, String contentType, long fileSize, Timestamp expiresAt) {
+        this.company = company;
+        this.token = token;
+        this.originalFilename = originalFilename;
+        this.contentType = contentType;
+        this.fileSize = fileSize;
+        this.createdAt = new Timestamp(System.currentTimeMillis());
+        this.expiresAt = expiresAt;
+    }
+}
@@ -0,0 +1,6 @@
+package gr.hua.model.enums;
+
+public enum DownloadMode {
+    PROXY,
+    PRESIGNED
+}
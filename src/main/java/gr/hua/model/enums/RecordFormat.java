@@ -0,0 +1,43 @@
+package gr.hua.model.enums;
+
+import jakarta.ws.rs.NotAcceptableException;
+import jakarta.ws.rs.NotSupportedException;
+import jakarta.ws.rs.core.MediaType;
+
+import java.util.List;
+
+public enum RecordFormat {
+    NDJSON("application/x-ndjson"),
+    CSV("text/csv");
+
+    private final String mediaType;
+
+    RecordFormat(String mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    public String getMediaType() {
+        return mediaType;
+    }
+
+    public static RecordFormat fromMediaType(MediaType mediaType) {
+        for (RecordFormat format : values()) {
+            if (mediaType != null && MediaType.valueOf(format.mediaType).isCompatible(mediaType)) {
+                return format;
+            }
+        }
+        throw new NotSupportedException("Import accepts application/x-ndjson or text/csv");
+    }
+
+    /** Picks the first format the client accepts, in the client's order of preference. */
+    public static RecordFormat fromAcceptable(List<MediaType> acceptable) {
+        for (MediaType mediaType : acceptable) {
+            for (RecordFormat format : values()) {
+                if (mediaType.isCompatible(MediaType.valueOf(format.mediaType))) {
+                    return format;
+                }
+            }
+        }
+        throw new NotAcceptableException("Export produces application/x-ndjson or text/csv");
+    }
+}
@@ -2,10 +2,16 @@ package gr.hua.model.mapper;
 
 import gr.hua.model.entity.ArticleDocument;
 import gr.hua.model.entity.Company;
+import gr.hua.model.entity.ImportJob;
+import gr.hua.model.entity.KeycloakUser;
+import gr.hua.model.projection.ArticleDocumentSummary;
+import gr.hua.model.projection.CompanySummary;
 import gr.hua.model.response.ArticleDocumentResponse;
 import gr.hua.model.response.CompanyResponse;
+import gr.hua.model.response.ImportJobResponse;
 import org.mapstruct.InjectionStrategy;
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
 import org.mapstruct.ReportingPolicy;
 
 import java.util.List;
@@ -25,4 +31,18 @@ public interface CompanyMapper {
     ArticleDocumentResponse toArticleDocumentResponse(ArticleDocument document);
 
     List<ArticleDocumentResponse> toArticleDocumentResponseList(List<ArticleDocument> documents);
+
+    @Mapping(target = "representative", source = "summary")
+    @Mapping(target = "articleDocuments", source = "documents")
+    CompanyResponse toCompanyResponse(CompanySummary summary, List<ArticleDocumentResponse> documents);
+
+    @Mapping(target = "id", source = "representativeId")
+    @Mapping(target = "keycloakId", source = "representativeKeycloakId")
+    @Mapping(target = "username", source = "representativeUsername")
+    KeycloakUser toRepresentative(CompanySummary summary);
+
+    ArticleDocumentResponse toArticleDocumentResponse(ArticleDocumentSummary summary);
+
+    @Mapping(target = "errors", ignore = true)
+    ImportJobResponse toImportJobResponse(ImportJob job);
 }
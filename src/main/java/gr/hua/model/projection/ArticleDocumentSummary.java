@@ -0,0 +1,20 @@
+package gr.hua.model.projection;
+
+import io.quarkus.hibernate.orm.panache.common.ProjectedFieldName;
+
+import java.sql.Timestamp;
+
+/**
+ * Read-only document row, carrying its company id so a whole page of companies
+ * can be served from one batched query.
+ */
+public record ArticleDocumentSummary(
+        Long id,
+        @ProjectedFieldName("company.id") Long companyId,
+        String objectKey,
+        String originalFilename,
+        String contentType,
+        Long fileSize,
+        Timestamp uploadedAt
+) {
+}
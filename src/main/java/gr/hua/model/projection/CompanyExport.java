@@ -0,0 +1,21 @@
+package gr.hua.model.projection;
+
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import gr.hua.model.enums.RegistrationState;
+
+import java.sql.Timestamp;
+
+/**
+ * One exported registration. Also defines the CSV column order.
+ */
+@JsonPropertyOrder({"id", "taxId", "name", "email", "hq", "state", "timestamp"})
+public record CompanyExport(
+        Long id,
+        String taxId,
+        String name,
+        String email,
+        String hq,
+        RegistrationState state,
+        Timestamp timestamp
+) {
+}
@@ -0,0 +1,26 @@
+package gr.hua.model.projection;
+
+import gr.hua.model.enums.RegistrationState;
+import io.quarkus.hibernate.orm.panache.common.ProjectedFieldName;
+
+import java.sql.Timestamp;
+
+/**
+ * Read-only row for listing registrations. Selected with a single {@code select new}
+ * so no managed {@code Company} or {@code KeycloakUser} is instantiated.
+ */
+public record CompanySummary(
+        Long id,
+        @ProjectedFieldName("representative.id") Long representativeId,
+        @ProjectedFieldName("representative.keycloakId") String representativeKeycloakId,
+        @ProjectedFieldName("representative.username") String representativeUsername,
+        String name,
+        String email,
+        String taxId,
+        RegistrationState state,
+        Timestamp timestamp,
+        String goal,
+        String hq,
+        String executives
+) {
+}
@@ -0,0 +1,18 @@
+package gr.hua.model.projection;
+
+import io.quarkus.hibernate.orm.panache.common.ProjectedFieldName;
+
+/**
+ * Immutable facts about a stored document: everything needed to authorize a download
+ * and build its headers. Documents are never modified in place, only deleted.
+ */
+public record DocumentMetadata(
+        long id,
+        @ProjectedFieldName("company.id") long companyId,
+        @ProjectedFieldName("company.representative.id") long representativeId,
+        String objectKey,
+        String contentType,
+        @ProjectedFieldName("originalFilename") String filename,
+        Long fileSize
+) {
+}
@@ -0,0 +1,7 @@
+package gr.hua.model.projection;
+
+/**
+ * An issued tax id and the name of the company holding it.
+ */
+public record IssuedTaxId(String taxId, String name) {
+}
@@ -0,0 +1,46 @@
+package gr.hua.model.request;
+
+import gr.hua.model.enums.RegistrationState;
+import lombok.*;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+
+/**
+ * One record of a bulk import from the legacy registry. State and timestamp stay strings
+ * so that a bad value rejects the record instead of aborting the whole stream.
+ */
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LegacyRegistration {
+
+    private String keycloakId;
+    private String username;
+    private String name;
+    private String email;
+    private String goal;
+    private String hq;
+    private String executives;
+    private String taxId;
+    private String state;
+    private String timestamp;
+
+    public RegistrationRequest toRegistrationRequest() {
+        return new RegistrationRequest(name, email, goal, hq, executives);
+    }
+
+    /** @throws IllegalArgumentException if the state is not a {@link RegistrationState} */
+    public RegistrationState registrationState() {
+        return state == null || state.isBlank() ? RegistrationState.PENDING : RegistrationState.valueOf(state.trim());
+    }
+
+    /** @throws java.time.format.DateTimeParseException if the timestamp is not ISO-8601 */
+    public Timestamp registeredAt() {
+        return timestamp == null || timestamp.isBlank()
+                ? new Timestamp(System.currentTimeMillis())
+                : Timestamp.from(Instant.parse(timestamp.trim()));
+    }
+}
@@ -0,0 +1,25 @@
+package gr.hua.model.request;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
+import lombok.*;
+
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UploadRequest {
+
+    @NotNull
+    @Size(min = 1, max = 200)
+    private String filename;
+
+    @NotNull
+    @Size(min = 1, max = 255)
+    private String contentType;
+
+    @Positive
+    private long size;
+}
@@ -0,0 +1,15 @@
+package gr.hua.model.response;
+
+import lombok.*;
+
+import java.time.Instant;
+
+@Setter
+@Getter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DownloadUrlResponse {
+    private String url;
+    private Instant expiresAt;
+}
@@ -0,0 +1,23 @@
+package gr.hua.model.response;
+
+import lombok.*;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+@Setter
+@Getter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportJobResponse {
+    private Long id;
+    private long committedRecords;
+    private long imported;
+    private long skipped;
+    private long rejected;
+    private Timestamp createdAt;
+    private Timestamp updatedAt;
+    // rejections found by this request, capped
+    private List<String> errors;
+}
@@ -0,0 +1,14 @@
+package gr.hua.model.response;
+
+import lombok.*;
+
+@Setter
+@Getter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TaxIdVerificationResponse {
+    private String taxId;
+    private boolean issued;
+    private String companyName;
+}
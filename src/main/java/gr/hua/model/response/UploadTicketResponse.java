@@ -0,0 +1,17 @@
+package gr.hua.model.response;
+
+import lombok.*;
+
+import java.time.Instant;
+
+@Setter
+@Getter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UploadTicketResponse {
+    private String objectKey;
+    private String filename;
+    private String url;
+    private Instant expiresAt;
+}
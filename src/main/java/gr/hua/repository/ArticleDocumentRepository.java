@@ -1,15 +1,88 @@
 package gr.hua.repository;
 
 import gr.hua.model.entity.ArticleDocument;
+import gr.hua.model.projection.ArticleDocumentSummary;
+import gr.hua.model.projection.DocumentMetadata;
 import io.quarkus.hibernate.orm.panache.PanacheRepository;
+import io.quarkus.panache.common.Sort;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.hibernate.jpa.HibernateHints;
 
+import java.util.Collection;
+import java.sql.Timestamp;
 import java.util.List;
+import java.util.stream.Stream;
 
 @ApplicationScoped
 public class ArticleDocumentRepository implements PanacheRepository<ArticleDocument> {
 
+    // One statement: drop the rows, release their shared objects and queue the unshared ones for ObjectDeletionWorker
+    private static final String DELETE_QUEUING_OBJECTS_SQL = """
+            with removed as (
+                delete from ArticleDocument where company_id = :companyId %s returning id, objectKey
+            ), released as (
+                update StoredBlob b set refCount = b.refCount - r.refs
+                from (select objectKey, count(*) as refs from removed group by objectKey) r
+                where b.objectKey = r.objectKey
+                returning b.objectKey
+            ), queued as (
+                insert into ObjectDeletion (id, objectKey, attempts, createdAt)
+                select nextval('objectdeletion_seq'), objectKey, 0, localtimestamp from removed
+                where objectKey not in (select objectKey from released)
+            )
+            select id from removed
+            """;
+
+    @Inject
+    StoredBlobRepository storedBlobRepository;
+
     public List<ArticleDocument> findByCompanyId(Long companyId) {
         return find("company.id", companyId).list();
     }
+
+    public List<ArticleDocumentSummary> findSummariesByCompanyIds(Collection<Long> companyIds) {
+        return find("company.id in ?1", Sort.by("uploadedAt").and("id"), companyIds)
+                .project(ArticleDocumentSummary.class)
+                .list();
+    }
+
+    public DocumentMetadata findMetadata(long id) {
+        return find("id", id).project(DocumentMetadata.class).firstResult();
+    }
+
+    /**
+     * Bulk-deletes the company's documents, or only those among {@code ids} when given, and queues their objects
+     * for removal from storage in the same transaction. A shared object is queued only once its last document
+     * is gone. Returns the ids of the deleted rows.
+     */
+    @SuppressWarnings("unchecked")
+    public List<Long> deleteQueuingObjects(long companyId, Collection<Long> ids) {
+        var query = getEntityManager()
+                .createNativeQuery(DELETE_QUEUING_OBJECTS_SQL.formatted(ids == null ? "" : "and id in (:ids)"), Long.class)
+                .setParameter("companyId", companyId);
+        if (ids != null) {
+            query.setParameter("ids", ids);
+        }
+        List<Long> deleted = query.getResultList();
+        // A separate statement: the one above cannot see the counts it has just lowered
+        storedBlobRepository.queueUnreferenced();
+        return deleted;
+    }
+
+    /**
+     * Streams the object keys of documents uploaded before {@code cutoff}, or of all documents when it is null.
+     * Must be consumed and closed inside a transaction.
+     */
+    public Stream<String> streamObjectKeys(Timestamp cutoff, int fetchSize) {
+        var query = getEntityManager()
+                .createQuery("select objectKey from ArticleDocument" + (cutoff == null ? "" : " where uploadedAt < :cutoff"), String.class);
+        if (cutoff != null) {
+            query.setParameter("cutoff", cutoff);
+        }
+        return query
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream();
+    }
 }
@@ -1,24 +1,269 @@
 package gr.hua.repository;
 
 import gr.hua.model.entity.Company;
+import gr.hua.model.entity.IdAllocation;
 import gr.hua.model.entity.KeycloakUser;
 import gr.hua.model.enums.RegistrationState;
+import gr.hua.model.projection.CompanyExport;
+import gr.hua.model.projection.CompanySummary;
+import gr.hua.model.projection.IssuedTaxId;
+import gr.hua.model.request.LegacyRegistration;
+import gr.hua.model.request.PageCursor;
+import gr.hua.taxid.TaxIdFormat;
 import io.quarkus.hibernate.orm.panache.PanacheRepository;
+import io.quarkus.panache.common.Parameters;
+import io.quarkus.panache.common.Sort;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.persistence.LockModeType;
 import jakarta.ws.rs.core.Response;
+import org.hibernate.Session;
+import org.hibernate.jpa.HibernateHints;
+import org.postgresql.copy.CopyIn;
+import org.postgresql.copy.CopyManager;
+import org.postgresql.core.BaseConnection;
 
-import java.security.Timestamp;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 @ApplicationScoped
 public class CompanyRepository implements PanacheRepository<Company> {
 
+    private static final String CREATE_STAGING_SQL = """
+            create temp table if not exists company_import (
+                record bigint, keycloakId text, username text, name text, email text,
+                taxNumber bigint, legacyTaxId text, state smallint, timestamp timestamp(6), goal text, hq text, executives text
+            ) on commit drop
+            """;
+
+    private static final String COPY_STAGING_SQL = """
+            copy company_import (record, keycloakId, username, name, email, taxNumber, legacyTaxId, state, timestamp, goal, hq, executives)
+            from stdin with (format csv)
+            """;
+
+    // Ids for the n-th new row come from block n / size, taken with one nextval per block as pooled-lo does
+    private static final String UPSERT_REPRESENTATIVES_SQL = """
+            with missing as (
+                select keycloakId, min(username) as username, row_number() over (order by keycloakId) - 1 as n
+                from company_import s
+                where not exists (select 1 from KeycloakUser u where u.keycloakId = s.keycloakId)
+                group by keycloakId
+            ), blocks as (
+                select b as block, nextval('keycloakuser_seq') as first
+                from generate_series(0, (select (count(*) - 1) / %1$d from missing)) b
+                where exists (select 1 from missing)
+            )
+            insert into KeycloakUser (id, keycloakId, username)
+            select b.first + m.n %% %1$d, m.keycloakId, m.username
+            from missing m
+            join blocks b on b.block = m.n / %1$d
+            on conflict (keycloakId) do nothing
+            """.formatted(IdAllocation.ALLOCATION_SIZE);
+
+    // Rows that would conflict are filtered out first, so they take no ids; duplicates within the batch still
+    // hit on conflict
+    private static final String INSERT_COMPANIES_SQL = """
+            with candidates as (
+                select s.record, u.id as representative_id, s.name, s.email, s.taxNumber, s.legacyTaxId, s.state, s.timestamp, s.goal, s.hq, s.executives,
+                       row_number() over (order by s.record) - 1 as n
+                from company_import s
+                join KeycloakUser u on u.keycloakId = s.keycloakId
+                where not exists (select 1 from Company c where c.representative_id = u.id)
+                  and not exists (select 1 from Company c where c.email = s.email)
+                  and not exists (select 1 from Company c where c.taxNumber = s.taxNumber)
+                  and not exists (select 1 from Company c where c.legacyTaxId = s.legacyTaxId)
+            ), blocks as (
+                select b as block, nextval('company_seq') as first
+                from generate_series(0, (select (count(*) - 1) / %1$d from candidates)) b
+                where exists (select 1 from candidates)
+            ), inserted as (
+                insert into Company (id, version, representative_id, name, email, taxNumber, legacyTaxId, state, timestamp, goal, hq, executives)
+                select b.first + c.n %% %1$d, 0, c.representative_id, c.name, c.email, c.taxNumber, c.legacyTaxId, c.state, c.timestamp, c.goal, c.hq, c.executives
+                from candidates c
+                join blocks b on b.block = c.n / %1$d
+                order by c.record
+                on conflict do nothing
+                returning id, state
+            )
+            select count(*), coalesce(array_agg(id) filter (where state = %2$d), '{}')
+            from inserted
+            """.formatted(IdAllocation.ALLOCATION_SIZE, RegistrationState.ACCEPTED.ordinal());
+
+    // Blocks reserved from now on start past every imported body in the generator's range; is_called is
+    // false only before the first block, whose start is last_value itself
+    private static final String ADVANCE_TAX_ID_SEQUENCE_SQL = """
+            select setval('taxid_seq', i.body)
+            from taxid_seq s, (select max(taxNumber / 10) as body from company_import where taxNumber / 10 between %d and %d) i
+            where i.body >= s.last_value
+            """.formatted(TaxIdFormat.MIN_BODY, TaxIdFormat.MAX_BODY);
+
+    /** Outcome of {@link #bulkImport}: rows inserted, and the ids of those already accepted. */
+    public record BulkImportResult(long inserted, List<Long> acceptedIds) {
+    }
+
 
     public Company findByRepId(Long repId){
         return find("representative.id", repId).firstResult();
     }
 
+    /**
+     * Resolves a JWT subject straight to its representative's company in one join query,
+     * fetching the representative along with it.
+     */
+    public Company findByRepKeycloakId(String keycloakId) {
+        return find("from Company c join fetch c.representative r where r.keycloakId = ?1", keycloakId)
+                .firstResult();
+    }
+
+    /**
+     * Same as {@link #findByRepKeycloakId(String)} but holds a row lock until commit, so state
+     * checks made against the company stay valid while its documents are modified.
+     */
+    public Company findByRepKeycloakIdForUpdate(String keycloakId) {
+        return find("from Company c join fetch c.representative r where r.keycloakId = ?1", keycloakId)
+                .withLock(LockModeType.PESSIMISTIC_WRITE)
+                .firstResult();
+    }
+
     public List<Company> findbyState(RegistrationState registrationState) {
         return find("state",registrationState).list();
     }
+
+    /**
+     * Keyset page of companies in the given state, ordered by {@code (timestamp, id)}, so every
+     * page costs the same. The state is rendered as a literal rather than bound, which lets
+     * Postgres match the partial {@code idx_company_pending} index even under a generic plan.
+     */
+    public List<CompanySummary> findSummaryPageByState(RegistrationState registrationState, PageCursor after, int limit) {
+        Sort sort = Sort.by("timestamp").and("id");
+        String state = "state = " + RegistrationState.class.getName() + "." + registrationState.name();
+        if (after == null) {
+            return find(state, sort)
+                    .project(CompanySummary.class)
+                    .range(0, limit - 1)
+                    .list();
+        }
+        return find(state + " and (timestamp, id) > (?1, ?2)", sort, after.timestamp(), after.id())
+                .project(CompanySummary.class)
+                .range(0, limit - 1)
+                .list();
+    }
+
+    /**
+     * Streams the companies in {@code registrationState}, optionally limited to a
+     * {@code [from, to)} window on their timestamp, in id order. Rows come from a server-side
+     * cursor {@code fetchSize} at a time and are not attached to the session, so memory stays
+     * flat however many there are. Must be consumed and closed inside a transaction.
+     */
+    public Stream<CompanyExport> streamForExport(RegistrationState registrationState, Timestamp from, Timestamp to, int fetchSize) {
+        StringBuilder query = new StringBuilder("state = :state");
+        Parameters parameters = Parameters.with("state", registrationState);
+        if (from != null) {
+            query.append(" and timestamp >= :from");
+            parameters.and("from", from);
+        }
+        if (to != null) {
+            query.append(" and timestamp < :to");
+            parameters.and("to", to);
+        }
+        return find(query.toString(), Sort.by("id"), parameters)
+                .project(CompanyExport.class)
+                .withHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .withHint(HibernateHints.HINT_READ_ONLY, true)
+                .stream();
+    }
+
+    /**
+     * Streams every issued tax id, nine-digit ids first in numeric order, then the legacy ones.
+     * Must be consumed and closed inside a transaction.
+     */
+    public Stream<IssuedTaxId> streamIssuedTaxIds(int fetchSize) {
+        return find("state = ?1 and (taxNumber is not null or legacyTaxId is not null)", Sort.by("taxNumber"), RegistrationState.ACCEPTED)
+                .project(IssuedTaxId.class)
+                .withHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .withHint(HibernateHints.HINT_READ_ONLY, true)
+                .stream();
+    }
+
+    public List<IssuedTaxId> findIssuedTaxIds(Collection<Long> ids) {
+        return find("id in ?1 and state = ?2 and (taxNumber is not null or legacyTaxId is not null)", ids, RegistrationState.ACCEPTED)
+                .project(IssuedTaxId.class)
+                .list();
+    }
+
+    public IssuedTaxId findIssuedTaxId(String taxId) {
+        long number = TaxIdFormat.toNumber(taxId);
+        return (number < 0
+                ? find("legacyTaxId = ?1 and state = ?2", taxId, RegistrationState.ACCEPTED)
+                : find("taxNumber = ?1 and state = ?2", number, RegistrationState.ACCEPTED))
+                .project(IssuedTaxId.class)
+                .firstResult();
+    }
+
+    /**
+     * Loads validated legacy registrations in bulk: the rows are streamed into a temporary
+     * staging table over the COPY protocol, missing representatives are created as stubs, and
+     * the companies are inserted with one insert-select. Rows whose email, representative or
+     * tax id already exists are skipped, and the tax id sequence is moved past the imported
+     * nine-digit ids. Must run inside a transaction.
+     */
+    public BulkImportResult bulkImport(List<LegacyRegistration> rows, long firstRecord) {
+        return getEntityManager().unwrap(Session.class).doReturningWork(connection -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute(CREATE_STAGING_SQL);
+                statement.execute("truncate company_import");
+            }
+            CopyIn copyIn = new CopyManager(connection.unwrap(BaseConnection.class)).copyIn(COPY_STAGING_SQL);
+            try {
+                long record = firstRecord;
+                for (LegacyRegistration row : rows) {
+                    byte[] line = toCsvLine(record++, row);
+                    copyIn.writeToCopy(line, 0, line.length);
+                }
+                copyIn.endCopy();
+            } finally {
+                if (copyIn.isActive()) {
+                    copyIn.cancelCopy();
+                }
+            }
+            try (Statement statement = connection.createStatement()) {
+                statement.executeUpdate(UPSERT_REPRESENTATIVES_SQL);
+                statement.execute(ADVANCE_TAX_ID_SEQUENCE_SQL);
+                try (ResultSet result = statement.executeQuery(INSERT_COMPANIES_SQL)) {
+                    result.next();
+                    Long[] acceptedIds = (Long[]) result.getArray(2).getArray();
+                    return new BulkImportResult(result.getLong(1), List.of(acceptedIds));
+                }
+            }
+        });
+    }
+
+    private static byte[] toCsvLine(long record, LegacyRegistration row) {
+        StringBuilder line = new StringBuilder(256).append(record);
+        appendCsv(line, row.getKeycloakId());
+        appendCsv(line, row.getUsername());
+        appendCsv(line, row.getName());
+        appendCsv(line, row.getEmail());
+        long taxNumber = TaxIdFormat.toNumber(row.getTaxId());
+        appendCsv(line, taxNumber < 0 ? null : Long.toString(taxNumber));
+        appendCsv(line, taxNumber < 0 ? row.getTaxId() : null);
+        appendCsv(line, Integer.toString(row.registrationState().ordinal()));
+        appendCsv(line, row.registeredAt().toLocalDateTime().toString());
+        appendCsv(line, row.getGoal());
+        appendCsv(line, row.getHq());
+        appendCsv(line, row.getExecutives());
+        return line.append('\n').toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    // unquoted empty is NULL in COPY csv; quoted values keep empty strings and embedded newlines
+    private static void appendCsv(StringBuilder line, String value) {
+        line.append(',');
+        if (value != null) {
+            line.append('"').append(value.replace("\"", "\"\"")).append('"');
+        }
+    }
 }
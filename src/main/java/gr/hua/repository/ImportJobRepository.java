@@ -0,0 +1,14 @@
+package gr.hua.repository;
+
+import gr.hua.model.entity.ImportJob;
+import io.quarkus.hibernate.orm.panache.PanacheRepository;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.persistence.LockModeType;
+
+@ApplicationScoped
+public class ImportJobRepository implements PanacheRepository<ImportJob> {
+
+    public ImportJob findByIdForUpdate(Long id) {
+        return findById(id, LockModeType.PESSIMISTIC_WRITE);
+    }
+}
@@ -5,9 +5,47 @@ import io.quarkus.hibernate.orm.panache.PanacheQuery;
 import io.quarkus.hibernate.orm.panache.PanacheRepository;
 import jakarta.enterprise.context.ApplicationScoped;
 
+import java.util.List;
+
 @ApplicationScoped
 public class KeycloakUserRepository implements PanacheRepository<KeycloakUser> {
+
+    private static final String PROVISION_SQL = """
+            with inserted as (
+                insert into KeycloakUser (id, keycloakId, username)
+                select nextval('keycloakuser_seq'), :keycloakId, :username
+                where not exists (select 1 from KeycloakUser where keycloakId = :keycloakId)
+                on conflict (keycloakId) do nothing
+                returning *
+            )
+            select * from inserted
+            union all
+            select * from KeycloakUser where keycloakId = :keycloakId
+            limit 1
+            """;
+
     public PanacheQuery<KeycloakUser> findByKeycloakId(String keycloakId) {
         return find("keycloakId",keycloakId);
     }
+
+    /**
+     * Returns the user for {@code keycloakId}, inserting it first if needed, in one statement.
+     * The unique index on {@code keycloakId} makes concurrent first logins converge on one row.
+     * A sequence block is taken only when the user is missing; using one id of it wastes the rest
+     * but never collides with the blocks Hibernate allocates.
+     */
+    @SuppressWarnings("unchecked")
+    public KeycloakUser provision(String keycloakId, String username) {
+        List<KeycloakUser> users = getEntityManager()
+                .createNativeQuery(PROVISION_SQL, KeycloakUser.class)
+                .setParameter("keycloakId", keycloakId)
+                .setParameter("username", username)
+                .getResultList();
+        if (!users.isEmpty()) {
+            return users.get(0);
+        }
+        // A concurrent insert committed after this statement took its snapshot:
+        // the conflict was detected but the row is only visible to a new statement.
+        return findByKeycloakId(keycloakId).firstResult();
+    }
 }
@@ -0,0 +1,48 @@
+package gr.hua.repository;
+
+import gr.hua.model.entity.ObjectDeletion;
+import io.quarkus.hibernate.orm.panache.PanacheRepository;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.hibernate.jpa.HibernateHints;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+@ApplicationScoped
+public class ObjectDeletionRepository implements PanacheRepository<ObjectDeletion> {
+
+    /**
+     * Claims the oldest pending deletions that have failed fewer than {@code maxAttempts} times; rows past the
+     * limit stay parked until an operator resets their attempts. Rows locked by another node's drain are skipped,
+     * not waited for.
+     */
+    @SuppressWarnings("unchecked")
+    public List<ObjectDeletion> lockBatch(int limit, int maxAttempts) {
+        return getEntityManager()
+                .createNativeQuery("select * from ObjectDeletion where attempts < ?2 order by id limit ?1 for update skip locked",
+                        ObjectDeletion.class)
+                .setParameter(1, limit)
+                .setParameter(2, maxAttempts)
+                .getResultList();
+    }
+
+    public long deleteByIds(Collection<Long> ids) {
+        return delete("id in ?1", ids);
+    }
+
+    public int recordFailedAttempt(Collection<Long> ids) {
+        return update("attempts = attempts + 1 where id in ?1", ids);
+    }
+
+    /**
+     * Streams the keys still waiting for deletion. Must be consumed and closed inside a transaction.
+     */
+    public Stream<String> streamObjectKeys(int fetchSize) {
+        return getEntityManager()
+                .createQuery("select objectKey from ObjectDeletion", String.class)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream();
+    }
+}
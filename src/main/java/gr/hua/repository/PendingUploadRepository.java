@@ -0,0 +1,35 @@
+package gr.hua.repository;
+
+import gr.hua.model.entity.PendingUpload;
+import io.quarkus.hibernate.orm.panache.PanacheRepository;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.hibernate.jpa.HibernateHints;
+
+import java.sql.Timestamp;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+@ApplicationScoped
+public class PendingUploadRepository implements PanacheRepository<PendingUpload> {
+
+    public List<PendingUpload> findByCompanyIdAndObjectKeys(long companyId, Collection<String> objectKeys) {
+        return find("company.id = ?1 and objectKey in ?2", companyId, objectKeys).list();
+    }
+
+    public long deleteByIds(Collection<Long> ids) {
+        return delete("id in ?1", ids);
+    }
+
+    public long deleteExpiredBefore(Timestamp cutoff) {
+        return delete("expiresAt < ?1", cutoff);
+    }
+
+    public Stream<String> streamObjectKeys(int fetchSize) {
+        return getEntityManager()
+                .createQuery("select objectKey from PendingUpload", String.class)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream();
+    }
+}
@@ -0,0 +1,137 @@
+package gr.hua.repository;
+
+import gr.hua.model.entity.StoredBlob;
+import io.quarkus.hibernate.orm.panache.PanacheRepository;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.hibernate.jpa.HibernateHints;
+
+import java.sql.Timestamp;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Reference-counted content. A row is dropped in the same transaction that takes its count to zero, so a row
+ * with a positive count always names a live object. Object keys are never reused: content uploaded again after
+ * its last reference is gone gets a new key, so a queued deletion can never hit it.
+ */
+@ApplicationScoped
+public class StoredBlobRepository implements PanacheRepository<StoredBlob> {
+
+    private static final String ACQUIRE_SQL = """
+            with acquired as (
+                update StoredBlob set refCount = refCount + 1, acquiredAt = localtimestamp
+                where contentHash = :hash and fileSize = :size and refCount > 0
+                returning objectKey
+            )
+            select objectKey from acquired
+            """;
+
+    private static final String REGISTER_SQL = """
+            insert into StoredBlob (id, contentHash, objectKey, fileSize, refCount, createdAt, acquiredAt)
+            values (nextval('storedblob_seq'), :hash, :key, :size, 1, localtimestamp, localtimestamp)
+            on conflict (contentHash) do nothing
+            """;
+
+    private static final String DROP_RELEASED_SQL = """
+            with dropped as (
+                delete from StoredBlob where refCount <= 0 and objectKey in (:keys) returning objectKey
+            )
+            select objectKey from dropped
+            """;
+
+    // One statement: drop the blobs nothing refers to and queue their objects for ObjectDeletionWorker
+    private static final String QUEUE_UNREFERENCED_SQL = """
+            with dropped as (
+                delete from StoredBlob where refCount <= 0 returning objectKey
+            ), queued as (
+                insert into ObjectDeletion (id, objectKey, attempts, createdAt)
+                select nextval('objectdeletion_seq'), objectKey, 0, localtimestamp from dropped
+            )
+            select count(*) from dropped
+            """;
+
+    private static final String RECOUNT_SQL = """
+            with recounted as (
+                update StoredBlob b set refCount = counted.refs
+                from (
+                    select s.id, (select count(*) from ArticleDocument d where d.objectKey = s.objectKey) as refs
+                    from StoredBlob s where s.acquiredAt < :cutoff
+                ) counted
+                where b.id = counted.id and b.refCount <> counted.refs
+                returning b.id
+            )
+            select count(*) from recounted
+            """;
+
+    /**
+     * Takes a reference to the stored object with this content, if there is one. Returns its key, or null when
+     * the content has to be stored.
+     */
+    @SuppressWarnings("unchecked")
+    public String acquire(String contentHash, long size) {
+        List<String> keys = getEntityManager().createNativeQuery(ACQUIRE_SQL, String.class)
+                .setParameter("hash", contentHash)
+                .setParameter("size", size)
+                .getResultList();
+        return keys.isEmpty() ? null : keys.get(0);
+    }
+
+    /**
+     * Records a freshly stored object as the copy of its content, holding one reference. Returns false if
+     * another upload registered the same content first.
+     */
+    public boolean register(String contentHash, String objectKey, long size) {
+        return getEntityManager().createNativeQuery(REGISTER_SQL)
+                .setParameter("hash", contentHash)
+                .setParameter("key", objectKey)
+                .setParameter("size", size)
+                .executeUpdate() == 1;
+    }
+
+    /**
+     * Drops one reference per key occurrence. Returns the keys whose last reference this was; their rows are
+     * gone and the caller is responsible for the objects.
+     */
+    @SuppressWarnings("unchecked")
+    public List<String> release(Collection<String> objectKeys) {
+        if (objectKeys.isEmpty()) {
+            return List.of();
+        }
+        Map<String, Long> references = objectKeys.stream().collect(Collectors.groupingBy(Function.identity(), Collectors.counting()));
+        references.forEach((objectKey, count) -> update("refCount = refCount - ?1 where objectKey = ?2", count.intValue(), objectKey));
+        return getEntityManager().createNativeQuery(DROP_RELEASED_SQL, String.class)
+                .setParameter("keys", references.keySet())
+                .getResultList();
+    }
+
+    /**
+     * Drops every blob without references and queues its object for removal from storage. Returns the number
+     * of objects queued.
+     */
+    public long queueUnreferenced() {
+        return ((Number) getEntityManager().createNativeQuery(QUEUE_UNREFERENCED_SQL).getSingleResult()).longValue();
+    }
+
+    /**
+     * Resets the count of blobs last acquired before {@code cutoff} to the number of documents using them. An
+     * upload that took a reference and never recorded its document leaves the count too high; by the cutoff
+     * no such upload can still be in flight. Returns the number of blobs corrected.
+     */
+    public long recount(Timestamp cutoff) {
+        return ((Number) getEntityManager().createNativeQuery(RECOUNT_SQL)
+                .setParameter("cutoff", cutoff)
+                .getSingleResult()).longValue();
+    }
+
+    public Stream<String> streamObjectKeys(int fetchSize) {
+        return getEntityManager()
+                .createQuery("select objectKey from StoredBlob", String.class)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream();
+    }
+}
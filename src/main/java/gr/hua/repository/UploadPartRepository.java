@@ -0,0 +1,46 @@
+package gr.hua.repository;
+
+import gr.hua.model.entity.UploadPart;
+import io.quarkus.hibernate.orm.panache.PanacheRepository;
+import io.quarkus.panache.common.Sort;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.hibernate.jpa.HibernateHints;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+@ApplicationScoped
+public class UploadPartRepository implements PanacheRepository<UploadPart> {
+
+    // Parts of a completed session are no longer needed once their content is composed
+    private static final String DELETE_QUEUING_OBJECTS_SQL = """
+            with removed as (
+                delete from UploadPart where session_id = :sessionId returning objectKey
+            ), queued as (
+                insert into ObjectDeletion (id, objectKey, attempts, createdAt)
+                select nextval('objectdeletion_seq'), objectKey, 0, localtimestamp from removed
+            )
+            select count(*) from removed
+            """;
+
+    public List<UploadPart> findBySessionId(long sessionId) {
+        return find("session.id", Sort.by("partOffset"), sessionId).list();
+    }
+
+    /**
+     * Deletes the session's parts and queues their objects for removal from storage.
+     */
+    public long deleteQueuingObjects(long sessionId) {
+        return ((Number) getEntityManager().createNativeQuery(DELETE_QUEUING_OBJECTS_SQL)
+                .setParameter("sessionId", sessionId)
+                .getSingleResult()).longValue();
+    }
+
+    public Stream<String> streamObjectKeys(int fetchSize) {
+        return getEntityManager()
+                .createQuery("select objectKey from UploadPart", String.class)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream();
+    }
+}
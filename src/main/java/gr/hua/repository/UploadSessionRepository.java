@@ -0,0 +1,64 @@
+package gr.hua.repository;
+
+import gr.hua.model.entity.UploadSession;
+import io.quarkus.hibernate.orm.panache.PanacheRepository;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.persistence.LockModeType;
+
+import java.sql.Timestamp;
+
+@ApplicationScoped
+public class UploadSessionRepository implements PanacheRepository<UploadSession> {
+
+    // One statement: drop the sessions and their parts and queue the part objects for ObjectDeletionWorker
+    private static final String DELETE_QUEUING_PARTS_SQL = """
+            with removed as (
+                delete from UploadSession where %s returning id
+            ), parts as (
+                delete from UploadPart where session_id in (select id from removed) returning objectKey
+            ), queued as (
+                insert into ObjectDeletion (id, objectKey, attempts, createdAt)
+                select nextval('objectdeletion_seq'), objectKey, 0, localtimestamp from parts
+            )
+            select count(*) from removed
+            """;
+
+    public UploadSession findByTokenAndRepKeycloakId(String token, String keycloakId) {
+        return find("from UploadSession s join fetch s.company c left join fetch s.document where s.token = ?1 and c.representative.keycloakId = ?2",
+                token, keycloakId).firstResult();
+    }
+
+    public UploadSession findByIdForUpdate(long id) {
+        return find("id", id).withLock(LockModeType.PESSIMISTIC_WRITE).firstResult();
+    }
+
+    /**
+     * Moves the offset of an unfinished, unexpired session from {@code expected} to {@code offset} and extends
+     * its expiry. Returns false if the session is no longer at {@code expected}: another chunk got there first.
+     */
+    public boolean advance(long id, long expected, long offset, Timestamp expiresAt, Timestamp now) {
+        return update("uploadOffset = ?1, expiresAt = ?2 where id = ?3 and uploadOffset = ?4 and document is null and expiresAt > ?5",
+                offset, expiresAt, id, expected, now) == 1;
+    }
+
+    /**
+     * Deletes one session and queues the objects of its parts for removal from storage.
+     */
+    public boolean deleteQueuingParts(long id) {
+        return deleteQueuingParts("id = :value", id) == 1;
+    }
+
+    public long deleteExpiredQueuingParts(Timestamp now) {
+        return deleteQueuingParts("expiresAt < :value", now);
+    }
+
+    public long deleteByCompanyIdQueuingParts(long companyId) {
+        return deleteQueuingParts("company_id = :value", companyId);
+    }
+
+    private long deleteQueuingParts(String condition, Object value) {
+        return ((Number) getEntityManager().createNativeQuery(DELETE_QUEUING_PARTS_SQL.formatted(condition))
+                .setParameter("value", value)
+                .getSingleResult()).longValue();
+    }
+}
@@ -0,0 +1,102 @@
+package gr.hua.resource;
+
+import io.smallrye.mutiny.Multi;
+import io.vertx.core.buffer.Buffer;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.MultivaluedMap;
+import jakarta.ws.rs.ext.Provider;
+import org.jboss.resteasy.reactive.server.core.ResteasyReactiveRequestContext;
+import org.jboss.resteasy.reactive.server.spi.ResteasyReactiveResourceInfo;
+import org.jboss.resteasy.reactive.server.spi.ServerHttpResponse;
+import org.jboss.resteasy.reactive.server.spi.ServerMessageBodyWriter;
+import org.jboss.resteasy.reactive.server.spi.ServerRequestContext;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.concurrent.Flow;
+
+/**
+ * Writes a {@code Multi<Buffer>} response entity, so a {@code Response} can carry status and headers and still
+ * stream its body; the entity has to be wrapped in a {@code GenericEntity<Multi<Buffer>>} to be picked up. One
+ * chunk is requested at a time and the next only once the previous one has been written, so the producer moves
+ * at the client's pace. The stream is cancelled when the client goes away.
+ */
+@Provider
+public class BufferStreamWriter implements ServerMessageBodyWriter<Multi<Buffer>> {
+
+    @Override
+    public boolean isWriteable(Class<?> type, Type genericType, ResteasyReactiveResourceInfo target, MediaType mediaType) {
+        return isBufferStream(type, genericType);
+    }
+
+    @Override
+    public boolean isWriteable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+        return isBufferStream(type, genericType);
+    }
+
+    // a Response entity is seen with its erased class unless it is wrapped in a GenericEntity<Multi<Buffer>>
+    private static boolean isBufferStream(Class<?> type, Type genericType) {
+        return Multi.class.isAssignableFrom(type)
+                && genericType instanceof ParameterizedType parameterized
+                && parameterized.getActualTypeArguments()[0] == Buffer.class;
+    }
+
+    @Override
+    public void writeResponse(Multi<Buffer> content, Type genericType, ServerRequestContext context) {
+        ResteasyReactiveRequestContext requestContext = (ResteasyReactiveRequestContext) context;
+        ServerHttpResponse response = context.serverResponse();
+        if (response.getResponseHeader(HttpHeaders.CONTENT_LENGTH) == null) {
+            response.setChunked(true);
+        }
+        requestContext.suspend();
+        content.subscribe().withSubscriber(new Flow.Subscriber<Buffer>() {
+
+            private Flow.Subscription subscription;
+
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                this.subscription = subscription;
+                response.addCloseHandler(subscription::cancel);
+                subscription.request(1);
+            }
+
+            @Override
+            public void onNext(Buffer chunk) {
+                response.write(chunk.getBytes()).whenComplete((ignored, error) -> {
+                    if (error != null) {
+                        subscription.cancel();
+                        requestContext.resume(error);
+                    } else {
+                        subscription.request(1);
+                    }
+                });
+            }
+
+            @Override
+            public void onError(Throwable error) {
+                requestContext.resume(error);
+            }
+
+            @Override
+            public void onComplete() {
+                response.end();
+                requestContext.resume();
+            }
+        });
+    }
+
+    /**
+     * Blocking fallback for callers outside the reactive server: writes the chunks in order on the calling thread.
+     */
+    @Override
+    public void writeTo(Multi<Buffer> content, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType,
+                        MultivaluedMap<String, Object> httpHeaders, OutputStream entityStream) throws IOException {
+        for (Buffer chunk : content.subscribe().asIterable()) {
+            entityStream.write(chunk.getBytes());
+        }
+    }
+}
@@ -1,18 +1,27 @@
 package gr.hua.resource;
 
-import gr.hua.model.entity.ArticleDocument;
+import gr.hua.model.enums.RecordFormat;
+import gr.hua.model.enums.RegistrationState;
+import gr.hua.model.projection.DocumentMetadata;
 import gr.hua.model.request.ProcessRequest;
 import gr.hua.model.response.CompanyResponse;
+import gr.hua.model.response.ImportJobResponse;
+import gr.hua.model.response.PageResponse;
+import gr.hua.service.DownloadService;
+import gr.hua.service.ExportService;
+import gr.hua.service.ImportService;
 import gr.hua.service.IssuingService;
 import gr.hua.service.RegistrationService;
 import jakarta.annotation.security.RolesAllowed;
 import jakarta.inject.Inject;
 import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.HttpHeaders;
 import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
 import lombok.RequiredArgsConstructor;
 
 import java.io.InputStream;
-import java.util.List;
 
 import static jakarta.ws.rs.core.MediaType.APPLICATION_JSON;
 
@@ -24,15 +33,31 @@ import static jakarta.ws.rs.core.MediaType.APPLICATION_JSON;
 @Path("/api/processing")
 public class EmployeeResource {
 
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     @Inject
     IssuingService issuingService;
 
     @Inject
     RegistrationService registrationService;
 
+    @Inject
+    ImportService importService;
+
+    @Inject
+    ExportService exportService;
+
+    @Inject
+    DownloadService downloadService;
+
     @GET
-    public List<CompanyResponse> getPendingRegistration() {
-        return issuingService.getAllPending();
+    public Response getPendingRegistration(@QueryParam("cursor") String cursor, @QueryParam("limit") Integer limit) {
+        PageResponse<CompanyResponse> page = issuingService.getPending(cursor, limit);
+        Response.ResponseBuilder response = Response.ok(page.getItems());
+        if (page.getNextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return response.build();
     }
 
     @PUT
@@ -43,11 +68,56 @@ public class EmployeeResource {
 
     @GET
     @Path("/{companyId}/files/{fileId}")
-    public Response downloadFile(@PathParam("companyId") Long companyId, @PathParam("fileId") Long fileId) {
-        ArticleDocument doc = registrationService.getArticleDocumentForCompany(companyId, fileId);
-        InputStream stream = registrationService.downloadFileForReview(companyId, fileId);
-        return Response.ok(stream, doc.getContentType())
-                .header("Content-Disposition", "attachment; filename=\"" + doc.getOriginalFilename() + "\"")
+    public Response downloadFile(@PathParam("companyId") Long companyId, @PathParam("fileId") Long fileId,
+                                 @Context HttpHeaders headers) {
+        DocumentMetadata doc = registrationService.getArticleDocumentForCompany(companyId, fileId);
+        return downloadService.download(doc, headers);
+    }
+
+    @HEAD
+    @Path("/{companyId}/files/{fileId}")
+    public Response headFile(@PathParam("companyId") Long companyId, @PathParam("fileId") Long fileId,
+                             @Context HttpHeaders headers) {
+        DocumentMetadata doc = registrationService.getArticleDocumentForCompany(companyId, fileId);
+        return downloadService.head(doc, headers);
+    }
+
+    /**
+     * Streams legacy registrations (NDJSON or CSV with a header row) into an import job.
+     * Pass {@code job} to resume it; {@code from} is the record number the body starts at.
+     */
+    @POST
+    @Path("/import")
+    @Consumes({"application/x-ndjson", "text/csv"})
+    public ImportJobResponse importRegistrations(@QueryParam("job") Long jobId,
+                                                 @QueryParam("from") @DefaultValue("0") long from,
+                                                 @Context HttpHeaders headers,
+                                                 InputStream body) {
+        return importService.importRegistrations(jobId, from, RecordFormat.fromMediaType(headers.getMediaType()), body);
+    }
+
+    @GET
+    @Path("/import/{jobId}")
+    public ImportJobResponse getImportJob(@PathParam("jobId") Long jobId) {
+        return importService.getJob(jobId);
+    }
+
+    /**
+     * Streams the registrations in {@code state} (accepted by default) as NDJSON or CSV,
+     * following the Accept header, optionally limited to timestamps in {@code [from, to)}.
+     */
+    @GET
+    @Path("/export")
+    @Produces({"application/x-ndjson", "text/csv"})
+    public Response exportRegistrations(@QueryParam("state") @DefaultValue("ACCEPTED") RegistrationState state,
+                                        @QueryParam("from") String from,
+                                        @QueryParam("to") String to,
+                                        @Context HttpHeaders headers) {
+        RecordFormat format = RecordFormat.fromAcceptable(headers.getAcceptableMediaTypes());
+        StreamingOutput body = exportService.export(state, from, to, format);
+        String filename = "companies-" + state.name().toLowerCase() + (format == RecordFormat.CSV ? ".csv" : ".ndjson");
+        return Response.ok(body, format.getMediaType())
+                .header("Content-Disposition", "attachment; filename=\"" + filename + "\"")
                 .build();
     }
 }
@@ -1,23 +1,33 @@
 package gr.hua.resource;
 
-import gr.hua.model.entity.ArticleDocument;
+import gr.hua.model.projection.DocumentMetadata;
 import gr.hua.model.request.UpdateRequest;
+import gr.hua.model.request.UploadRequest;
 import gr.hua.model.response.ArticleDocumentResponse;
 import gr.hua.model.response.CompanyResponse;
+import gr.hua.model.response.UploadTicketResponse;
+import gr.hua.service.DirectUploadService;
+import gr.hua.service.DownloadService;
 import gr.hua.service.RegistrationService;
+import gr.hua.service.ResumableUploadService;
+import gr.hua.upload.UploadMetadata;
 import gr.hua.model.request.RegistrationRequest;
 import jakarta.annotation.security.RolesAllowed;
 import jakarta.inject.Inject;
+import jakarta.validation.Valid;
 import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.HttpHeaders;
 import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.UriInfo;
 import lombok.RequiredArgsConstructor;
 import org.eclipse.microprofile.openapi.annotations.media.Content;
 import org.eclipse.microprofile.openapi.annotations.media.Schema;
 import org.eclipse.microprofile.openapi.annotations.responses.APIResponse;
-import org.jboss.resteasy.reactive.RestForm;
-import org.jboss.resteasy.reactive.multipart.FileUpload;
 
 import java.io.InputStream;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
 import java.util.List;
 
 import static jakarta.ws.rs.core.MediaType.*;
@@ -27,9 +37,21 @@ import static jakarta.ws.rs.core.MediaType.*;
 @Path("/api/registration")
 public class RepresentativeResource {
 
+    static final String TUS_VERSION = "1.0.0";
+    static final String OFFSET_OCTET_STREAM = "application/offset+octet-stream";
+
     @Inject
     RegistrationService registrationService;
 
+    @Inject
+    DownloadService downloadService;
+
+    @Inject
+    DirectUploadService directUploadService;
+
+    @Inject
+    ResumableUploadService resumableUploadService;
+
     @GET
     @Produces(APPLICATION_JSON)
     @APIResponse(
@@ -67,8 +89,111 @@ public class RepresentativeResource {
     @Path("/files")
     @Consumes(MULTIPART_FORM_DATA)
     @Produces(APPLICATION_JSON)
-    public List<ArticleDocumentResponse> uploadFiles(@RestForm("files") List<FileUpload> files) {
-        return registrationService.uploadFiles(files);
+    public List<ArticleDocumentResponse> uploadFiles(@HeaderParam(HttpHeaders.CONTENT_TYPE) String contentType, InputStream body) {
+        return registrationService.uploadFiles(contentType, body);
+    }
+
+    @POST
+    @Path("/files/uploads")
+    @Consumes(APPLICATION_JSON)
+    @Produces(APPLICATION_JSON)
+    public List<UploadTicketResponse> initiateUploads(@Valid List<UploadRequest> uploads) {
+        return directUploadService.initiate(uploads);
+    }
+
+    @POST
+    @Path("/files/uploads/commit")
+    @Consumes(APPLICATION_JSON)
+    @Produces(APPLICATION_JSON)
+    public List<ArticleDocumentResponse> commitUploads(List<String> objectKeys) {
+        return directUploadService.commit(objectKeys);
+    }
+
+    @OPTIONS
+    @Path("/files/resumable")
+    public Response resumableUploadOptions() {
+        return Response.noContent()
+                .header("Tus-Resumable", TUS_VERSION)
+                .header("Tus-Version", TUS_VERSION)
+                .header("Tus-Extension", "creation,termination,expiration")
+                .header("Tus-Max-Size", resumableUploadService.maxFileSize())
+                .build();
+    }
+
+    @POST
+    @Path("/files/resumable")
+    public Response createResumableUpload(@HeaderParam("Tus-Resumable") String tusResumable,
+                                          @HeaderParam("Upload-Length") Long length,
+                                          @HeaderParam("Upload-Metadata") String metadata,
+                                          @Context UriInfo uriInfo) {
+        checkTusVersion(tusResumable);
+        if (length == null) {
+            throw new BadRequestException("Upload-Length is required");
+        }
+        ResumableUploadService.Status status = resumableUploadService.create(length, UploadMetadata.parse(metadata));
+        return tusResponse(Response.created(uriInfo.getAbsolutePathBuilder().path(status.token()).build()), status)
+                .build();
+    }
+
+    @HEAD
+    @Path("/files/resumable/{token}")
+    public Response resumableUploadStatus(@HeaderParam("Tus-Resumable") String tusResumable, @PathParam("token") String token) {
+        checkTusVersion(tusResumable);
+        ResumableUploadService.Status status = resumableUploadService.status(token);
+        return tusResponse(Response.ok(), status)
+                .header("Upload-Length", status.length())
+                .header("Cache-Control", "no-store")
+                .build();
+    }
+
+    @PATCH
+    @Path("/files/resumable/{token}")
+    @Consumes(OFFSET_OCTET_STREAM)
+    public Response appendResumableUpload(@HeaderParam("Tus-Resumable") String tusResumable,
+                                          @PathParam("token") String token,
+                                          @HeaderParam("Upload-Offset") Long offset,
+                                          @HeaderParam(HttpHeaders.CONTENT_LENGTH) Long contentLength,
+                                          InputStream body) {
+        checkTusVersion(tusResumable);
+        if (offset == null) {
+            throw new BadRequestException("Upload-Offset is required");
+        }
+        ResumableUploadService.Status status = resumableUploadService.append(token, offset,
+                contentLength == null ? -1 : contentLength, body);
+        return tusResponse(Response.noContent(), status).build();
+    }
+
+    @DELETE
+    @Path("/files/resumable/{token}")
+    public Response terminateResumableUpload(@HeaderParam("Tus-Resumable") String tusResumable, @PathParam("token") String token) {
+        checkTusVersion(tusResumable);
+        resumableUploadService.terminate(token);
+        return Response.noContent().header("Tus-Resumable", TUS_VERSION).build();
+    }
+
+    private static void checkTusVersion(String tusResumable) {
+        if (!TUS_VERSION.equals(tusResumable)) {
+            throw new WebApplicationException(Response.status(Response.Status.PRECONDITION_FAILED)
+                    .header("Tus-Version", TUS_VERSION)
+                    .build());
+        }
+    }
+
+    private static Response.ResponseBuilder tusResponse(Response.ResponseBuilder response, ResumableUploadService.Status status) {
+        response.header("Tus-Resumable", TUS_VERSION)
+                .header("Upload-Offset", status.offset())
+                .header("Upload-Expires", DateTimeFormatter.RFC_1123_DATE_TIME.format(status.expiresAt().atOffset(ZoneOffset.UTC)));
+        if (status.isComplete()) {
+            response.header("X-Document-Id", status.documentId());
+        }
+        return response;
+    }
+
+    @DELETE
+    @Path("/files")
+    public Response deleteFiles(@QueryParam("id") List<Long> ids) {
+        registrationService.deleteFiles(ids);
+        return Response.noContent().build();
     }
 
     @DELETE
@@ -81,11 +206,15 @@ public class RepresentativeResource {
 
     @GET
     @Path("/files/{id}")
-    public Response downloadFile(@PathParam("id") Long id) {
-        ArticleDocument doc = registrationService.getArticleDocument(id);
-        InputStream stream = registrationService.downloadFile(id);
-        return Response.ok(stream, doc.getContentType())
-                .header("Content-Disposition", "attachment; filename=\"" + doc.getOriginalFilename() + "\"")
-                .build();
+    public Response downloadFile(@PathParam("id") Long id, @Context HttpHeaders headers) {
+        DocumentMetadata doc = registrationService.getArticleDocument(id);
+        return downloadService.download(doc, headers);
+    }
+
+    @HEAD
+    @Path("/files/{id}")
+    public Response headFile(@PathParam("id") Long id, @Context HttpHeaders headers) {
+        DocumentMetadata doc = registrationService.getArticleDocument(id);
+        return downloadService.head(doc, headers);
     }
 }
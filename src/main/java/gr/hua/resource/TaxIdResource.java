@@ -0,0 +1,36 @@
+package gr.hua.resource;
+
+import gr.hua.model.response.TaxIdVerificationResponse;
+import gr.hua.service.VerificationService;
+import jakarta.annotation.security.PermitAll;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.*;
+
+import java.util.List;
+
+import static jakarta.ws.rs.core.MediaType.APPLICATION_JSON;
+
+/**
+ * Public, read-only verification of issued tax ids for partner systems.
+ */
+@PermitAll
+@Consumes(APPLICATION_JSON)
+@Produces(APPLICATION_JSON)
+@Path("/api/tax-ids")
+public class TaxIdResource {
+
+    @Inject
+    VerificationService verificationService;
+
+    @GET
+    @Path("/{taxId}")
+    public TaxIdVerificationResponse verify(@PathParam("taxId") String taxId) {
+        return verificationService.verify(taxId);
+    }
+
+    @POST
+    @Path("/verify")
+    public List<TaxIdVerificationResponse> verifyAll(List<String> taxIds) {
+        return verificationService.verifyAll(taxIds);
+    }
+}
@@ -0,0 +1,18 @@
+package gr.hua.service;
+
+import gr.hua.model.entity.KeycloakUser;
+import jakarta.enterprise.context.RequestScoped;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Principal resolved for the current request, so every service call after the
+ * first one reuses it instead of going back to the cache or the database.
+ */
+@Getter
+@Setter
+@RequestScoped
+public class CurrentUser {
+
+    private KeycloakUser user;
+}
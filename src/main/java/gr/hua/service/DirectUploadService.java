@@ -0,0 +1,196 @@
+package gr.hua.service;
+
+import gr.hua.model.entity.ArticleDocument;
+import gr.hua.model.entity.Company;
+import gr.hua.model.entity.ObjectDeletion;
+import gr.hua.model.entity.PendingUpload;
+import gr.hua.model.enums.RegistrationState;
+import gr.hua.model.mapper.CompanyMapper;
+import gr.hua.model.request.UploadRequest;
+import gr.hua.model.response.ArticleDocumentResponse;
+import gr.hua.model.response.UploadTicketResponse;
+import gr.hua.repository.ArticleDocumentRepository;
+import gr.hua.repository.CompanyRepository;
+import gr.hua.repository.ObjectDeletionRepository;
+import gr.hua.repository.PendingUploadRepository;
+import gr.hua.storage.DocumentStore;
+import gr.hua.upload.ContentTypes;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.runtime.configuration.MemorySize;
+import io.smallrye.mutiny.Uni;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
+import jakarta.validation.ValidationException;
+import jakarta.ws.rs.BadRequestException;
+import jakarta.ws.rs.ClientErrorException;
+import jakarta.ws.rs.NotFoundException;
+import jakarta.ws.rs.core.Response;
+import lombok.RequiredArgsConstructor;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Two-phase uploads that bypass this service: {@link #initiate} reserves object keys and hands out presigned
+ * PUT URLs, clients send the bytes straight to storage, and {@link #commit} copies what arrived to a key of its
+ * own and checks the copy before recording it. File sizes are limited by {@code upload.direct.max-file-size}
+ * only, not by the HTTP body limit. Only backends that presign URLs (MinIO) support this flow; with others
+ * {@link #initiate} answers 501.
+ */
+@ApplicationScoped
+@RequiredArgsConstructor
+public class DirectUploadService {
+
+    @Inject
+    CompanyRepository companyRepository;
+    @Inject
+    KeycloakService keycloakService;
+    @Inject
+    StorageService storageService;
+    @Inject
+    ArticleDocumentRepository articleDocumentRepository;
+    @Inject
+    PendingUploadRepository pendingUploadRepository;
+    @Inject
+    ObjectDeletionRepository objectDeletionRepository;
+
+    @ConfigProperty(name = "upload.direct.max-file-size", defaultValue = "100M")
+    MemorySize maxFileSize;
+
+    @ConfigProperty(name = "upload.direct.max-files", defaultValue = "20")
+    int maxFiles;
+
+    @ConfigProperty(name = "upload.direct.expiry", defaultValue = "15M")
+    Duration expiry;
+
+    private final CompanyMapper companyMapper;
+
+    @Transactional
+    public List<UploadTicketResponse> initiate(List<UploadRequest> uploads) {
+        if (uploads == null || uploads.isEmpty() || uploads.size() > maxFiles) {
+            throw new BadRequestException("Between 1 and " + maxFiles + " files can be uploaded at once");
+        }
+        for (UploadRequest upload : uploads) {
+            ContentTypes.check(upload.getContentType());
+            if (upload.getSize() > maxFileSize.asLongValue()) {
+                throw new ClientErrorException("File " + upload.getFilename() + " exceeds " + maxFileSize.asLongValue() + " bytes",
+                        Response.Status.REQUEST_ENTITY_TOO_LARGE);
+            }
+        }
+
+        Company company = companyRepository.findByRepKeycloakId(keycloakService.getSubject());
+        checkUploadAllowed(company);
+
+        List<UploadTicketResponse> tickets = new ArrayList<>();
+        for (UploadRequest upload : uploads) {
+            String objectKey = storageService.newObjectKey(upload.getFilename());
+            DocumentStore.PresignedUrl url = storageService.presignedUploadUrl(objectKey, expiry);
+            pendingUploadRepository.persist(new PendingUpload(company, objectKey, upload.getFilename(), upload.getContentType(),
+                    upload.getSize(), Timestamp.from(url.expiresAt())));
+            tickets.add(new UploadTicketResponse(objectKey, upload.getFilename(), url.url(), url.expiresAt()));
+        }
+        return tickets;
+    }
+
+    /**
+     * Records the uploaded objects as documents once every one of them is in storage with the size and content
+     * type declared at initiate. The presigned PUT stays valid after commit, so each object is first copied on
+     * the storage server to a fresh key no client can write to; the copies are checked and recorded, and the
+     * uploaded objects are queued for deletion. The copies are made concurrently before the transaction opens.
+     */
+    public List<ArticleDocumentResponse> commit(List<String> objectKeys) {
+        if (objectKeys == null || objectKeys.isEmpty()) {
+            throw new BadRequestException("No uploads to commit");
+        }
+        Set<String> requested = new LinkedHashSet<>(objectKeys);
+
+        Company company = companyRepository.findByRepKeycloakId(keycloakService.getSubject());
+        checkUploadAllowed(company);
+        List<PendingUpload> pending = pendingUploadRepository.findByCompanyIdAndObjectKeys(company.getId(), requested);
+        if (pending.size() != requested.size()) {
+            throw new NotFoundException("Upload not found");
+        }
+
+        Map<String, String> copyKeys = new HashMap<>();
+        pending.forEach(upload -> copyKeys.put(upload.getObjectKey(), storageService.newObjectKey(upload.getOriginalFilename())));
+        Map<String, DocumentStore.ObjectInfo> copied = copyAll(copyKeys);
+        try {
+            for (PendingUpload upload : pending) {
+                DocumentStore.ObjectInfo info = copied.get(upload.getObjectKey());
+                if (info == null) {
+                    throw new BadRequestException("File " + upload.getOriginalFilename() + " has not been uploaded");
+                }
+                if (info.size() != upload.getFileSize() || !upload.getContentType().equalsIgnoreCase(info.contentType())) {
+                    throw new BadRequestException("File " + upload.getOriginalFilename() + " does not match its declared size and content type");
+                }
+            }
+        } catch (BadRequestException e) {
+            // copies this fails to delete are orphans, removed by storage reconciliation
+            storageService.deleteFiles(pending.stream()
+                    .filter(upload -> copied.get(upload.getObjectKey()) != null)
+                    .map(upload -> copyKeys.get(upload.getObjectKey()))
+                    .toList());
+            throw e;
+        }
+
+        List<PendingUpload> ordered = pending.stream().sorted(Comparator.comparing(PendingUpload::getId)).toList();
+        return QuarkusTransaction.requiringNew().call(() -> record(ordered, copyKeys));
+    }
+
+    private static void checkUploadAllowed(Company company) {
+        if (company == null) {
+            throw new NotFoundException("No registration found. Create a registration first.");
+        }
+
+        if (company.getState() == RegistrationState.ACCEPTED) {
+            throw new ValidationException("Cannot modify an accepted registration");
+        }
+    }
+
+    /** Copies each uploaded object to its new key; the result maps uploaded keys to the copies' info. */
+    private Map<String, DocumentStore.ObjectInfo> copyAll(Map<String, String> copyKeys) {
+        List<String> keys = List.copyOf(copyKeys.keySet());
+        List<Optional<DocumentStore.ObjectInfo>> stats = Uni.join()
+                .all(keys.stream().map(key -> storageService.copyFileAsync(key, copyKeys.get(key)).map(Optional::ofNullable)).toList())
+                .andFailFast()
+                .await().indefinitely();
+        Map<String, DocumentStore.ObjectInfo> result = new HashMap<>();
+        for (int i = 0; i < keys.size(); i++) {
+            result.put(keys.get(i), stats.get(i).orElse(null));
+        }
+        return result;
+    }
+
+    private List<ArticleDocumentResponse> record(List<PendingUpload> pending, Map<String, String> copyKeys) {
+        // Re-checked under the row lock: the registration may have been accepted since the files were uploaded
+        Company company = companyRepository.findByRepKeycloakIdForUpdate(keycloakService.getSubject());
+        checkUploadAllowed(company);
+
+        Set<Long> ids = new HashSet<>();
+        pending.forEach(upload -> ids.add(upload.getId()));
+        if (pendingUploadRepository.deleteByIds(ids) != ids.size()) {
+            throw new ClientErrorException("Uploads already committed", Response.Status.CONFLICT);
+        }
+
+        List<ArticleDocumentResponse> responses = new ArrayList<>();
+        for (PendingUpload upload : pending) {
+            ArticleDocument doc = new ArticleDocument(company, copyKeys.get(upload.getObjectKey()), upload.getOriginalFilename(),
+                    upload.getContentType(), upload.getFileSize());
+            articleDocumentRepository.persist(doc);
+            objectDeletionRepository.persist(new ObjectDeletion(upload.getObjectKey()));
+            responses.add(companyMapper.toArticleDocumentResponse(doc));
+        }
+        return responses;
+    }
+}
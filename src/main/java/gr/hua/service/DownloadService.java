@@ -0,0 +1,223 @@
+package gr.hua.service;
+
+import gr.hua.cache.DocumentFileCache;
+import gr.hua.model.enums.DownloadMode;
+import gr.hua.model.projection.DocumentMetadata;
+import gr.hua.model.response.DownloadUrlResponse;
+import gr.hua.storage.DocumentStore;
+import io.quarkus.cache.Cache;
+import io.quarkus.cache.CacheName;
+import io.smallrye.mutiny.Multi;
+import io.vertx.core.buffer.Buffer;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.core.GenericEntity;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.resteasy.reactive.PathPart;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Builds document download responses: full and single-range GETs, HEAD, and conditional GETs. Object keys
+ * start with a random UUID and objects are never overwritten, so the key identifies the content. It serves as
+ * a strong ETag, and responses may be cached indefinitely by the (authenticated) client.
+ * <p>
+ * In {@code presigned} mode a GET hands out a short-lived presigned URL instead of the bytes: a 307 redirect,
+ * or a JSON body for clients that accept {@code application/json}. HEAD and 304s are still answered here.
+ * Backends that cannot presign fall back to {@code proxy} mode. In {@code proxy} mode, objects the backend
+ * keeps as local files, or that {@link DocumentFileCache} holds, are sent from disk with {@code sendfile};
+ * others are streamed from storage as a {@code Multi<Buffer>}, written by
+ * {@link gr.hua.resource.BufferStreamWriter} at the pace the client reads.
+ */
+@ApplicationScoped
+public class DownloadService {
+
+    static final String CACHE_CONTROL = "private, max-age=31536000, immutable";
+
+    static final String PRESIGNED_URL_CACHE = "presigned-urls";
+
+    @Inject
+    StorageService storageService;
+
+    @Inject
+    DocumentFileCache documentFileCache;
+
+    @ConfigProperty(name = "download.mode", defaultValue = "proxy")
+    DownloadMode mode;
+
+    @ConfigProperty(name = "download.presigned.expiry", defaultValue = "15M")
+    Duration presignedExpiry;
+
+    // keyed by document id: the URL signs the filename and content type too, and deduplicated documents of
+    // different companies share an object key. Expire-after-write is below the URL expiry, so a cached URL
+    // always has time left
+    @CacheName(PRESIGNED_URL_CACHE)
+    Cache presignedUrls;
+
+    public Response download(DocumentMetadata doc, HttpHeaders headers) {
+        return respond(doc, headers, false);
+    }
+
+    public Response head(DocumentMetadata doc, HttpHeaders headers) {
+        return respond(doc, headers, true);
+    }
+
+    private record ByteRange(long start, long end) {
+
+        long length() {
+            return end - start + 1;
+        }
+    }
+
+    private Response respond(DocumentMetadata doc, HttpHeaders headers, boolean headOnly) {
+        String etag = etag(doc);
+        if (matches(headers.getHeaderString(HttpHeaders.IF_NONE_MATCH), etag)) {
+            return Response.notModified()
+                    .header(HttpHeaders.ETAG, etag)
+                    .header(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL)
+                    .build();
+        }
+
+        if (!headOnly && mode == DownloadMode.PRESIGNED) {
+            // empty for backends that cannot presign, which fall back to proxy mode
+            Optional<DocumentStore.PresignedUrl> presigned = presignedUrls
+                    .get(doc.id(), id -> storageService.presignedDownloadUrl(doc.objectKey(), doc.filename(), doc.contentType(), presignedExpiry))
+                    .await().indefinitely();
+            if (presigned.isPresent()) {
+                return presigned(presigned.get(), headers);
+            }
+        }
+
+        long size = doc.fileSize() != null ? doc.fileSize() : storageService.fileSize(doc.objectKey());
+        ByteRange range = null;
+        String ifRange = headers.getHeaderString("If-Range");
+        if (ifRange == null || ifRange.trim().equals(etag)) {
+            String rangeHeader = headers.getHeaderString("Range");
+            if (rangeHeader != null && !satisfiable(rangeHeader, size)) {
+                return Response.status(Response.Status.REQUESTED_RANGE_NOT_SATISFIABLE)
+                        .header("Content-Range", "bytes */" + size)
+                        .header(HttpHeaders.ETAG, etag)
+                        .build();
+            }
+            range = parseRange(rangeHeader, size);
+        }
+
+        Response.ResponseBuilder response = (range == null ? Response.ok() : Response.status(Response.Status.PARTIAL_CONTENT))
+                .type(doc.contentType())
+                .header("Content-Disposition", "attachment; filename=\"" + doc.filename() + "\"")
+                .header("Accept-Ranges", "bytes")
+                .header(HttpHeaders.ETAG, etag)
+                .header(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL)
+                .header(HttpHeaders.CONTENT_LENGTH, range == null ? size : range.length());
+        if (range != null) {
+            response.header("Content-Range", "bytes " + range.start() + "-" + range.end() + "/" + size);
+        }
+        if (!headOnly) {
+            Path cached = storageService.localPath(doc.objectKey())
+                    .orElseGet(() -> documentFileCache.get(doc.objectKey(), size));
+            if (cached != null) {
+                response.entity(range == null ? new PathPart(cached, 0, size) : new PathPart(cached, range.start(), range.length()));
+            } else {
+                Multi<Buffer> content = range == null
+                        ? storageService.streamFile(doc.objectKey(), 0, -1)
+                        : storageService.streamFile(doc.objectKey(), range.start(), range.length());
+                response.entity(new GenericEntity<Multi<Buffer>>(content) {
+                });
+            }
+        }
+        return response.build();
+    }
+
+    private static Response presigned(DocumentStore.PresignedUrl presigned, HttpHeaders headers) {
+        Response.ResponseBuilder response = headers.getAcceptableMediaTypes().stream().anyMatch(DownloadService::isJson)
+                ? Response.ok(new DownloadUrlResponse(presigned.url(), presigned.expiresAt()), MediaType.APPLICATION_JSON_TYPE)
+                : Response.temporaryRedirect(URI.create(presigned.url()));
+        return response
+                .header(HttpHeaders.CACHE_CONTROL, "no-store")
+                .build();
+    }
+
+    // parameters such as charset are ignored; wildcards do not count, so browsers get the redirect
+    private static boolean isJson(MediaType type) {
+        return "application".equalsIgnoreCase(type.getType()) && "json".equalsIgnoreCase(type.getSubtype());
+    }
+
+    static String etag(DocumentMetadata doc) {
+        int slash = doc.objectKey().indexOf('/');
+        return "\"" + (slash > 0 ? doc.objectKey().substring(0, slash) : "doc-" + doc.id()) + "\"";
+    }
+
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Only a valid single range that starts past the end of the object is unsatisfiable; anything this
+     * service does not parse is ignored and served in full, as RFC 9110 allows.
+     */
+    private static boolean satisfiable(String header, long size) {
+        long[] bounds = bounds(header);
+        if (bounds == null) {
+            return true;
+        }
+        return bounds[0] < 0 ? bounds[1] > 0 && size > 0 : bounds[0] < size;
+    }
+
+    private static ByteRange parseRange(String header, long size) {
+        long[] bounds = bounds(header);
+        if (bounds == null) {
+            return null;
+        }
+        if (bounds[0] < 0) {
+            // suffix range: the last n bytes
+            return new ByteRange(Math.max(0, size - bounds[1]), size - 1);
+        }
+        long end = bounds[1] < 0 ? size - 1 : Math.min(bounds[1], size - 1);
+        return new ByteRange(bounds[0], end);
+    }
+
+    /**
+     * Parses {@code bytes=a-b}, {@code bytes=a-} and {@code bytes=-n} into {a, b}, {a, -1} and {-1, n}. Returns
+     * null for anything else, including multiple ranges.
+     */
+    private static long[] bounds(String header) {
+        if (header == null || !header.startsWith("bytes=") || header.indexOf(',') >= 0) {
+            return null;
+        }
+        String spec = header.substring("bytes=".length()).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return null;
+        }
+        try {
+            String first = spec.substring(0, dash).trim();
+            String last = spec.substring(dash + 1).trim();
+            if (first.isEmpty()) {
+                return last.isEmpty() ? null : new long[]{-1, Long.parseLong(last)};
+            }
+            long start = Long.parseLong(first);
+            long end = last.isEmpty() ? -1 : Long.parseLong(last);
+            return start < 0 || (end >= 0 && end < start) ? null : new long[]{start, end};
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package gr.hua.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import gr.hua.model.enums.RecordFormat;
+import gr.hua.model.enums.RegistrationState;
+import gr.hua.model.projection.CompanyExport;
+import gr.hua.repository.CompanyRepository;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.BadRequestException;
+import jakarta.ws.rs.core.StreamingOutput;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Streams registrations straight from a database cursor to the response body, for the
+ * nightly dump to downstream tax systems.
+ */
+@ApplicationScoped
+public class ExportService {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final CsvMapper CSV_MAPPER = CsvMapper.builder()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+
+    @Inject
+    CompanyRepository companyRepository;
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @ConfigProperty(name = "export.fetch-size", defaultValue = "1000")
+    int fetchSize;
+
+    @ConfigProperty(name = "export.transaction-timeout", defaultValue = "3600")
+    int transactionTimeout;
+
+    /**
+     * Body that writes every company in {@code state} whose timestamp lies in {@code [from, to)}.
+     * Either bound may be null; both are ISO-8601 instants and are checked before anything is
+     * written.
+     */
+    public StreamingOutput export(RegistrationState state, String from, String to, RecordFormat format) {
+        Timestamp fromTimestamp = parseInstant("from", from);
+        Timestamp toTimestamp = parseInstant("to", to);
+        return output -> write(state, fromTimestamp, toTimestamp, format, output);
+    }
+
+    private void write(RegistrationState state, Timestamp fromTimestamp, Timestamp toTimestamp, RecordFormat format, OutputStream output) {
+        QuarkusTransaction.requiringNew().timeout(transactionTimeout).run(() -> {
+            try (Stream<CompanyExport> rows = companyRepository.streamForExport(state, fromTimestamp, toTimestamp, fetchSize)) {
+                BufferedOutputStream buffered = new BufferedOutputStream(output, BUFFER_SIZE);
+                if (format == RecordFormat.CSV) {
+                    writeCsv(rows.iterator(), buffered);
+                } else {
+                    writeNdjson(rows.iterator(), buffered);
+                }
+                buffered.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private void writeNdjson(Iterator<CompanyExport> rows, OutputStream output) throws IOException {
+        ObjectWriter writer = objectMapper.writerFor(CompanyExport.class);
+        while (rows.hasNext()) {
+            output.write(writer.writeValueAsBytes(rows.next()));
+            output.write('\n');
+        }
+    }
+
+    private static void writeCsv(Iterator<CompanyExport> rows, OutputStream output) throws IOException {
+        ObjectWriter writer = CSV_MAPPER.writer(CSV_MAPPER.schemaFor(CompanyExport.class).withHeader())
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        try (SequenceWriter sequence = writer.writeValues(output)) {
+            while (rows.hasNext()) {
+                sequence.write(rows.next());
+            }
+        }
+    }
+
+    private static Timestamp parseInstant(String name, String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return Timestamp.from(Instant.parse(value));
+        } catch (DateTimeParseException e) {
+            throw new BadRequestException(name + " must be an ISO-8601 instant");
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package gr.hua.service;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.RuntimeJsonMappingException;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import gr.hua.cache.CacheRegion;
+import gr.hua.cache.InvalidationBus;
+import gr.hua.model.entity.ImportJob;
+import gr.hua.model.enums.RecordFormat;
+import gr.hua.model.enums.RegistrationState;
+import gr.hua.model.mapper.CompanyMapper;
+import gr.hua.model.request.LegacyRegistration;
+import gr.hua.model.request.RegistrationRequest;
+import gr.hua.model.response.ImportJobResponse;
+import gr.hua.repository.CompanyRepository;
+import gr.hua.repository.ImportJobRepository;
+import io.quarkus.logging.Log;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import jakarta.ws.rs.BadRequestException;
+import jakarta.ws.rs.ClientErrorException;
+import jakarta.ws.rs.NotFoundException;
+import jakarta.ws.rs.core.Response;
+import lombok.RequiredArgsConstructor;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.Timestamp;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static java.util.stream.Collectors.joining;
+
+/**
+ * Bulk import of legacy registrations. Input is read one record at a time and loaded in
+ * chunks, each committed together with the job's checkpoint, so memory stays bounded by the
+ * chunk size and a failed or interrupted import can be resumed where it stopped.
+ * <p>
+ * Records are numbered from 0 across the whole import. A request may send the full input
+ * again ({@code from = 0}) or only the remainder ({@code from = committedRecords}); records
+ * below the checkpoint are skipped either way.
+ */
+@ApplicationScoped
+@RequiredArgsConstructor
+public class ImportService {
+
+    private static final int MAX_REPORTED_ERRORS = 100;
+    // Company columns are varchar(255), legacy (non nine-digit) tax ids varchar(36)
+    private static final int MAX_COLUMN_LENGTH = 255;
+    private static final int MAX_TAX_ID_LENGTH = 36;
+
+    private static final CsvMapper CSV_MAPPER = CsvMapper.builder()
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .build();
+
+    @Inject
+    ImportJobRepository importJobRepository;
+
+    @Inject
+    CompanyRepository companyRepository;
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @Inject
+    Validator validator;
+
+    @Inject
+    InvalidationBus invalidationBus;
+
+    @ConfigProperty(name = "import.chunk-size", defaultValue = "5000")
+    int chunkSize;
+
+    private final CompanyMapper companyMapper;
+
+    public ImportJobResponse getJob(Long jobId) {
+        ImportJob job = importJobRepository.findByIdOptional(jobId)
+                .orElseThrow(() -> new NotFoundException("Import job not found"));
+        return companyMapper.toImportJobResponse(job);
+    }
+
+    /**
+     * Imports {@code input} into a new job, or continues {@code jobId} when given.
+     *
+     * @param from record number of the first record in {@code input}
+     */
+    public ImportJobResponse importRegistrations(Long jobId, long from, RecordFormat format, InputStream input) {
+        if (from < 0) {
+            throw new BadRequestException("from must not be negative");
+        }
+        ImportJob job = jobId == null
+                ? QuarkusTransaction.requiringNew().call(() -> {
+                    ImportJob created = new ImportJob(format);
+                    importJobRepository.persist(created);
+                    return created;
+                })
+                : QuarkusTransaction.requiringNew().call(() -> importJobRepository.findByIdOptional(jobId))
+                        .orElseThrow(() -> new NotFoundException("Import job not found"));
+        if (from > job.getCommittedRecords()) {
+            throw new ClientErrorException("Import job " + job.getId() + " has committed "
+                    + job.getCommittedRecords() + " records, resume from there", Response.Status.CONFLICT);
+        }
+
+        List<String> errors = new ArrayList<>();
+        List<LegacyRegistration> chunk = new ArrayList<>(chunkSize);
+        long chunkStart = job.getCommittedRecords();
+        long rejected = 0;
+        long record = from;
+        try (MappingIterator<LegacyRegistration> records = reader(format).readValues(input)) {
+            while (records.hasNextValue()) {
+                LegacyRegistration row = records.nextValue();
+                long index = record++;
+                if (index < chunkStart) {
+                    continue;
+                }
+                String error = validate(row);
+                if (error == null) {
+                    chunk.add(row);
+                } else {
+                    rejected++;
+                    if (errors.size() < MAX_REPORTED_ERRORS) {
+                        errors.add("record " + index + ": " + error);
+                    }
+                }
+                if (record - chunkStart == chunkSize) {
+                    commitChunk(job.getId(), chunkStart, record, chunk, rejected);
+                    chunkStart = record;
+                    chunk.clear();
+                    rejected = 0;
+                }
+            }
+        } catch (IOException | RuntimeJsonMappingException e) {
+            throw new BadRequestException("Malformed record " + record + " in import job " + job.getId()
+                    + ", " + chunkStart + " records committed");
+        }
+        if (record > chunkStart) {
+            commitChunk(job.getId(), chunkStart, record, chunk, rejected);
+        }
+
+        // a fresh transaction, so the counters are read back from the committed row
+        ImportJobResponse response = QuarkusTransaction.requiringNew().call(() -> getJob(job.getId()));
+        response.setErrors(errors);
+        return response;
+    }
+
+    private void commitChunk(Long jobId, long start, long end, List<LegacyRegistration> rows, long rejected) {
+        QuarkusTransaction.requiringNew().run(() -> {
+            ImportJob job = importJobRepository.findByIdForUpdate(jobId);
+            if (job.getCommittedRecords() != start) {
+                throw new ClientErrorException("Import job " + jobId + " was advanced by another request",
+                        Response.Status.CONFLICT);
+            }
+            long imported = 0;
+            if (!rows.isEmpty()) {
+                CompanyRepository.BulkImportResult result = companyRepository.bulkImport(rows, start);
+                imported = result.inserted();
+                // accepted registrations carry issued tax ids other caches need to learn about
+                invalidationBus.publish(CacheRegion.COMPANY, result.acceptedIds().stream().map(String::valueOf).toList());
+            }
+            job.setCommittedRecords(end);
+            job.setImported(job.getImported() + imported);
+            job.setSkipped(job.getSkipped() + rows.size() - imported);
+            job.setRejected(job.getRejected() + rejected);
+            job.setUpdatedAt(new Timestamp(System.currentTimeMillis()));
+            Log.infof("Import job %d: %d records committed, %d imported, %d skipped, %d rejected",
+                    jobId, end, job.getImported(), job.getSkipped(), job.getRejected());
+        });
+    }
+
+    private ObjectReader reader(RecordFormat format) {
+        if (format == RecordFormat.CSV) {
+            return CSV_MAPPER.readerFor(LegacyRegistration.class).with(CsvSchema.emptySchema().withHeader());
+        }
+        return objectMapper.readerFor(LegacyRegistration.class);
+    }
+
+    private String validate(LegacyRegistration row) {
+        if (row.getKeycloakId() == null || row.getKeycloakId().isBlank()) {
+            return "keycloakId must not be blank";
+        }
+        Set<ConstraintViolation<RegistrationRequest>> violations = validator.validate(row.toRegistrationRequest());
+        if (!violations.isEmpty()) {
+            return violations.stream()
+                    .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+                    .sorted()
+                    .collect(joining(", "));
+        }
+        boolean tooLong = Stream.of(row.getKeycloakId(), row.getUsername(), row.getGoal(), row.getHq(), row.getExecutives())
+                .anyMatch(value -> value != null && value.length() > MAX_COLUMN_LENGTH);
+        if (tooLong) {
+            return "values must not exceed " + MAX_COLUMN_LENGTH + " characters";
+        }
+        if (row.getTaxId() != null && row.getTaxId().length() > MAX_TAX_ID_LENGTH) {
+            return "taxId must not exceed " + MAX_TAX_ID_LENGTH + " characters";
+        }
+        RegistrationState state;
+        try {
+            state = row.registrationState();
+            row.registeredAt();
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            return "invalid state or timestamp";
+        }
+        if (state == RegistrationState.ACCEPTED && (row.getTaxId() == null || row.getTaxId().isBlank())) {
+            return "taxId is required for accepted registrations";
+        }
+        return null;
+    }
+}
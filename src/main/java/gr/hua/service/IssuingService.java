@@ -1,23 +1,41 @@
 package gr.hua.service;
 
+import gr.hua.cache.CacheRegion;
+import gr.hua.cache.DocumentFileCache;
+import gr.hua.cache.InvalidationBus;
 import gr.hua.model.entity.Company;
 import gr.hua.model.enums.RegistrationDecision;
 import gr.hua.model.enums.RegistrationState;
 import gr.hua.model.mapper.CompanyMapper;
+import gr.hua.model.projection.ArticleDocumentSummary;
+import gr.hua.model.projection.CompanySummary;
+import gr.hua.model.request.PageCursor;
 import gr.hua.model.request.ProcessRequest;
+import gr.hua.model.response.ArticleDocumentResponse;
 import gr.hua.model.response.CompanyResponse;
+import gr.hua.model.response.PageResponse;
+import gr.hua.repository.ArticleDocumentRepository;
 import gr.hua.repository.CompanyRepository;
+import gr.hua.taxid.TaxIdGenerator;
 import io.quarkus.logging.Log;
+import io.quarkus.narayana.jta.QuarkusTransaction;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
-import jakarta.transaction.Transactional;
+import jakarta.persistence.PersistenceException;
 import jakarta.validation.ValidationException;
 import jakarta.ws.rs.NotAcceptableException;
 import lombok.RequiredArgsConstructor;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.hibernate.exception.ConstraintViolationException;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
-import java.util.UUID;
+
+import static java.util.stream.Collectors.groupingBy;
+import static java.util.stream.Collectors.mapping;
+import static java.util.stream.Collectors.toList;
 
 @ApplicationScoped
 @RequiredArgsConstructor
@@ -26,15 +44,92 @@ public class IssuingService {
     @Inject
     private CompanyRepository companyRepository;
 
+    @Inject
+    ArticleDocumentRepository articleDocumentRepository;
+
+    @Inject
+    InvalidationBus invalidationBus;
+
+    @Inject
+    TaxIdGenerator taxIdGenerator;
+
+    @Inject
+    DocumentFileCache documentFileCache;
+
+    @ConfigProperty(name = "processing.page.default-size", defaultValue = "50")
+    int defaultPageSize;
+
+    @ConfigProperty(name = "processing.page.max-size", defaultValue = "200")
+    int maxPageSize;
+
+    private static final String TAX_NUMBER_CONSTRAINT = "uk_company_taxnumber";
+    private static final int MAX_TAX_ID_ATTEMPTS = 10;
+
     private final CompanyMapper companyMapper;
 
-    public List<CompanyResponse> getAllPending(){
-        List<Company> companies = companyRepository.findbyState(RegistrationState.PENDING);
-        return companyMapper.toCompanyResponseList(companies);
+    public PageResponse<CompanyResponse> getPending(String cursor, Integer limit) {
+        int pageSize = limit == null ? defaultPageSize : Math.min(Math.max(limit, 1), maxPageSize);
+        PageCursor after = cursor == null || cursor.isBlank() ? null : PageCursor.decode(cursor);
+
+        // one extra row tells us whether another page exists without a count query
+        List<CompanySummary> companies = companyRepository.findSummaryPageByState(RegistrationState.PENDING, after, pageSize + 1);
+        String nextCursor = null;
+        if (companies.size() > pageSize) {
+            companies = companies.subList(0, pageSize);
+            CompanySummary last = companies.get(pageSize - 1);
+            nextCursor = new PageCursor(last.timestamp(), last.id()).encode();
+        }
+        if (companies.isEmpty()) {
+            return new PageResponse<>(List.of(), null);
+        }
+
+        // documents for the whole page in one query instead of one lazy load per company
+        List<Long> companyIds = companies.stream().map(CompanySummary::id).toList();
+        List<ArticleDocumentSummary> summaries = articleDocumentRepository.findSummariesByCompanyIds(companyIds);
+        Map<Long, List<ArticleDocumentResponse>> documents = summaries.stream()
+                .collect(groupingBy(ArticleDocumentSummary::companyId,
+                        mapping(companyMapper::toArticleDocumentResponse, toList())));
+
+        // reviewers open these next, so have them on local disk by then
+        Map<String, Long> objectSizes = new HashMap<>();
+        summaries.forEach(document -> objectSizes.put(document.objectKey(), document.fileSize()));
+        documentFileCache.prefetch(objectSizes);
+
+        List<CompanyResponse> items = companies.stream()
+                .map(company -> companyMapper.toCompanyResponse(company, documents.getOrDefault(company.id(), List.of())))
+                .toList();
+        return new PageResponse<>(items, nextCursor);
     }
 
-    @Transactional
-    public void processPending(ProcessRequest processRequest){
+    /**
+     * Accepts or denies a pending registration. An accepted one gets the generator's next tax id; if a company
+     * already holds it (an import can bring in ids from a block this node reserved earlier), the attempt is
+     * rolled back and repeated with the next id.
+     */
+    public void processPending(ProcessRequest processRequest) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                QuarkusTransaction.requiringNew().run(() -> process(processRequest));
+                return;
+            } catch (PersistenceException e) {
+                if (!isTaxIdConflict(e) || attempt == MAX_TAX_ID_ATTEMPTS) {
+                    throw e;
+                }
+                Log.warnf("Tax id issued for company ID %d is already held; taking the next one", processRequest.getCompanyId());
+            }
+        }
+    }
+
+    private static boolean isTaxIdConflict(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException violation) {
+                return TAX_NUMBER_CONSTRAINT.equalsIgnoreCase(violation.getConstraintName());
+            }
+        }
+        return false;
+    }
+
+    private void process(ProcessRequest processRequest) {
         Company company = companyRepository.findByIdOptional(processRequest.getCompanyId())
                 .orElseThrow(()->new NoSuchElementException("Company not found")
                 );
@@ -44,7 +139,7 @@ public class IssuingService {
             throw new NoSuchElementException("Company has been processed");
         }
         if(decision == RegistrationDecision.ACCEPT){
-            company.setTaxId(generateTaxId());
+            company.setTaxId(taxIdGenerator.next());
             company.setState(RegistrationState.ACCEPTED);
         } else if(decision == RegistrationDecision.DENY) {
             company.setState(RegistrationState.DENIED);
@@ -52,9 +147,8 @@ public class IssuingService {
             throw new NotAcceptableException("not acceptable decision value"+decision);
         }
         companyRepository.persist(company);
-    }
-
-    private String generateTaxId() {
-        return UUID.randomUUID().toString();
+        // surfaces a duplicate tax id here rather than at commit, where it could not be told apart
+        companyRepository.flush();
+        invalidationBus.publish(CacheRegion.COMPANY, company.getId());
     }
 }
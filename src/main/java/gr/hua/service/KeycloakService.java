@@ -2,39 +2,54 @@ package gr.hua.service;
 
 import gr.hua.model.entity.KeycloakUser;
 import gr.hua.repository.KeycloakUserRepository;
+import io.quarkus.cache.Cache;
+import io.quarkus.cache.CacheName;
+import io.quarkus.narayana.jta.QuarkusTransaction;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
-import jakarta.transaction.Transactional;
 import org.eclipse.microprofile.jwt.JsonWebToken;
 
 @ApplicationScoped
 public class KeycloakService {
 
+    public static final String USER_CACHE = "keycloak-users";
+
     @Inject
     KeycloakUserRepository keycloakUserRepository;
 
     @Inject
     JsonWebToken jwt;  // Access token (not @IdToken - that's only for authorization code flow)
 
-    @Transactional
+    @Inject
+    CurrentUser currentUser;
+
+    // Rows are never changed after provisioning, so entries need no cross-node invalidation
+    @CacheName(USER_CACHE)
+    Cache userCache;
+
     public KeycloakUser getUser() {
+        KeycloakUser user = currentUser.getUser();
+        if (user != null) {
+            return user;
+        }
+
         String keycloakId = jwt.getSubject();
         String username = jwt.getName();
 
-        KeycloakUser user = keycloakUserRepository.findByKeycloakId(keycloakId).firstResult();
-
-        if (user == null) {
-            user = createKeycloakUser(keycloakId,username);
-        }
+        user = userCache.get(keycloakId, id -> loadUser(id, username)).await().indefinitely();
+        currentUser.setUser(user);
         return user;
     }
 
-    private KeycloakUser createKeycloakUser(String keycloakId, String username) {
-        KeycloakUser user = new KeycloakUser();
-        user.setKeycloakId(keycloakId);
-        user.setUsername(username);
-        keycloakUserRepository.persist(user);
-        return user;
+    public String getSubject() {
+        return jwt.getSubject();
     }
 
+    private KeycloakUser loadUser(String keycloakId, String username) {
+        // committed on its own: a caller's rollback must not leave the cache holding a row that never existed
+        KeycloakUser user = QuarkusTransaction.requiringNew()
+                .call(() -> keycloakUserRepository.provision(keycloakId, username));
+        // cache a plain copy, never an instance tied to a persistence context
+        return new KeycloakUser(user.getId(), user.getKeycloakId(), user.getUsername());
+    }
 }
@@ -0,0 +1,95 @@
+package gr.hua.service;
+
+import gr.hua.cache.DocumentFileCache;
+import gr.hua.model.entity.ObjectDeletion;
+import gr.hua.repository.ObjectDeletionRepository;
+import io.quarkus.logging.Log;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.scheduler.Scheduled;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Drains the ObjectDeletion outbox: objects of deleted documents are removed from storage in batches, off the
+ * request path. A batch whose request fails stays queued and is retried on the next run. An object that fails
+ * {@code object-deletion.max-attempts} times on its own is logged and parked so it stops taking a slot in
+ * every batch.
+ */
+@ApplicationScoped
+public class ObjectDeletionWorker {
+
+    @Inject
+    ObjectDeletionRepository objectDeletionRepository;
+
+    @Inject
+    StorageService storageService;
+
+    @Inject
+    DocumentFileCache documentFileCache;
+
+    @ConfigProperty(name = "object-deletion.batch-size", defaultValue = "1000")
+    int batchSize;
+
+    @ConfigProperty(name = "object-deletion.max-attempts", defaultValue = "10")
+    int maxAttempts;
+
+    @Scheduled(every = "${object-deletion.interval:10s}", concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    void scheduledDrain() {
+        try {
+            drain();
+        } catch (RuntimeException e) {
+            Log.warn("Object deletion batch failed; will retry", e);
+        }
+    }
+
+    /**
+     * Processes full batches until the outbox is empty or a batch leaves failures behind. Returns the number
+     * of objects removed.
+     */
+    public int drain() {
+        int removed = 0;
+        while (true) {
+            int batchRemoved = QuarkusTransaction.requiringNew().call(this::drainBatch);
+            removed += batchRemoved;
+            if (batchRemoved < batchSize) {
+                return removed;
+            }
+        }
+    }
+
+    private int drainBatch() {
+        List<ObjectDeletion> batch = objectDeletionRepository.lockBatch(batchSize, maxAttempts);
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        List<String> keys = batch.stream().map(ObjectDeletion::getObjectKey).toList();
+        // only this node's copy; other nodes' copies are unreachable once the rows are gone and age out
+        documentFileCache.evict(keys);
+        Set<String> failedKeys = storageService.deleteFiles(keys);
+        List<Long> done = new ArrayList<>();
+        List<Long> failed = new ArrayList<>();
+        for (ObjectDeletion deletion : batch) {
+            if (!failedKeys.contains(deletion.getObjectKey())) {
+                done.add(deletion.getId());
+                continue;
+            }
+            failed.add(deletion.getId());
+            if (deletion.getAttempts() + 1 >= maxAttempts) {
+                Log.errorf("Parking deletion of %s after %d failed attempts", deletion.getObjectKey(), deletion.getAttempts() + 1);
+            }
+        }
+        if (!done.isEmpty()) {
+            objectDeletionRepository.deleteByIds(done);
+        }
+        if (!failed.isEmpty()) {
+            objectDeletionRepository.recordFailedAttempt(failed);
+        }
+        return done.size();
+    }
+}
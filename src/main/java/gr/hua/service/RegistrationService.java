@@ -1,34 +1,67 @@
 package gr.hua.service;
 
+import gr.hua.cache.CacheRegion;
+import gr.hua.cache.DocumentMetadataCache;
+import gr.hua.cache.InvalidationBus;
 import gr.hua.model.entity.ArticleDocument;
 import gr.hua.model.entity.Company;
 import gr.hua.model.entity.KeycloakUser;
 import gr.hua.model.enums.RegistrationState;
 import gr.hua.model.mapper.CompanyMapper;
+import gr.hua.model.projection.DocumentMetadata;
 import gr.hua.model.request.RegistrationRequest;
 import gr.hua.model.request.UpdateRequest;
 import gr.hua.model.response.ArticleDocumentResponse;
 import gr.hua.model.response.CompanyResponse;
 import gr.hua.repository.ArticleDocumentRepository;
 import gr.hua.repository.CompanyRepository;
+import gr.hua.repository.StoredBlobRepository;
+import gr.hua.repository.UploadSessionRepository;
+import gr.hua.upload.MultipartReader;
+import gr.hua.upload.SizeLimitedInputStream;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import jakarta.transaction.Transactional;
 import jakarta.validation.ValidationException;
+import jakarta.ws.rs.BadRequestException;
+import jakarta.ws.rs.ClientErrorException;
 import jakarta.ws.rs.ForbiddenException;
 import jakarta.ws.rs.NotFoundException;
+import jakarta.ws.rs.WebApplicationException;
+import jakarta.ws.rs.core.Response;
+import io.quarkus.logging.Log;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.smallrye.mutiny.Uni;
+import io.quarkus.runtime.configuration.MemorySize;
 import lombok.RequiredArgsConstructor;
-import org.jboss.resteasy.reactive.multipart.FileUpload;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.io.InputStream;
-import java.nio.file.Files;
+import java.io.SequenceInputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.HexFormat;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
 
 @ApplicationScoped
 @RequiredArgsConstructor
 public class RegistrationService {
 
+    static final String FILES_FIELD = "files";
+    private static final int SHARE_ATTEMPTS = 3;
+
     @Inject
     CompanyRepository companyRepository;
     @Inject
@@ -37,12 +70,28 @@ public class RegistrationService {
     StorageService storageService;
     @Inject
     ArticleDocumentRepository articleDocumentRepository;
+    @Inject
+    DocumentMetadataCache documentMetadataCache;
+    @Inject
+    InvalidationBus invalidationBus;
+    @Inject
+    StoredBlobRepository storedBlobRepository;
+    @Inject
+    UploadSessionRepository uploadSessionRepository;
+
+    @ConfigProperty(name = "upload.max-file-size", defaultValue = "10M")
+    MemorySize maxFileSize;
+
+    @ConfigProperty(name = "upload.in-memory-threshold", defaultValue = "5M")
+    MemorySize inMemoryThreshold;
+
+    @ConfigProperty(name = "upload.parallelism", defaultValue = "4")
+    int uploadParallelism;
 
     private final CompanyMapper companyMapper;
 
     public CompanyResponse getRegistrationByRep() {
-        KeycloakUser user = keycloakService.getUser();
-        Company company = companyRepository.findByRepId(user.getId());
+        Company company = companyRepository.findByRepKeycloakId(keycloakService.getSubject());
 
         if (company == null) {
             return null;
@@ -53,8 +102,7 @@ public class RegistrationService {
 
     @Transactional
     public void updateRegistration(UpdateRequest updateRequest) {
-        KeycloakUser user = keycloakService.getUser();
-        Company company = companyRepository.findByRepId(user.getId());
+        Company company = companyRepository.findByRepKeycloakId(keycloakService.getSubject());
 
         if (company == null) {
             throw new NotFoundException("No registration found");
@@ -75,6 +123,7 @@ public class RegistrationService {
         }
 
         companyRepository.persist(company);
+        invalidationBus.publish(CacheRegion.COMPANY, company.getId());
     }
 
     @Transactional
@@ -93,8 +142,7 @@ public class RegistrationService {
 
     @Transactional
     public void deleteRegistration() {
-        KeycloakUser user = keycloakService.getUser();
-        Company company = companyRepository.findByRepId(user.getId());
+        Company company = companyRepository.findByRepKeycloakIdForUpdate(keycloakService.getSubject());
 
         if (company == null) {
             throw new NotFoundException("No registration found");
@@ -104,19 +152,41 @@ public class RegistrationService {
             throw new ValidationException("Cannot delete an accepted registration");
         }
 
-        List<ArticleDocument> documents = articleDocumentRepository.findByCompanyId(company.getId());
-        for (ArticleDocument document : documents) {
-            storageService.deleteFile(document.getObjectKey());
-        }
+        // Objects are removed from storage by ObjectDeletionWorker after commit
+        List<Long> documentIds = articleDocumentRepository.deleteQueuingObjects(company.getId(), null);
+        uploadSessionRepository.deleteByCompanyIdQueuingParts(company.getId());
 
         companyRepository.delete(company);
+        invalidationBus.publish(CacheRegion.DOCUMENT, documentIds.stream().map(String::valueOf).toList());
+        invalidationBus.publish(CacheRegion.COMPANY, company.getId());
     }
 
-    @Transactional
-    public List<ArticleDocumentResponse> uploadFiles(List<FileUpload> files) {
-        KeycloakUser user = keycloakService.getUser();
-        Company company = companyRepository.findByRepId(user.getId());
+    /**
+     * Reads the multipart body part by part and pipes every file in the {@code files} field straight to object
+     * storage, then records all of them in one short transaction. Parts up to the in-memory threshold are buffered
+     * and sent concurrently on virtual threads, at most {@code upload.parallelism} transfers per request; larger
+     * ones are streamed from the body as multipart uploads. Nothing is spooled to disk, and no database
+     * connection is held while bytes move. Objects whose metadata cannot be committed are released again.
+     * <p>
+     * Content is deduplicated by SHA-256: a buffered file whose content is already stored is not sent at all,
+     * and a streamed one, hashed on the way through, is deleted again in favour of the existing copy.
+     */
+    public List<ArticleDocumentResponse> uploadFiles(String contentType, InputStream body) {
+        checkUploadAllowed(companyRepository.findByRepKeycloakId(keycloakService.getSubject()));
+
+        List<StoredFile> stored = storeFiles(contentType, body);
+        try {
+            return QuarkusTransaction.requiringNew().call(() -> recordFiles(stored));
+        } catch (RuntimeException e) {
+            discard(stored);
+            throw e;
+        }
+    }
 
+    private record StoredFile(String objectKey, String filename, String contentType, long size) {
+    }
+
+    private static void checkUploadAllowed(Company company) {
         if (company == null) {
             throw new NotFoundException("No registration found. Create a registration first.");
         }
@@ -124,39 +194,177 @@ public class RegistrationService {
         if (company.getState() == RegistrationState.ACCEPTED) {
             throw new ValidationException("Cannot modify an accepted registration");
         }
+    }
+
+    private List<ArticleDocumentResponse> recordFiles(List<StoredFile> stored) {
+        // Re-checked under the row lock: the registration may have been accepted while the files were in flight
+        Company company = companyRepository.findByRepKeycloakIdForUpdate(keycloakService.getSubject());
+        checkUploadAllowed(company);
 
         List<ArticleDocumentResponse> responses = new ArrayList<>();
+        for (StoredFile file : stored) {
+            ArticleDocument doc = new ArticleDocument(company, file.objectKey(), file.filename(), file.contentType(), file.size());
+            articleDocumentRepository.persist(doc);
+            responses.add(companyMapper.toArticleDocumentResponse(doc));
+        }
+        return responses;
+    }
 
-        for (FileUpload file : files) {
-            try (InputStream is = Files.newInputStream(file.uploadedFile())) {
-                String objectKey = storageService.uploadFile(
-                        is,
-                        file.fileName(),
-                        file.contentType(),
-                        Files.size(file.uploadedFile())
-                );
-
-                ArticleDocument doc = new ArticleDocument(
-                        company,
-                        objectKey,
-                        file.fileName(),
-                        file.contentType(),
-                        Files.size(file.uploadedFile())
-                );
-                articleDocumentRepository.persist(doc);
-                responses.add(companyMapper.toArticleDocumentResponse(doc));
-            } catch (Exception e) {
-                throw new RuntimeException("Failed to upload file: " + file.fileName(), e);
+    private List<StoredFile> storeFiles(String contentType, InputStream body) {
+        MultipartReader reader = new MultipartReader(body, contentType);
+        Semaphore permits = new Semaphore(uploadParallelism);
+        List<Future<StoredFile>> transfers = new ArrayList<>();
+        RuntimeException failure = null;
+
+        // Closing the executor waits for every transfer still in flight
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (MultipartReader.Part part = reader.next(); part != null; part = reader.next()) {
+                if (FILES_FIELD.equals(part.name()) && part.isFile()) {
+                    transfers.add(storePart(part, executor, permits));
+                }
             }
+        } catch (IOException e) {
+            failure = new RuntimeException("Failed to read upload", e);
+        } catch (RuntimeException e) {
+            failure = e;
         }
 
-        return responses;
+        List<StoredFile> stored = new ArrayList<>();
+        for (Future<StoredFile> transfer : transfers) {
+            if (transfer.state() == Future.State.SUCCESS) {
+                stored.add(transfer.resultNow());
+            } else if (failure == null) {
+                Throwable error = transfer.exceptionNow();
+                failure = error instanceof RuntimeException runtime ? runtime : new RuntimeException(error);
+            }
+        }
+        if (failure != null) {
+            discard(stored);
+            throw failure;
+        }
+        return stored;
+    }
+
+    private Future<StoredFile> storePart(MultipartReader.Part part, ExecutorService executor, Semaphore permits) {
+        SizeLimitedInputStream content = new SizeLimitedInputStream(part.content(), maxFileSize.asLongValue());
+        try {
+            int threshold = (int) Math.min(inMemoryThreshold.asLongValue(), maxFileSize.asLongValue());
+            byte[] head = content.readNBytes(threshold + 1);
+            permits.acquire();
+            if (head.length <= threshold) {
+                return executor.submit(() -> {
+                    try {
+                        return storeBuffered(part, head);
+                    } catch (Exception e) {
+                        throw uploadFailure(part, false, e);
+                    } finally {
+                        permits.release();
+                    }
+                });
+            }
+            try {
+                MessageDigest digest = sha256();
+                InputStream stream = new DigestInputStream(new SequenceInputStream(new ByteArrayInputStream(head), content), digest);
+                String objectKey = storageService.uploadFile(stream, part.filename(), part.contentType(), -1);
+                objectKey = share(HexFormat.of().formatHex(digest.digest()), objectKey, content.count());
+                return CompletableFuture.completedFuture(new StoredFile(objectKey, part.filename(), part.contentType(), content.count()));
+            } finally {
+                permits.release();
+            }
+        } catch (Exception e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            throw uploadFailure(part, content.isExceeded(), e);
+        }
+    }
+
+    private StoredFile storeBuffered(MultipartReader.Part part, byte[] content) {
+        String contentHash = HexFormat.of().formatHex(sha256().digest(content));
+        String objectKey = QuarkusTransaction.requiringNew().call(() -> storedBlobRepository.acquire(contentHash, content.length));
+        if (objectKey == null) {
+            objectKey = storageService.uploadFile(new ByteArrayInputStream(content), part.filename(), part.contentType(), content.length);
+            objectKey = share(contentHash, objectKey, content.length);
+        } else {
+            Log.debugf("Content of %s is already stored as %s", part.filename(), objectKey);
+        }
+        return new StoredFile(objectKey, part.filename(), part.contentType(), content.length);
+    }
+
+    /**
+     * Registers a freshly stored object as the copy of its content. If another upload got there first, takes a
+     * reference to that copy instead and deletes this one. Returns the key the document should point to.
+     */
+    private String share(String contentHash, String objectKey, long size) {
+        for (int attempt = 0; attempt < SHARE_ATTEMPTS; attempt++) {
+            if (QuarkusTransaction.requiringNew().call(() -> storedBlobRepository.register(contentHash, objectKey, size))) {
+                return objectKey;
+            }
+            String existing = QuarkusTransaction.requiringNew().call(() -> storedBlobRepository.acquire(contentHash, size));
+            if (existing != null) {
+                deleteObjects(List.of(objectKey));
+                return existing;
+            }
+            // the copy registered first lost its last reference in between; register this one again
+        }
+        deleteObjects(List.of(objectKey));
+        throw new IllegalStateException("Could not register stored content " + contentHash);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private RuntimeException uploadFailure(MultipartReader.Part part, boolean tooLarge, Exception e) {
+        if (tooLarge) {
+            return new ClientErrorException("File " + part.filename() + " exceeds " + maxFileSize.asLongValue() + " bytes",
+                    Response.Status.REQUEST_ENTITY_TOO_LARGE);
+        }
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof WebApplicationException clientError) {
+                return clientError;
+            }
+        }
+        return new RuntimeException("Failed to upload file: " + part.filename(), e);
+    }
+
+    private void discard(List<StoredFile> stored) {
+        if (stored.isEmpty()) {
+            return;
+        }
+        List<String> unreferenced;
+        try {
+            unreferenced = QuarkusTransaction.requiringNew()
+                    .call(() -> storedBlobRepository.release(stored.stream().map(StoredFile::objectKey).toList()));
+        } catch (RuntimeException e) {
+            // reconciliation recounts the references once the grace period is over and removes what is unused
+            Log.warn("Could not release the content of a failed upload", e);
+            return;
+        }
+        deleteObjects(unreferenced);
+    }
+
+    private void deleteObjects(Collection<String> objectKeys) {
+        if (objectKeys.isEmpty()) {
+            return;
+        }
+        // removed concurrently; a failure is only logged, reconciliation sweeps what is left
+        Uni.join().all(objectKeys.stream()
+                        .map(objectKey -> storageService.deleteFileAsync(objectKey)
+                                .onFailure().invoke(e -> Log.warnf(e, "Could not delete orphaned upload %s", objectKey))
+                                .onFailure().recoverWithNull())
+                        .toList())
+                .andFailFast()
+                .await().indefinitely();
     }
 
     @Transactional
     public void deleteFile(Long fileId) {
-        KeycloakUser user = keycloakService.getUser();
-        Company company = companyRepository.findByRepId(user.getId());
+        Company company = companyRepository.findByRepKeycloakIdForUpdate(keycloakService.getSubject());
 
         if (company == null) {
             throw new NotFoundException("No registration found");
@@ -175,54 +383,55 @@ public class RegistrationService {
             throw new ValidationException("Cannot modify an accepted registration");
         }
 
-        storageService.deleteFile(doc.getObjectKey());
-        articleDocumentRepository.delete(doc);
+        articleDocumentRepository.deleteQueuingObjects(company.getId(), List.of(fileId));
+        invalidationBus.publish(CacheRegion.DOCUMENT, fileId);
     }
 
-    public InputStream downloadFile(Long fileId) {
-        KeycloakUser user = keycloakService.getUser();
-        Company company = companyRepository.findByRepId(user.getId());
+    /**
+     * Deletes several of the representative's files at once. Either all of them go or, if any id is not one of
+     * the registration's files, none do.
+     */
+    @Transactional
+    public void deleteFiles(List<Long> fileIds) {
+        if (fileIds == null || fileIds.isEmpty()) {
+            throw new BadRequestException("No file ids given");
+        }
+
+        Company company = companyRepository.findByRepKeycloakIdForUpdate(keycloakService.getSubject());
 
         if (company == null) {
             throw new NotFoundException("No registration found");
         }
 
-        ArticleDocument doc = articleDocumentRepository.findById(fileId);
-        if (doc == null) {
-            throw new NotFoundException("File not found");
+        if (company.getState() == RegistrationState.ACCEPTED) {
+            throw new ValidationException("Cannot modify an accepted registration");
         }
 
-        if (!doc.getCompany().getId().equals(company.getId())) {
-            throw new ForbiddenException("You can only download your own files");
+        Set<Long> requested = new HashSet<>(fileIds);
+        List<Long> deleted = articleDocumentRepository.deleteQueuingObjects(company.getId(), requested);
+        if (deleted.size() != requested.size()) {
+            // Rolls back the rows already deleted
+            throw new NotFoundException("File not found");
         }
-
-        return storageService.downloadFile(doc.getObjectKey());
+        invalidationBus.publish(CacheRegion.DOCUMENT, deleted.stream().map(String::valueOf).toList());
     }
 
-    public InputStream downloadFileForReview(Long companyId, Long fileId) {
-        ArticleDocument doc = articleDocumentRepository.findById(fileId);
+    public DocumentMetadata getArticleDocument(Long fileId) {
+        KeycloakUser user = keycloakService.getUser();
+        DocumentMetadata doc = documentMetadataCache.get(fileId, articleDocumentRepository::findMetadata);
         if (doc == null) {
             throw new NotFoundException("File not found");
         }
 
-        if (!doc.getCompany().getId().equals(companyId)) {
-            throw new NotFoundException("File not found for this company");
-        }
-
-        return storageService.downloadFile(doc.getObjectKey());
-    }
-
-    public ArticleDocument getArticleDocument(Long fileId) {
-        ArticleDocument doc = articleDocumentRepository.findById(fileId);
-        if (doc == null) {
-            throw new NotFoundException("File not found");
+        if (doc.representativeId() != user.getId()) {
+            throw new ForbiddenException("You can only download your own files");
         }
         return doc;
     }
 
-    public ArticleDocument getArticleDocumentForCompany(Long companyId, Long fileId) {
-        ArticleDocument doc = articleDocumentRepository.findById(fileId);
-        if (doc == null || !doc.getCompany().getId().equals(companyId)) {
+    public DocumentMetadata getArticleDocumentForCompany(Long companyId, Long fileId) {
+        DocumentMetadata doc = documentMetadataCache.get(fileId, articleDocumentRepository::findMetadata);
+        if (doc == null || doc.companyId() != companyId) {
             throw new NotFoundException("File not found for this company");
         }
         return doc;
@@ -0,0 +1,311 @@
+package gr.hua.service;
+
+import gr.hua.model.entity.ArticleDocument;
+import gr.hua.model.entity.Company;
+import gr.hua.model.entity.UploadPart;
+import gr.hua.model.entity.UploadSession;
+import gr.hua.model.enums.RegistrationState;
+import gr.hua.repository.ArticleDocumentRepository;
+import gr.hua.repository.CompanyRepository;
+import gr.hua.repository.UploadPartRepository;
+import gr.hua.repository.UploadSessionRepository;
+import gr.hua.storage.DocumentStore;
+import gr.hua.upload.SizeLimitedInputStream;
+import gr.hua.upload.UploadMetadata;
+import io.quarkus.logging.Log;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.runtime.configuration.MemorySize;
+import io.quarkus.scheduler.Scheduled;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
+import jakarta.validation.ValidationException;
+import jakarta.ws.rs.BadRequestException;
+import jakarta.ws.rs.ClientErrorException;
+import jakarta.ws.rs.NotFoundException;
+import jakarta.ws.rs.core.Response;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.io.InputStream;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Resumable uploads after the tus 1.0 protocol: {@link #create} opens a session for a file of known length,
+ * {@link #append} stores each chunk as an object of its own at the offset the client claims, and the chunk that
+ * reaches the length composes the parts into the document's object and records the ArticleDocument. A client
+ * whose connection drops asks {@link #status} for the offset and carries on from there; a chunk cut off midway
+ * is discarded, not kept in part. Chunks are bounded by the HTTP body limit, files by
+ * {@code upload.resumable.max-file-size}.
+ * <p>
+ * Every chunk extends the session by {@code upload.resumable.expiry}. Expired sessions are deleted in the
+ * background and their parts queued for ObjectDeletionWorker.
+ */
+@ApplicationScoped
+public class ResumableUploadService {
+
+    private static final String PART_CONTENT_TYPE = "application/octet-stream";
+
+    public record Status(String token, long offset, long length, Instant expiresAt, Long documentId) {
+
+        public boolean isComplete() {
+            return documentId != null;
+        }
+    }
+
+    @Inject
+    CompanyRepository companyRepository;
+    @Inject
+    KeycloakService keycloakService;
+    @Inject
+    StorageService storageService;
+    @Inject
+    ArticleDocumentRepository articleDocumentRepository;
+    @Inject
+    UploadSessionRepository uploadSessionRepository;
+    @Inject
+    UploadPartRepository uploadPartRepository;
+
+    @ConfigProperty(name = "upload.resumable.max-file-size", defaultValue = "100M")
+    MemorySize maxFileSize;
+
+    @ConfigProperty(name = "upload.resumable.expiry", defaultValue = "24H")
+    Duration expiry;
+
+    public long maxFileSize() {
+        return maxFileSize.asLongValue();
+    }
+
+    @Transactional
+    public Status create(long length, UploadMetadata metadata) {
+        if (length <= 0) {
+            throw new BadRequestException("Upload-Length must be a positive number of bytes");
+        }
+        if (length > maxFileSize.asLongValue()) {
+            throw new ClientErrorException("File " + metadata.filename() + " exceeds " + maxFileSize.asLongValue() + " bytes",
+                    Response.Status.REQUEST_ENTITY_TOO_LARGE);
+        }
+
+        Company company = companyRepository.findByRepKeycloakId(keycloakService.getSubject());
+        checkUploadAllowed(company);
+
+        UploadSession session = new UploadSession(company, UUID.randomUUID().toString(), metadata.filename(),
+                metadata.contentType(), length, expiresAt());
+        uploadSessionRepository.persist(session);
+        return status(session);
+    }
+
+    public Status status(String token) {
+        return status(find(token));
+    }
+
+    /**
+     * Stores {@code body} as the chunk starting at {@code offset}, which has to be the session's current offset.
+     * With {@code contentLength} -1 the chunk runs to the end of the body. The part is written before the
+     * offset moves, so a chunk that fails midway leaves the session where it was. A chunk sent for an upload
+     * whose bytes have all arrived retries its completion.
+     */
+    public Status append(String token, long offset, long contentLength, InputStream body) {
+        UploadSession session = find(token);
+        if (offset != session.getUploadOffset()) {
+            throw new ClientErrorException("Upload-Offset does not match the upload offset " + session.getUploadOffset(),
+                    Response.Status.CONFLICT);
+        }
+        if (offset == session.getFileSize()) {
+            return complete(session);
+        }
+
+        long remaining = session.getFileSize() - offset;
+        if (contentLength > remaining) {
+            throw new ClientErrorException("Chunk exceeds the declared Upload-Length", Response.Status.REQUEST_ENTITY_TOO_LARGE);
+        }
+        if (contentLength == 0) {
+            return status(session);
+        }
+
+        SizeLimitedInputStream content = new SizeLimitedInputStream(body, remaining);
+        String objectKey = session.getToken() + "/part-" + offset + "-" + UUID.randomUUID();
+        try {
+            storageService.putFile(objectKey, content, PART_CONTENT_TYPE, contentLength);
+        } catch (RuntimeException e) {
+            if (content.isExceeded()) {
+                throw new ClientErrorException("Chunk exceeds the declared Upload-Length", Response.Status.REQUEST_ENTITY_TOO_LARGE);
+            }
+            throw e;
+        }
+        long size = content.count();
+        if (size == 0) {
+            deleteQuietly(objectKey);
+            return status(session);
+        }
+
+        long next = offset + size;
+        Timestamp expiresAt = expiresAt();
+        boolean advanced;
+        try {
+            advanced = QuarkusTransaction.requiringNew().call(() -> {
+                if (!uploadSessionRepository.advance(session.getId(), offset, next, expiresAt, now())) {
+                    return false;
+                }
+                uploadPartRepository.persist(new UploadPart(session, offset, size, objectKey));
+                return true;
+            });
+        } catch (RuntimeException e) {
+            deleteQuietly(objectKey);
+            throw e;
+        }
+        if (!advanced) {
+            deleteQuietly(objectKey);
+            throw new ClientErrorException("Upload-Offset does not match the upload offset", Response.Status.CONFLICT);
+        }
+
+        session.setUploadOffset(next);
+        session.setExpiresAt(expiresAt);
+        return next == session.getFileSize() ? complete(session) : status(session);
+    }
+
+    @Transactional
+    public void terminate(String token) {
+        UploadSession session = uploadSessionRepository.findByTokenAndRepKeycloakId(token, keycloakService.getSubject());
+        if (session == null) {
+            throw new NotFoundException("Upload not found");
+        }
+        // A completed upload only loses its session; the document stays
+        uploadSessionRepository.deleteQueuingParts(session.getId());
+    }
+
+    @Scheduled(every = "${upload.resumable.cleanup-interval:15m}", concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    void scheduledExpire() {
+        try {
+            expire();
+        } catch (RuntimeException e) {
+            Log.warn("Expiring resumable uploads failed", e);
+        }
+    }
+
+    /**
+     * Deletes the sessions past their expiry and queues their parts for removal from storage. Returns the
+     * number of sessions deleted.
+     */
+    public long expire() {
+        long expired = QuarkusTransaction.requiringNew().call(() -> uploadSessionRepository.deleteExpiredQueuingParts(now()));
+        if (expired > 0) {
+            Log.infof("Dropped %d expired resumable uploads", expired);
+        }
+        return expired;
+    }
+
+    private UploadSession find(String token) {
+        // Read in a transaction of its own, so a session loaded earlier in the same request is not returned stale
+        UploadSession session = QuarkusTransaction.requiringNew()
+                .call(() -> uploadSessionRepository.findByTokenAndRepKeycloakId(token, keycloakService.getSubject()));
+        if (session == null) {
+            throw new NotFoundException("Upload not found");
+        }
+        if (session.getDocument() == null && session.getExpiresAt().before(now())) {
+            throw new ClientErrorException("Upload expired", Response.Status.GONE);
+        }
+        return session;
+    }
+
+    private static void checkUploadAllowed(Company company) {
+        if (company == null) {
+            throw new NotFoundException("No registration found. Create a registration first.");
+        }
+
+        if (company.getState() == RegistrationState.ACCEPTED) {
+            throw new ValidationException("Cannot modify an accepted registration");
+        }
+    }
+
+    /**
+     * Composes the parts into a new object and records it. When two requests complete the same upload, the
+     * one that commits second deletes its copy and reports the document of the first.
+     */
+    private Status complete(UploadSession session) {
+        if (session.getDocument() != null) {
+            return status(session);
+        }
+
+        List<DocumentStore.Source> sources = sources(session);
+        String objectKey = storageService.newObjectKey(session.getOriginalFilename());
+        storageService.composeFile(objectKey, sources, session.getContentType());
+        Recorded recorded;
+        try {
+            recorded = QuarkusTransaction.requiringNew().call(() -> record(session.getId(), objectKey));
+        } catch (RuntimeException e) {
+            deleteQuietly(objectKey);
+            throw e;
+        }
+        if (!recorded.stored()) {
+            deleteQuietly(objectKey);
+        }
+        return new Status(session.getToken(), session.getFileSize(), session.getFileSize(),
+                session.getExpiresAt().toInstant(), recorded.documentId());
+    }
+
+    private record Recorded(Long documentId, boolean stored) {
+    }
+
+    private List<DocumentStore.Source> sources(UploadSession session) {
+        List<UploadPart> parts = uploadPartRepository.findBySessionId(session.getId());
+        long offset = 0;
+        for (UploadPart part : parts) {
+            if (part.getPartOffset() != offset) {
+                throw new IllegalStateException("Upload " + session.getToken() + " has no part at offset " + offset);
+            }
+            offset += part.getSize();
+        }
+        if (offset != session.getFileSize()) {
+            throw new IllegalStateException("Parts of upload " + session.getToken() + " add up to " + offset + " bytes");
+        }
+        return parts.stream().map(part -> new DocumentStore.Source(part.getObjectKey(), part.getSize())).toList();
+    }
+
+    private Recorded record(long sessionId, String objectKey) {
+        // Re-checked under the row lock: the registration may have been accepted while the chunks were arriving
+        Company company = companyRepository.findByRepKeycloakIdForUpdate(keycloakService.getSubject());
+        checkUploadAllowed(company);
+
+        UploadSession session = uploadSessionRepository.findByIdForUpdate(sessionId);
+        if (session == null) {
+            throw new NotFoundException("Upload not found");
+        }
+        if (session.getDocument() != null) {
+            return new Recorded(session.getDocument().getId(), false);
+        }
+
+        ArticleDocument doc = new ArticleDocument(company, objectKey, session.getOriginalFilename(),
+                session.getContentType(), session.getFileSize());
+        articleDocumentRepository.persist(doc);
+        session.setDocument(doc);
+        uploadPartRepository.deleteQueuingObjects(sessionId);
+        return new Recorded(doc.getId(), true);
+    }
+
+    private void deleteQuietly(String objectKey) {
+        try {
+            storageService.deleteFile(objectKey);
+        } catch (RuntimeException e) {
+            // reconciliation removes it once the grace period is over
+            Log.warnf(e, "Could not delete orphaned upload %s", objectKey);
+        }
+    }
+
+    private static Status status(UploadSession session) {
+        ArticleDocument document = session.getDocument();
+        return new Status(session.getToken(), session.getUploadOffset(), session.getFileSize(),
+                session.getExpiresAt().toInstant(), document == null ? null : document.getId());
+    }
+
+    private static Timestamp now() {
+        return new Timestamp(System.currentTimeMillis());
+    }
+
+    private Timestamp expiresAt() {
+        return Timestamp.from(Instant.now().plus(expiry));
+    }
+}
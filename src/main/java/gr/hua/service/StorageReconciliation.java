@@ -0,0 +1,268 @@
+package gr.hua.service;
+
+import gr.hua.model.entity.ObjectDeletion;
+import gr.hua.repository.ArticleDocumentRepository;
+import gr.hua.repository.ObjectDeletionRepository;
+import gr.hua.repository.PendingUploadRepository;
+import gr.hua.repository.StoredBlobRepository;
+import gr.hua.repository.UploadPartRepository;
+import gr.hua.util.KeyHash;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.quarkus.logging.Log;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.runtime.StartupEvent;
+import io.quarkus.scheduler.Scheduled;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Compares the bucket with the database. Objects that no ArticleDocument, PendingUpload, UploadPart, StoredBlob or
+ * pending ObjectDeletion refers to are orphans: those older than the grace period are queued for ObjectDeletionWorker.
+ * Direct uploads still pending a grace period after their URL expired are dropped first, so their objects
+ * become orphans too, and the reference counts of StoredBlobs not acquired within the grace period are
+ * recounted, which frees content held by uploads that never recorded their documents. Rows whose object is
+ * gone are only reported, since there is nothing to restore them from.
+ * <p>
+ * Known keys are held as a sorted array of 64-bit hashes, 8 bytes per key. A hash collision can only hide
+ * an orphan or a missing object; it never marks a referenced object for deletion. The bucket is listed in
+ * parallel, one virtual thread per leading hex digit of the random key prefix. A transaction-scoped advisory
+ * lock keeps the job to one node at a time.
+ */
+@ApplicationScoped
+public class StorageReconciliation {
+
+    static final long ADVISORY_LOCK_KEY = 0x7469645F7265636FL;
+    private static final List<String> PREFIXES = Arrays.asList("0123456789abcdef".split(""));
+    private static final int MISSING_LOG_LIMIT = 20;
+
+    public record Report(boolean ran, long scannedObjects, long knownKeys, long orphans, long missing, long durationMillis) {
+
+        static Report skipped() {
+            return new Report(false, 0, 0, 0, 0, 0);
+        }
+    }
+
+    @Inject
+    EntityManager entityManager;
+
+    @Inject
+    ArticleDocumentRepository articleDocumentRepository;
+
+    @Inject
+    ObjectDeletionRepository objectDeletionRepository;
+
+    @Inject
+    PendingUploadRepository pendingUploadRepository;
+
+    @Inject
+    StoredBlobRepository storedBlobRepository;
+
+    @Inject
+    UploadPartRepository uploadPartRepository;
+
+    @Inject
+    StorageService storageService;
+
+    @Inject
+    MeterRegistry meterRegistry;
+
+    @ConfigProperty(name = "reconciliation.grace-period", defaultValue = "24H")
+    Duration gracePeriod;
+
+    @ConfigProperty(name = "reconciliation.fetch-size", defaultValue = "1000")
+    int fetchSize;
+
+    @ConfigProperty(name = "reconciliation.transaction-timeout", defaultValue = "3600")
+    int transactionTimeout;
+
+    private Counter scanned;
+    private Counter orphansQueued;
+    private Counter missingFound;
+    private Timer duration;
+    private volatile double lastThroughput;
+
+    void onStart(@Observes StartupEvent event) {
+        scanned = Counter.builder("storage.reconciliation.objects.scanned").register(meterRegistry);
+        orphansQueued = Counter.builder("storage.reconciliation.orphans").register(meterRegistry);
+        missingFound = Counter.builder("storage.reconciliation.missing").register(meterRegistry);
+        duration = Timer.builder("storage.reconciliation.duration").register(meterRegistry);
+        Gauge.builder("storage.reconciliation.throughput", this, job -> job.lastThroughput)
+                .description("Objects scanned per second by the last run")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(every = "${reconciliation.interval:6h}", delayed = "${reconciliation.initial-delay:10m}",
+            concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    void scheduledRun() {
+        try {
+            run();
+        } catch (RuntimeException e) {
+            Log.warn("Storage reconciliation failed", e);
+        }
+    }
+
+    public Report run() {
+        long started = System.nanoTime();
+        Instant cutoff = Instant.now().minus(gracePeriod);
+        Report report = QuarkusTransaction.requiringNew()
+                .timeout(transactionTimeout)
+                .call(() -> reconcile(cutoff, started));
+        if (!report.ran()) {
+            Log.info("Storage reconciliation skipped: another node holds the lock");
+            return report;
+        }
+
+        lastThroughput = report.scannedObjects() * 1000.0 / Math.max(1, report.durationMillis());
+        scanned.increment(report.scannedObjects());
+        orphansQueued.increment(report.orphans());
+        missingFound.increment(report.missing());
+        duration.record(report.durationMillis(), TimeUnit.MILLISECONDS);
+        Log.infof("Storage reconciliation: %d objects scanned in %d ms (%.0f/s) against %d known keys; %d orphans queued for deletion, %d objects missing",
+                report.scannedObjects(), report.durationMillis(), lastThroughput, report.knownKeys(), report.orphans(), report.missing());
+        return report;
+    }
+
+    private Report reconcile(Instant cutoff, long started) {
+        boolean locked = (Boolean) entityManager.createNativeQuery("select pg_try_advisory_xact_lock(?1)")
+                .setParameter(1, ADVISORY_LOCK_KEY)
+                .getSingleResult();
+        if (!locked) {
+            return Report.skipped();
+        }
+
+        long abandoned = pendingUploadRepository.deleteExpiredBefore(Timestamp.from(cutoff));
+        if (abandoned > 0) {
+            Log.infof("Dropped %d direct uploads that were never committed", abandoned);
+        }
+        long recounted = storedBlobRepository.recount(Timestamp.from(cutoff));
+        if (recounted > 0) {
+            Log.infof("Corrected the reference counts of %d stored blobs; %d are now unused and queued for deletion",
+                    recounted, storedBlobRepository.queueUnreferenced());
+        }
+
+        // Keys read before listing: an object uploaded since is newer than the cutoff and left alone
+        long[] known;
+        try (Stream<String> documents = articleDocumentRepository.streamObjectKeys(null, fetchSize);
+             Stream<String> pending = pendingUploadRepository.streamObjectKeys(fetchSize);
+             Stream<String> blobs = storedBlobRepository.streamObjectKeys(fetchSize);
+             Stream<String> parts = uploadPartRepository.streamObjectKeys(fetchSize);
+             Stream<String> queued = objectDeletionRepository.streamObjectKeys(fetchSize)) {
+            HashBuffer buffer = new HashBuffer();
+            Stream.of(documents, pending, blobs, parts, queued).flatMap(keys -> keys).forEach(key -> buffer.add(KeyHash.of(key)));
+            known = buffer.sorted();
+        }
+
+        HashBuffer stored = new HashBuffer();
+        List<String> orphans = new ArrayList<>();
+        for (Listing listing : listBucket(known, cutoff)) {
+            stored.addAll(listing.hashes());
+            orphans.addAll(listing.orphans());
+        }
+        long[] storedHashes = stored.sorted();
+
+        for (String orphan : orphans) {
+            objectDeletionRepository.persist(new ObjectDeletion(orphan));
+        }
+
+        long missing = 0;
+        try (Stream<String> documents = articleDocumentRepository.streamObjectKeys(Timestamp.from(cutoff), fetchSize)) {
+            Iterator<String> keys = documents.iterator();
+            while (keys.hasNext()) {
+                String key = keys.next();
+                if (Arrays.binarySearch(storedHashes, KeyHash.of(key)) < 0) {
+                    if (++missing <= MISSING_LOG_LIMIT) {
+                        Log.warnf("ArticleDocument object %s is missing from storage", key);
+                    }
+                }
+            }
+        }
+
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+        return new Report(true, storedHashes.length, known.length, orphans.size(), missing, elapsedMillis);
+    }
+
+    private record Listing(long[] hashes, List<String> orphans) {
+    }
+
+    private List<Listing> listBucket(long[] known, Instant cutoff) {
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<Listing>> listings = PREFIXES.stream()
+                    .map(prefix -> executor.submit(() -> listPrefix(prefix, known, cutoff)))
+                    .toList();
+            List<Listing> results = new ArrayList<>();
+            for (Future<Listing> listing : listings) {
+                results.add(listing.get());
+            }
+            return results;
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Failed to list storage for reconciliation", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Storage reconciliation interrupted", e);
+        }
+    }
+
+    private Listing listPrefix(String prefix, long[] known, Instant cutoff) {
+        HashBuffer hashes = new HashBuffer();
+        List<String> orphans = new ArrayList<>();
+        storageService.listObjects(prefix, object -> {
+            long hash = KeyHash.of(object.key());
+            hashes.add(hash);
+            if (object.lastModified().isBefore(cutoff) && Arrays.binarySearch(known, hash) < 0) {
+                orphans.add(object.key());
+            }
+        });
+        return new Listing(hashes.toArray(), orphans);
+    }
+
+    private static final class HashBuffer {
+
+        private long[] values = new long[1024];
+        private int size;
+
+        void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        void addAll(long[] more) {
+            if (size + more.length > values.length) {
+                values = Arrays.copyOf(values, Math.max(size * 2, size + more.length));
+            }
+            System.arraycopy(more, 0, values, size, more.length);
+            size += more.length;
+        }
+
+        long[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+
+        long[] sorted() {
+            long[] result = toArray();
+            Arrays.sort(result);
+            return result;
+        }
+    }
+}
@@ -1,105 +1,194 @@
 package gr.hua.service;
 
-import io.minio.*;
+import gr.hua.storage.DocumentStore;
+import gr.hua.storage.DocumentStore.ObjectInfo;
+import gr.hua.storage.DocumentStore.PresignedUrl;
+import gr.hua.storage.DocumentStore.Source;
+import gr.hua.storage.DocumentStore.StoredObject;
+import gr.hua.storage.PresigningDocumentStore;
 import io.quarkus.logging.Log;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import io.vertx.core.buffer.Buffer;
+import jakarta.annotation.PostConstruct;
 import jakarta.enterprise.context.ApplicationScoped;
-import org.eclipse.microprofile.config.inject.ConfigProperty;
+import jakarta.enterprise.inject.Instance;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.ServerErrorException;
+import jakarta.ws.rs.core.Response;
 
 import java.io.InputStream;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Consumer;
 
+/**
+ * Entry point for stored documents. Assigns object keys and delegates to the {@link DocumentStore} selected
+ * by {@code storage.backend}.
+ */
 @ApplicationScoped
 public class StorageService {
 
-    @ConfigProperty(name = "minio.url")
-    String minioUrl;
+    @Inject
+    Instance<DocumentStore> stores;
 
-    @ConfigProperty(name = "minio.access-key")
-    String accessKey;
+    private DocumentStore store;
 
-    @ConfigProperty(name = "minio.secret-key")
-    String secretKey;
+    // the same store when it can presign URLs, otherwise null
+    private PresigningDocumentStore presigning;
 
-    @ConfigProperty(name = "minio.bucket")
-    String bucket;
+    @PostConstruct
+    void init() {
+        store = stores.get();
+        presigning = store instanceof PresigningDocumentStore presigningStore ? presigningStore : null;
+        Log.infof("Document storage backend: %s", store.getClass().getSimpleName());
+    }
 
-    private volatile MinioClient minioClient;
-    private volatile boolean bucketEnsured = false;
+    private static <T> T await(Uni<T> operation) {
+        return operation.await().indefinitely();
+    }
 
-    private MinioClient getClient() {
-        if (minioClient == null) {
-            synchronized (this) {
-                if (minioClient == null) {
-                    minioClient = MinioClient.builder()
-                            .endpoint(minioUrl)
-                            .credentials(accessKey, secretKey)
-                            .build();
-                }
-            }
-        }
-        if (!bucketEnsured) {
-            synchronized (this) {
-                if (!bucketEnsured) {
-                    try {
-                        boolean exists = minioClient.bucketExists(
-                                BucketExistsArgs.builder().bucket(bucket).build()
-                        );
-                        if (!exists) {
-                            minioClient.makeBucket(
-                                    MakeBucketArgs.builder().bucket(bucket).build()
-                            );
-                            Log.infof("Created MinIO bucket: %s", bucket);
-                        }
-                        bucketEnsured = true;
-                    } catch (Exception e) {
-                        throw new RuntimeException("MinIO bucket initialization failed", e);
-                    }
-                }
-            }
+    /**
+     * True when the backend serves reads from this host, so a local cache in front of it gains nothing.
+     */
+    public boolean isLocal() {
+        return store.isLocal();
+    }
+
+    /**
+     * The file holding the object, when the backend keeps one that can be sent with {@code sendfile}.
+     */
+    public Optional<Path> localPath(String objectKey) {
+        return store.localPath(objectKey);
+    }
+
+    /**
+     * Signs a GET for the object that is valid for {@code expiry}. Browsers following it save the file under
+     * {@code filename} with the stored content type. Empty when the backend cannot presign URLs.
+     */
+    public Optional<PresignedUrl> presignedDownloadUrl(String objectKey, String filename, String contentType, Duration expiry) {
+        return Optional.ofNullable(presigning).map(signer -> signer.presign("GET", objectKey, expiry, Map.of(
+                "response-content-disposition", "attachment; filename=\"" + filename + "\"",
+                "response-content-type", contentType)));
+    }
+
+    /**
+     * Signs a PUT that lets a client store the object itself. The signature does not cover the body and the URL
+     * stays valid until it expires, so callers should check and keep a {@link #copyFileAsync copy} the client
+     * cannot write to, not the object itself.
+     */
+    public PresignedUrl presignedUploadUrl(String objectKey, Duration expiry) {
+        if (presigning == null) {
+            throw new ServerErrorException("The configured storage backend does not support presigned URLs",
+                    Response.Status.NOT_IMPLEMENTED);
         }
-        return minioClient;
+        return presigning.presign("PUT", objectKey, expiry, Map.of());
     }
 
+    /**
+     * Object keys are a random UUID followed by the original file name; they are never reused.
+     */
+    public String newObjectKey(String filename) {
+        return UUID.randomUUID() + "/" + filename;
+    }
+
+    /**
+     * Stores the stream under a fresh key. With {@code size} -1 the length is unknown. The stream is read on
+     * the calling thread, so call this from a worker or virtual thread.
+     */
     public String uploadFile(InputStream inputStream, String filename, String contentType, long size) {
-        String objectKey = UUID.randomUUID() + "/" + filename;
-        try {
-            getClient().putObject(
-                    PutObjectArgs.builder()
-                            .bucket(bucket)
-                            .object(objectKey)
-                            .stream(inputStream, size, -1)
-                            .contentType(contentType)
-                            .build()
-            );
-            return objectKey;
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to upload file to MinIO", e);
-        }
+        return await(uploadFileAsync(inputStream, filename, contentType, size));
+    }
+
+    public Uni<String> uploadFileAsync(InputStream inputStream, String filename, String contentType, long size) {
+        String objectKey = newObjectKey(filename);
+        return store.put(objectKey, inputStream, size, contentType).replaceWith(objectKey);
+    }
+
+    /**
+     * Stores the stream under {@code objectKey}, which the caller has taken from {@link #newObjectKey} or derived
+     * from one. The stream is read on the calling thread.
+     */
+    public void putFile(String objectKey, InputStream inputStream, String contentType, long size) {
+        await(store.put(objectKey, inputStream, size, contentType));
+    }
+
+    /**
+     * Stores the concatenation of the sources as a new object, on the storage server where the backend can.
+     */
+    public void composeFile(String objectKey, List<Source> sources, String contentType) {
+        await(store.compose(objectKey, sources, contentType));
     }
 
+    /**
+     * Streams {@code length} bytes of the object starting at {@code offset}, or the rest of it when
+     * {@code length} is -1. A chunk is read only when the subscriber asks for it, so a slow consumer holds an
+     * open object but no thread. The object is closed when the stream completes, fails or is cancelled.
+     */
+    public Multi<Buffer> streamFile(String objectKey, long offset, long length) {
+        return store.read(objectKey, offset, length);
+    }
+
+    /**
+     * Opens the whole object as a blocking stream, for callers that copy it somewhere on a worker thread.
+     */
     public InputStream downloadFile(String objectKey) {
-        try {
-            return getClient().getObject(
-                    GetObjectArgs.builder()
-                            .bucket(bucket)
-                            .object(objectKey)
-                            .build()
-            );
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to download file from MinIO", e);
+        return store.open(objectKey);
+    }
+
+    public long fileSize(String objectKey) {
+        ObjectInfo info = statFile(objectKey);
+        if (info == null) {
+            throw new RuntimeException("File not found in storage: " + objectKey);
         }
+        return info.size();
+    }
+
+    /**
+     * Returns the stored size and content type of the object, or null if there is no such object.
+     */
+    public ObjectInfo statFile(String objectKey) {
+        return await(statFileAsync(objectKey));
+    }
+
+    public Uni<ObjectInfo> statFileAsync(String objectKey) {
+        return store.stat(objectKey);
+    }
+
+    /**
+     * Copies the object to {@code objectKey}, on the storage server where the backend can, and emits the copy's
+     * size and content type, or null if there is no source object.
+     */
+    public Uni<ObjectInfo> copyFileAsync(String sourceKey, String objectKey) {
+        return store.copy(sourceKey, objectKey);
     }
 
     public void deleteFile(String objectKey) {
-        try {
-            getClient().removeObject(
-                    RemoveObjectArgs.builder()
-                            .bucket(bucket)
-                            .object(objectKey)
-                            .build()
-            );
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to delete file from MinIO", e);
-        }
+        await(deleteFileAsync(objectKey));
+    }
+
+    public Uni<Void> deleteFileAsync(String objectKey) {
+        return store.delete(objectKey);
+    }
+
+    /**
+     * Removes the objects and returns the keys the backend reported as not deleted. Keys that no longer exist
+     * count as deleted. MinIO takes up to 1000 keys per call.
+     */
+    public Set<String> deleteFiles(Collection<String> objectKeys) {
+        return store.deleteAll(objectKeys);
+    }
+
+    /**
+     * Passes every object whose key starts with {@code prefix} to {@code consumer}.
+     */
+    public void listObjects(String prefix, Consumer<StoredObject> consumer) {
+        store.list(prefix, consumer);
     }
 }
@@ -0,0 +1,53 @@
+package gr.hua.service;
+
+import gr.hua.model.projection.IssuedTaxId;
+import gr.hua.model.response.TaxIdVerificationResponse;
+import gr.hua.repository.CompanyRepository;
+import gr.hua.taxid.TaxIdIndex;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.BadRequestException;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.util.List;
+
+/**
+ * Answers whether a tax id was issued and to which company, from {@link TaxIdIndex}.
+ * Only while the index is still loading after startup are lookups sent to the database.
+ */
+@ApplicationScoped
+public class VerificationService {
+
+    @Inject
+    TaxIdIndex taxIdIndex;
+
+    @Inject
+    CompanyRepository companyRepository;
+
+    @ConfigProperty(name = "verification.max-batch-size", defaultValue = "1000")
+    int maxBatchSize;
+
+    public TaxIdVerificationResponse verify(String taxId) {
+        String trimmed = taxId == null ? "" : taxId.trim();
+        String companyName;
+        if (trimmed.isEmpty()) {
+            companyName = null;
+        } else if (taxIdIndex.isReady()) {
+            companyName = taxIdIndex.lookup(trimmed);
+        } else {
+            IssuedTaxId issued = companyRepository.findIssuedTaxId(trimmed);
+            companyName = issued == null ? null : issued.name();
+        }
+        return new TaxIdVerificationResponse(trimmed, companyName != null, companyName);
+    }
+
+    public List<TaxIdVerificationResponse> verifyAll(List<String> taxIds) {
+        if (taxIds == null || taxIds.isEmpty()) {
+            throw new BadRequestException("No tax ids given");
+        }
+        if (taxIds.size() > maxBatchSize) {
+            throw new BadRequestException("At most " + maxBatchSize + " tax ids per request");
+        }
+        return taxIds.stream().map(this::verify).toList();
+    }
+}
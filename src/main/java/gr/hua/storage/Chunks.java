@@ -0,0 +1,60 @@
+package gr.hua.storage;
+
+import io.quarkus.logging.Log;
+import io.smallrye.mutiny.Multi;
+import io.vertx.core.buffer.Buffer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+/**
+ * Turns a blocking stream into a {@code Multi<Buffer>} that reads one chunk per unit of demand.
+ */
+final class Chunks {
+
+    static final int CHUNK_SIZE = 64 * 1024;
+
+    // reads block; they run on virtual threads, so a slow consumer holds an open stream but no thread
+    private static final Executor READ_EXECUTOR = Executors.newVirtualThreadPerTaskExecutor();
+
+    private Chunks() {
+    }
+
+    /**
+     * Emits at most {@code length} bytes of {@code in}, or all of it when {@code length} is -1, and closes it when
+     * the stream completes, fails or is cancelled.
+     */
+    static Multi<Buffer> of(InputStream in, long length, String failureMessage) {
+        long[] remaining = {length < 0 ? Long.MAX_VALUE : length};
+        return Multi.createFrom().<InputStream, Buffer>generator(() -> in, (stream, emitter) -> {
+                    try {
+                        int want = (int) Math.min(CHUNK_SIZE, remaining[0]);
+                        byte[] chunk = new byte[want];
+                        int read = want == 0 ? -1 : stream.read(chunk);
+                        if (read < 0) {
+                            emitter.complete();
+                        } else {
+                            remaining[0] -= read;
+                            emitter.emit(Buffer.buffer(read == chunk.length ? chunk : Arrays.copyOf(chunk, read)));
+                        }
+                    } catch (IOException e) {
+                        emitter.fail(new RuntimeException(failureMessage, e));
+                    }
+                    return stream;
+                })
+                .onTermination().invoke(() -> closeQuietly(in))
+                .runSubscriptionOn(READ_EXECUTOR);
+    }
+
+    static void closeQuietly(Closeable resource) {
+        try {
+            resource.close();
+        } catch (IOException e) {
+            Log.debug("Failed to close stored object", e);
+        }
+    }
+}
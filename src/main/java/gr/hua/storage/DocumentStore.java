@@ -0,0 +1,123 @@
+package gr.hua.storage;
+
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import io.vertx.core.buffer.Buffer;
+
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Enumeration;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Where uploaded documents are kept. Objects are written once under a key that is never reused and are
+ * immutable afterwards. The backend is picked at runtime by {@code storage.backend}: {@code minio} (the
+ * default), {@code filesystem} or {@code memory}.
+ */
+public interface DocumentStore {
+
+    record StoredObject(String key, Instant lastModified) {
+    }
+
+    record PresignedUrl(String url, Instant expiresAt) {
+    }
+
+    record ObjectInfo(long size, String contentType) {
+    }
+
+    record Source(String key, long size) {
+    }
+
+    /**
+     * Stores the stream under {@code objectKey}. With {@code size} -1 the length is unknown. The stream may be
+     * read on the calling thread.
+     */
+    Uni<Void> put(String objectKey, InputStream content, long size, String contentType);
+
+    /**
+     * Stores the concatenation of the sources under {@code objectKey}; the sources are left in place. This
+     * default copies the bytes through this service, one source open at a time.
+     */
+    default Uni<Void> compose(String objectKey, List<Source> sources, String contentType) {
+        return Uni.createFrom().deferred(() -> {
+            Iterator<Source> remaining = sources.iterator();
+            InputStream content = new SequenceInputStream(new Enumeration<>() {
+                @Override
+                public boolean hasMoreElements() {
+                    return remaining.hasNext();
+                }
+
+                @Override
+                public InputStream nextElement() {
+                    return open(remaining.next().key());
+                }
+            });
+            long size = sources.stream().mapToLong(Source::size).sum();
+            return put(objectKey, content, size, contentType)
+                    .onTermination().invoke(() -> Chunks.closeQuietly(content));
+        });
+    }
+
+    /**
+     * Emits the stored size and content type, or null if there is no such object.
+     */
+    Uni<ObjectInfo> stat(String objectKey);
+
+    /**
+     * Copies the object to {@code objectKey} with its content type and emits the copy's size and content type,
+     * or null if there is no source object. This default copies the bytes through this service.
+     */
+    default Uni<ObjectInfo> copy(String sourceKey, String objectKey) {
+        return stat(sourceKey).chain(source -> source == null
+                ? Uni.createFrom().nullItem()
+                : compose(objectKey, List.of(new Source(sourceKey, source.size())), source.contentType())
+                        .chain(() -> stat(objectKey)));
+    }
+
+    /**
+     * Streams {@code length} bytes starting at {@code offset}, or the rest of the object when {@code length} is
+     * -1. Chunks are read on demand; the underlying resource is released when the stream terminates.
+     */
+    Multi<Buffer> read(String objectKey, long offset, long length);
+
+    /**
+     * Opens the whole object as a blocking stream.
+     */
+    InputStream open(String objectKey);
+
+    /**
+     * Deletes the object; deleting a missing object succeeds.
+     */
+    Uni<Void> delete(String objectKey);
+
+    /**
+     * Deletes the objects and returns the keys that could not be deleted.
+     */
+    Set<String> deleteAll(Collection<String> objectKeys);
+
+    /**
+     * Passes every object whose key starts with {@code prefix} to {@code consumer}.
+     */
+    void list(String prefix, Consumer<StoredObject> consumer);
+
+    /**
+     * True when reads never leave this host, so a local copy would gain nothing.
+     */
+    default boolean isLocal() {
+        return false;
+    }
+
+    /**
+     * The file holding the object, for backends that keep one, so it can be sent with {@code sendfile}.
+     */
+    default Optional<Path> localPath(String objectKey) {
+        return Optional.empty();
+    }
+}
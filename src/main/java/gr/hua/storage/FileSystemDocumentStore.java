@@ -0,0 +1,336 @@
+package gr.hua.storage;
+
+import io.quarkus.arc.lookup.LookupIfProperty;
+import io.quarkus.logging.Log;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import io.vertx.core.buffer.Buffer;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Objects as files under {@code storage.filesystem.root}. Downloads are served from the file with
+ * {@code sendfile} through {@link #localPath}, so the bytes never enter the JVM.
+ * <p>
+ * An object lives at {@code objects/<k>/<h>/<sha256>}, where {@code <k>} is the first two characters of the
+ * key (keys start with a random UUID) and {@code <h>} the first two hex digits of the SHA-256 of the key, which
+ * also names the file. The first level lets {@link #list} read only the directories a prefix can match; both
+ * keep directories small. Beside each object a {@code .meta} file holds its content type and key.
+ * <p>
+ * Writes go to {@code tmp/} through a {@link FileChannel}, are forced to disk, and are renamed into place:
+ * metadata first, then the object. An object file under its final name is therefore always complete.
+ */
+@ApplicationScoped
+@LookupIfProperty(name = "storage.backend", stringValue = "filesystem")
+public class FileSystemDocumentStore implements DocumentStore {
+
+    private static final String META_SUFFIX = ".meta";
+    private static final String OTHER_SHARD = "_";
+    private static final long TRANSFER_SIZE = 1024 * 1024;
+    // temporary files this old belong to no write still in progress, on this node or one sharing the root
+    private static final Duration STALE_TEMP_AGE = Duration.ofDays(1);
+
+    @ConfigProperty(name = "storage.filesystem.root", defaultValue = "data/documents")
+    Path root;
+
+    private Path objects;
+    private Path tmp;
+
+    @PostConstruct
+    void init() {
+        objects = root.resolve("objects");
+        tmp = root.resolve("tmp");
+        try {
+            Files.createDirectories(objects);
+            Files.createDirectories(tmp);
+            Instant cutoff = Instant.now().minus(STALE_TEMP_AGE);
+            try (Stream<Path> stale = Files.list(tmp)) {
+                stale.filter(path -> lastModified(path).isBefore(cutoff)).forEach(FileSystemDocumentStore::deleteQuietly);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot prepare document store in " + root, e);
+        }
+        Log.infof("Storing documents in %s", root.toAbsolutePath());
+    }
+
+    @Override
+    public boolean isLocal() {
+        return true;
+    }
+
+    @Override
+    public Optional<Path> localPath(String objectKey) {
+        Path path = path(objectKey);
+        return Files.isRegularFile(path) ? Optional.of(path) : Optional.empty();
+    }
+
+    @Override
+    public Uni<Void> put(String objectKey, InputStream content, long size, String contentType) {
+        return Uni.createFrom().item(() -> {
+            write(objectKey, content, size, contentType);
+            return null;
+        });
+    }
+
+    /**
+     * Concatenates the source files with {@code transferTo}, which the kernel can do without copying the bytes
+     * through this process.
+     */
+    @Override
+    public Uni<Void> compose(String objectKey, List<Source> sources, String contentType) {
+        return Uni.createFrom().item(() -> {
+            commit(objectKey, contentType, out -> {
+                for (Source source : sources) {
+                    try (FileChannel in = FileChannel.open(path(source.key()), StandardOpenOption.READ)) {
+                        long size = in.size();
+                        for (long position = 0; position < size; ) {
+                            position += in.transferTo(position, size - position, out);
+                        }
+                    }
+                }
+            });
+            return null;
+        });
+    }
+
+    @FunctionalInterface
+    private interface Filler {
+        void fill(FileChannel out) throws IOException;
+    }
+
+    private void write(String objectKey, InputStream content, long size, String contentType) {
+        commit(objectKey, contentType, out -> {
+            long written = 0;
+            try (ReadableByteChannel in = Channels.newChannel(content)) {
+                for (long n; (n = out.transferFrom(in, written, TRANSFER_SIZE)) > 0; ) {
+                    written += n;
+                }
+            }
+            if (size >= 0 && written != size) {
+                throw new IOException("Expected " + size + " bytes but received " + written);
+            }
+        });
+    }
+
+    private void commit(String objectKey, String contentType, Filler filler) {
+        Path target = path(objectKey);
+        Path data = null;
+        Path meta = null;
+        try {
+            data = Files.createTempFile(tmp, null, ".part");
+            try (FileChannel out = FileChannel.open(data, StandardOpenOption.WRITE)) {
+                filler.fill(out);
+                out.force(true);
+            }
+            meta = Files.createTempFile(tmp, null, META_SUFFIX);
+            try (FileChannel out = FileChannel.open(meta, StandardOpenOption.WRITE)) {
+                out.write(StandardCharsets.UTF_8.encode(contentType + "\n" + objectKey));
+                out.force(true);
+            }
+            Files.createDirectories(target.getParent());
+            Files.move(meta, metaPath(target), StandardCopyOption.ATOMIC_MOVE);
+            Files.move(data, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            deleteQuietly(data);
+            deleteQuietly(meta);
+            throw new UncheckedIOException("Failed to store file " + objectKey, e);
+        }
+    }
+
+    @Override
+    public Uni<ObjectInfo> stat(String objectKey) {
+        return Uni.createFrom().item(() -> {
+            Path path = path(objectKey);
+            try {
+                long size = Files.size(path);
+                return new ObjectInfo(size, readMeta(metaPath(path))[1]);
+            } catch (NoSuchFileException e) {
+                return null;
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to read file metadata for " + objectKey, e);
+            }
+        });
+    }
+
+    @Override
+    public Multi<Buffer> read(String objectKey, long offset, long length) {
+        return Multi.createFrom().deferred(() -> {
+            try {
+                FileChannel channel = FileChannel.open(path(objectKey), StandardOpenOption.READ).position(offset);
+                return Chunks.of(Channels.newInputStream(channel), length, "Failed to read stored file " + objectKey);
+            } catch (IOException e) {
+                return Multi.createFrom().failure(new UncheckedIOException("Failed to read stored file " + objectKey, e));
+            }
+        });
+    }
+
+    @Override
+    public InputStream open(String objectKey) {
+        try {
+            return Files.newInputStream(path(objectKey));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read stored file " + objectKey, e);
+        }
+    }
+
+    @Override
+    public Uni<Void> delete(String objectKey) {
+        return Uni.createFrom().item(() -> {
+            try {
+                remove(objectKey);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to delete stored file " + objectKey, e);
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public Set<String> deleteAll(Collection<String> objectKeys) {
+        Set<String> failed = new HashSet<>();
+        for (String objectKey : objectKeys) {
+            try {
+                remove(objectKey);
+            } catch (IOException e) {
+                Log.warnf(e, "Failed to delete stored file %s", objectKey);
+                failed.add(objectKey);
+            }
+        }
+        return failed;
+    }
+
+    private void remove(String objectKey) throws IOException {
+        Path path = path(objectKey);
+        Files.deleteIfExists(path);
+        Files.deleteIfExists(metaPath(path));
+    }
+
+    /**
+     * Reads the metadata of every object in the first-level directories the prefix can match. A metadata file
+     * without its object belongs to a write in progress and is skipped.
+     */
+    @Override
+    public void list(String prefix, Consumer<StoredObject> consumer) {
+        String shardPrefix = prefix.substring(0, Math.min(2, prefix.length()));
+        try {
+            for (Path shard : children(objects)) {
+                String name = shard.getFileName().toString();
+                if (!name.startsWith(shardPrefix) && !name.equals(OTHER_SHARD)) {
+                    continue;
+                }
+                for (Path bucket : children(shard)) {
+                    for (Path file : children(bucket)) {
+                        String fileName = file.getFileName().toString();
+                        if (!fileName.endsWith(META_SUFFIX)) {
+                            continue;
+                        }
+                        Path data = file.resolveSibling(fileName.substring(0, fileName.length() - META_SUFFIX.length()));
+                        try {
+                            String key = readMeta(file)[0];
+                            if (key.startsWith(prefix)) {
+                                consumer.accept(new StoredObject(key, Files.getLastModifiedTime(data).toInstant()));
+                            }
+                        } catch (NoSuchFileException e) {
+                            // written or deleted concurrently
+                        }
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to list stored files", e);
+        }
+    }
+
+    private static List<Path> children(Path directory) throws IOException {
+        List<Path> children = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+            stream.forEach(children::add);
+        }
+        return children;
+    }
+
+    Path path(String objectKey) {
+        String digest = sha256(objectKey);
+        return objects.resolve(shard(objectKey)).resolve(digest.substring(0, 2)).resolve(digest);
+    }
+
+    private static String shard(String objectKey) {
+        if (objectKey.length() < 2) {
+            return OTHER_SHARD;
+        }
+        for (int i = 0; i < 2; i++) {
+            char c = objectKey.charAt(i);
+            if (!(c >= '0' && c <= '9') && !(c >= 'a' && c <= 'z')) {
+                return OTHER_SHARD;
+            }
+        }
+        return objectKey.substring(0, 2);
+    }
+
+    private static Path metaPath(Path data) {
+        return data.resolveSibling(data.getFileName() + META_SUFFIX);
+    }
+
+    // {key, content type}; the content type comes first since it cannot contain a line break
+    private static String[] readMeta(Path meta) throws IOException {
+        String text = Files.readString(meta, StandardCharsets.UTF_8);
+        int newline = text.indexOf('\n');
+        return new String[]{text.substring(newline + 1), text.substring(0, newline)};
+    }
+
+    private static String sha256(String objectKey) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(objectKey.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Instant lastModified(Path path) {
+        try {
+            return Files.getLastModifiedTime(path).toInstant();
+        } catch (IOException e) {
+            return Instant.now();
+        }
+    }
+
+    private static void deleteQuietly(Path path) {
+        if (path == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            Log.debugf(e, "Could not delete %s", path);
+        }
+    }
+}
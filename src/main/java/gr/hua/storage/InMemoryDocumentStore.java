@@ -0,0 +1,105 @@
+package gr.hua.storage;
+
+import io.quarkus.arc.lookup.LookupIfProperty;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import io.vertx.core.buffer.Buffer;
+import jakarta.enterprise.context.ApplicationScoped;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Objects on the heap, lost on restart. For development and tests; every object costs its full size in memory.
+ */
+@ApplicationScoped
+@LookupIfProperty(name = "storage.backend", stringValue = "memory")
+public class InMemoryDocumentStore implements DocumentStore {
+
+    private record Entry(byte[] content, String contentType, Instant created) {
+    }
+
+    private final Map<String, Entry> objects = new ConcurrentHashMap<>();
+
+    @Override
+    public boolean isLocal() {
+        return true;
+    }
+
+    @Override
+    public Uni<Void> put(String objectKey, InputStream content, long size, String contentType) {
+        return Uni.createFrom().item(() -> {
+            try {
+                byte[] bytes = content.readAllBytes();
+                if (size >= 0 && bytes.length != size) {
+                    throw new IOException("Expected " + size + " bytes but received " + bytes.length);
+                }
+                objects.put(objectKey, new Entry(bytes, contentType, Instant.now()));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to store file " + objectKey, e);
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public Uni<ObjectInfo> stat(String objectKey) {
+        return Uni.createFrom().item(() -> {
+            Entry entry = objects.get(objectKey);
+            return entry == null ? null : new ObjectInfo(entry.content().length, entry.contentType());
+        });
+    }
+
+    @Override
+    public Multi<Buffer> read(String objectKey, long offset, long length) {
+        return Multi.createFrom().deferred(() -> {
+            Entry entry = objects.get(objectKey);
+            if (entry == null) {
+                return Multi.createFrom().failure(new IllegalStateException("No stored file " + objectKey));
+            }
+            int start = (int) Math.min(offset, entry.content().length);
+            int end = length < 0 ? entry.content().length : (int) Math.min(entry.content().length, start + length);
+            return Chunks.of(new ByteArrayInputStream(entry.content(), start, end - start), -1, "Failed to read stored file " + objectKey);
+        });
+    }
+
+    @Override
+    public InputStream open(String objectKey) {
+        Entry entry = objects.get(objectKey);
+        if (entry == null) {
+            throw new IllegalStateException("No stored file " + objectKey);
+        }
+        return new ByteArrayInputStream(entry.content());
+    }
+
+    @Override
+    public Uni<Void> delete(String objectKey) {
+        return Uni.createFrom().item(() -> {
+            objects.remove(objectKey);
+            return null;
+        });
+    }
+
+    @Override
+    public Set<String> deleteAll(Collection<String> objectKeys) {
+        objectKeys.forEach(objects::remove);
+        return Set.of();
+    }
+
+    @Override
+    public void list(String prefix, Consumer<StoredObject> consumer) {
+        objects.forEach((key, entry) -> {
+            if (key.startsWith(prefix)) {
+                consumer.accept(new StoredObject(key, entry.created()));
+            }
+        });
+    }
+}
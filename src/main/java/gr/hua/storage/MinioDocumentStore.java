@@ -0,0 +1,340 @@
+package gr.hua.storage;
+
+import io.minio.*;
+import io.minio.errors.ErrorResponseException;
+import io.minio.http.Method;
+import io.minio.messages.DeleteError;
+import io.minio.messages.DeleteObject;
+import io.minio.messages.Item;
+import io.quarkus.arc.lookup.LookupIfProperty;
+import io.quarkus.logging.Log;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import io.vertx.core.buffer.Buffer;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.io.InputStream;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Objects in a MinIO (or other S3) bucket, reached through the non-blocking {@link MinioAsyncClient}. The
+ * bucket is created on first use if it does not exist.
+ */
+@ApplicationScoped
+@LookupIfProperty(name = "storage.backend", stringValue = "minio", lookupIfMissing = true)
+public class MinioDocumentStore implements PresigningDocumentStore {
+
+    /** Smallest part S3 accepts in a multipart upload; also the buffer MinIO fills per part. */
+    static final long MULTIPART_PART_SIZE = 5L * 1024 * 1024;
+
+    /** Most parts an S3 multipart upload, and so a compose, can have. */
+    static final int MAX_COMPOSE_SOURCES = 10_000;
+
+    @ConfigProperty(name = "minio.url")
+    String minioUrl;
+
+    @ConfigProperty(name = "minio.access-key")
+    String accessKey;
+
+    @ConfigProperty(name = "minio.secret-key")
+    String secretKey;
+
+    @ConfigProperty(name = "minio.bucket")
+    String bucket;
+
+    /** Endpoint clients reach storage at, when it differs from {@code minio.url}; presigned URLs are signed for it. */
+    @ConfigProperty(name = "minio.public-url")
+    Optional<String> publicUrl;
+
+    /** Bucket region; when set, presigning needs no round trip to look it up. */
+    @ConfigProperty(name = "minio.region")
+    Optional<String> region;
+
+    private volatile MinioAsyncClient minioClient;
+    private volatile MinioAsyncClient presignClient;
+    private volatile CompletableFuture<MinioAsyncClient> ready;
+
+    /**
+     * The client, once the bucket is known to exist. A failed bucket check is retried by the next call.
+     */
+    private CompletableFuture<MinioAsyncClient> client() {
+        CompletableFuture<MinioAsyncClient> current = ready;
+        if (current != null && !current.isCompletedExceptionally()) {
+            return current;
+        }
+        synchronized (this) {
+            if (ready == null || ready.isCompletedExceptionally()) {
+                if (minioClient == null) {
+                    minioClient = buildClient(minioUrl);
+                }
+                ready = call(() -> minioClient.bucketExists(BucketExistsArgs.builder().bucket(bucket).build()))
+                        .thenCompose(exists -> exists
+                                ? CompletableFuture.completedFuture(minioClient)
+                                : call(() -> minioClient.makeBucket(MakeBucketArgs.builder().bucket(bucket).build()))
+                                        .thenApply(ignored -> {
+                                            Log.infof("Created MinIO bucket: %s", bucket);
+                                            return minioClient;
+                                        }));
+            }
+            return ready;
+        }
+    }
+
+    private MinioAsyncClient buildClient(String endpoint) {
+        MinioAsyncClient.Builder builder = MinioAsyncClient.builder()
+                .endpoint(endpoint)
+                .credentials(accessKey, secretKey);
+        region.ifPresent(builder::region);
+        return builder.build();
+    }
+
+    @FunctionalInterface
+    private interface MinioCall<T> {
+        CompletableFuture<T> start() throws Exception;
+    }
+
+    // MinioAsyncClient throws checked exceptions while building a request and fails the future for the rest
+    private static <T> CompletableFuture<T> call(MinioCall<T> call) {
+        try {
+            return call.start();
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        while (error instanceof CompletionException && error.getCause() != null) {
+            error = error.getCause();
+        }
+        return error;
+    }
+
+    /**
+     * Signing is local unless the bucket region must be looked up. A PUT waits for the bucket, since the
+     * client will write to it without going through this service.
+     */
+    @Override
+    public PresignedUrl presign(String method, String objectKey, Duration expiry, Map<String, String> queryParams) {
+        Method httpMethod = Method.valueOf(method);
+        if (httpMethod == Method.PUT) {
+            client().join();
+        }
+        if (presignClient == null) {
+            synchronized (this) {
+                if (presignClient == null) {
+                    presignClient = buildClient(publicUrl.orElse(minioUrl));
+                }
+            }
+        }
+        Instant expiresAt = Instant.now().plus(expiry);
+        try {
+            String url = presignClient.getPresignedObjectUrl(
+                    GetPresignedObjectUrlArgs.builder()
+                            .method(httpMethod)
+                            .bucket(bucket)
+                            .object(objectKey)
+                            .expiry((int) expiry.toSeconds())
+                            .extraQueryParams(queryParams)
+                            .build()
+            );
+            return new PresignedUrl(url, expiresAt);
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to presign MinIO " + method + " request", e);
+        }
+    }
+
+    /**
+     * With {@code size} -1 the object is sent as a multipart upload, one {@link #MULTIPART_PART_SIZE} part at
+     * a time.
+     */
+    @Override
+    public Uni<Void> put(String objectKey, InputStream content, long size, String contentType) {
+        return Uni.createFrom().completionStage(() -> client().thenCompose(client -> call(() -> client.putObject(
+                        PutObjectArgs.builder()
+                                .bucket(bucket)
+                                .object(objectKey)
+                                .stream(content, size, size < 0 ? MULTIPART_PART_SIZE : -1)
+                                .contentType(contentType)
+                                .build()))))
+                .onFailure().transform(e -> new RuntimeException("Failed to upload file to MinIO", unwrap(e)))
+                .replaceWithVoid();
+    }
+
+    /**
+     * Composes on the server, without the bytes passing through this service, when every source but the last
+     * is at least {@link #MULTIPART_PART_SIZE}; S3 rejects smaller parts, so other sources are copied through.
+     */
+    @Override
+    public Uni<Void> compose(String objectKey, List<Source> sources, String contentType) {
+        boolean composable = !sources.isEmpty() && sources.size() <= MAX_COMPOSE_SOURCES
+                && sources.subList(0, sources.size() - 1).stream().allMatch(source -> source.size() >= MULTIPART_PART_SIZE);
+        if (!composable) {
+            return PresigningDocumentStore.super.compose(objectKey, sources, contentType);
+        }
+        return Uni.createFrom().completionStage(() -> client().thenCompose(client -> call(() -> client.composeObject(
+                        ComposeObjectArgs.builder()
+                                .bucket(bucket)
+                                .object(objectKey)
+                                .sources(sources.stream()
+                                        .map(source -> ComposeSource.builder().bucket(bucket).object(source.key()).build())
+                                        .toList())
+                                .headers(Map.of("Content-Type", contentType))
+                                .build()))))
+                .onFailure().transform(e -> new RuntimeException("Failed to compose file in MinIO", unwrap(e)))
+                .replaceWithVoid();
+    }
+
+    @Override
+    public Multi<Buffer> read(String objectKey, long offset, long length) {
+        return Uni.createFrom().<GetObjectResponse>emitter(emitter -> {
+                    // a response that arrives after the download was cancelled has to be closed here
+                    AtomicBoolean terminated = new AtomicBoolean();
+                    emitter.onTermination(() -> terminated.set(true));
+                    client().thenCompose(client -> call(() -> client.getObject(getObjectArgs(objectKey, offset, length))))
+                            .whenComplete((response, error) -> {
+                                if (error != null) {
+                                    emitter.fail(new RuntimeException("Failed to download file from MinIO", unwrap(error)));
+                                } else if (terminated.get()) {
+                                    Chunks.closeQuietly(response);
+                                } else {
+                                    emitter.complete(response);
+                                }
+                            });
+                })
+                .onItem().transformToMulti(response -> Chunks.of(response, -1, "Failed to download file from MinIO"));
+    }
+
+    @Override
+    public InputStream open(String objectKey) {
+        return Uni.createFrom().<InputStream>completionStage(() -> client()
+                        .thenCompose(client -> call(() -> client.getObject(getObjectArgs(objectKey, 0, -1)))))
+                .onFailure().transform(e -> new RuntimeException("Failed to download file from MinIO", unwrap(e)))
+                .await().indefinitely();
+    }
+
+    private GetObjectArgs getObjectArgs(String objectKey, long offset, long length) {
+        GetObjectArgs.Builder args = GetObjectArgs.builder()
+                .bucket(bucket)
+                .object(objectKey);
+        if (offset > 0 || length >= 0) {
+            args.offset(offset);
+        }
+        if (length >= 0) {
+            args.length(length);
+        }
+        return args.build();
+    }
+
+    @Override
+    public Uni<ObjectInfo> stat(String objectKey) {
+        return Uni.createFrom().completionStage(() -> client()
+                        .thenCompose(client -> call(() -> client.statObject(
+                                StatObjectArgs.builder()
+                                        .bucket(bucket)
+                                        .object(objectKey)
+                                        .build())))
+                        .thenApply(stat -> new ObjectInfo(stat.size(), stat.contentType()))
+                        .exceptionally(error -> {
+                            if (unwrap(error) instanceof ErrorResponseException e && "NoSuchKey".equals(e.errorResponse().code())) {
+                                return null;
+                            }
+                            throw new CompletionException(error);
+                        }))
+                .onFailure().transform(e -> new RuntimeException("Failed to read file metadata from MinIO", unwrap(e)));
+    }
+
+    /**
+     * Copies on the server; the copy keeps the source's content type.
+     */
+    @Override
+    public Uni<ObjectInfo> copy(String sourceKey, String objectKey) {
+        return Uni.createFrom().completionStage(() -> client()
+                        .thenCompose(client -> call(() -> client.copyObject(
+                                CopyObjectArgs.builder()
+                                        .bucket(bucket)
+                                        .object(objectKey)
+                                        .source(CopySource.builder().bucket(bucket).object(sourceKey).build())
+                                        .build())))
+                        .thenApply(response -> true)
+                        .exceptionally(error -> {
+                            if (unwrap(error) instanceof ErrorResponseException e && "NoSuchKey".equals(e.errorResponse().code())) {
+                                return false;
+                            }
+                            throw new CompletionException(error);
+                        }))
+                .onFailure().transform(e -> new RuntimeException("Failed to copy file in MinIO", unwrap(e)))
+                .chain(copied -> copied ? stat(objectKey) : Uni.createFrom().nullItem());
+    }
+
+    @Override
+    public Uni<Void> delete(String objectKey) {
+        return Uni.createFrom().completionStage(() -> client()
+                        .thenCompose(client -> call(() -> client.removeObject(
+                                RemoveObjectArgs.builder()
+                                        .bucket(bucket)
+                                        .object(objectKey)
+                                        .build()))))
+                .onFailure().transform(e -> new RuntimeException("Failed to delete file from MinIO", unwrap(e)));
+    }
+
+    /**
+     * One batch request per call; S3 accepts up to 1000 keys.
+     */
+    @Override
+    public Set<String> deleteAll(Collection<String> objectKeys) {
+        Set<String> failed = new HashSet<>();
+        try {
+            Iterable<Result<DeleteError>> results = client().join().removeObjects(
+                    RemoveObjectsArgs.builder()
+                            .bucket(bucket)
+                            .objects(objectKeys.stream().map(DeleteObject::new).toList())
+                            .build()
+            );
+            // The request is only sent once the results are iterated
+            for (Result<DeleteError> result : results) {
+                DeleteError error = result.get();
+                Log.warnf("Failed to delete %s from MinIO: %s", error.objectName(), error.message());
+                failed.add(error.objectName());
+            }
+            return failed;
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to delete files from MinIO", unwrap(e));
+        }
+    }
+
+    /**
+     * Lists one page at a time.
+     */
+    @Override
+    public void list(String prefix, Consumer<StoredObject> consumer) {
+        try {
+            Iterable<Result<Item>> results = client().join().listObjects(
+                    ListObjectsArgs.builder()
+                            .bucket(bucket)
+                            .prefix(prefix)
+                            .recursive(true)
+                            .build()
+            );
+            for (Result<Item> result : results) {
+                Item item = result.get();
+                if (!item.isDir()) {
+                    consumer.accept(new StoredObject(item.objectName(), item.lastModified().toInstant()));
+                }
+            }
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to list files in MinIO", unwrap(e));
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package gr.hua.storage;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * A {@link DocumentStore} that can sign requests clients make against it directly, so downloads and uploads
+ * need not pass through this service.
+ */
+public interface PresigningDocumentStore extends DocumentStore {
+
+    /**
+     * Signs a {@code method} request for the object that is valid for {@code expiry}, with the extra query
+     * parameters included in the signature.
+     */
+    PresignedUrl presign(String method, String objectKey, Duration expiry, Map<String, String> queryParams);
+}
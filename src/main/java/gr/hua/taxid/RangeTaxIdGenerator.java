@@ -0,0 +1,76 @@
+package gr.hua.taxid;
+
+import io.quarkus.arc.DefaultBean;
+import io.quarkus.logging.Log;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Hands out tax ids from a block reserved in bulk from {@code taxid_seq}; the sequence's
+ * increment is the block size. Issuing an id is a single atomic increment with no database
+ * round trip and no coordination between nodes, because every block belongs to exactly one
+ * node. Only the thread that finds the block exhausted reserves the next one.
+ * <p>
+ * Ids left in a block when the node stops are never issued, so the sequence has gaps.
+ */
+@DefaultBean
+@ApplicationScoped
+public class RangeTaxIdGenerator implements TaxIdGenerator {
+
+    private static final String RESERVE_SQL = """
+            select nextval('taxid_seq'),
+                   (select increment_by from pg_sequences
+                    where schemaname = current_schema() and sequencename = 'taxid_seq')
+            """;
+
+    @Inject
+    EntityManager entityManager;
+
+    private final AtomicReference<Range> range = new AtomicReference<>(new Range(0, 0));
+    private final ReentrantLock refill = new ReentrantLock();
+
+    @Override
+    public String next() {
+        while (true) {
+            Range current = range.get();
+            long body = current.next.getAndIncrement();
+            if (body < current.end) {
+                return TaxIdFormat.format(body);
+            }
+            refill.lock();
+            try {
+                if (range.get() == current) {
+                    range.set(reserve());
+                }
+            } finally {
+                refill.unlock();
+            }
+        }
+    }
+
+    private Range reserve() {
+        // own transaction: the block stays reserved even if the caller rolls back
+        Object[] row = QuarkusTransaction.requiringNew()
+                .call(() -> (Object[]) entityManager.createNativeQuery(RESERVE_SQL).getSingleResult());
+        long start = ((Number) row[0]).longValue();
+        long end = Math.min(start + ((Number) row[1]).longValue(), TaxIdFormat.MAX_BODY + 1);
+        Log.debugf("Reserved tax id block [%d, %d)", start, end);
+        return new Range(start, end);
+    }
+
+    private static final class Range {
+        final AtomicLong next;
+        final long end;
+
+        Range(long start, long end) {
+            this.next = new AtomicLong(start);
+            this.end = end;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package gr.hua.taxid;
+
+/**
+ * Nine-digit tax ids: an eight-digit body followed by a check digit computed like the
+ * Greek AFM (digits weighted by descending powers of two, mod 11, mod 10).
+ */
+public final class TaxIdFormat {
+
+    public static final int LENGTH = 9;
+    public static final long MIN_BODY = 10_000_000L;
+    public static final long MAX_BODY = 99_999_999L;
+
+    private TaxIdFormat() {
+    }
+
+    public static String format(long body) {
+        if (body < MIN_BODY || body > MAX_BODY) {
+            throw new IllegalArgumentException("Tax id body out of range: " + body);
+        }
+        return Long.toString(body) + checkDigit(body);
+    }
+
+    public static boolean isValid(String taxId) {
+        if (taxId == null || taxId.length() != LENGTH) {
+            return false;
+        }
+        long body = 0;
+        for (int i = 0; i < LENGTH; i++) {
+            char c = taxId.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+            if (i < LENGTH - 1) {
+                body = body * 10 + (c - '0');
+            }
+        }
+        return checkDigit(body) == taxId.charAt(LENGTH - 1) - '0';
+    }
+
+    /** Nine-digit ids as a number (leading zeros allowed), or -1 for anything else. */
+    public static long toNumber(String taxId) {
+        if (taxId == null || taxId.length() != LENGTH) {
+            return -1;
+        }
+        long number = 0;
+        for (int i = 0; i < LENGTH; i++) {
+            char c = taxId.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            number = number * 10 + (c - '0');
+        }
+        return number;
+    }
+
+    public static String fromNumber(long number) {
+        String digits = Long.toString(number);
+        return "0".repeat(LENGTH - digits.length()) + digits;
+    }
+
+    static int checkDigit(long body) {
+        long sum = 0;
+        int weight = 2;
+        for (long rest = body; rest > 0; rest /= 10, weight <<= 1) {
+            sum += (rest % 10) * weight;
+        }
+        return (int) (sum % 11 % 10);
+    }
+}
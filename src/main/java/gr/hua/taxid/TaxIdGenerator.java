@@ -0,0 +1,10 @@
+package gr.hua.taxid;
+
+/**
+ * Issues the tax id assigned to a company when its registration is accepted.
+ * Implementations must never return the same id twice, across all nodes.
+ */
+public interface TaxIdGenerator {
+
+    String next();
+}
@@ -0,0 +1,225 @@
+package gr.hua.taxid;
+
+import gr.hua.cache.CacheInvalidation;
+import gr.hua.cache.CacheRegion;
+import gr.hua.model.projection.IssuedTaxId;
+import gr.hua.repository.CompanyRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.logging.Log;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+/**
+ * In-memory index of every issued tax id, so verification never touches the database.
+ * <p>
+ * A Bloom filter answers most negatives. Positives are confirmed in a snapshot that keeps
+ * nine-digit ids as a sorted {@code long[]} with a parallel array of company names, plus a
+ * map for legacy ids of any other shape. Companies accepted after the snapshot was built
+ * arrive as {@link CacheRegion#COMPANY} invalidations, from this node or any other, and go
+ * into a small map until enough of them have collected to merge into a new snapshot.
+ * <p>
+ * All changes run one at a time on a single thread; lookups read one immutable snapshot
+ * reference and never block.
+ */
+@ApplicationScoped
+public class TaxIdIndex {
+
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+    private static final long MIN_CAPACITY = 1 << 20;
+
+    @ConfigProperty(name = "tax-id.index.merge-threshold", defaultValue = "10000")
+    int mergeThreshold;
+
+    @ConfigProperty(name = "tax-id.index.fetch-size", defaultValue = "5000")
+    int fetchSize;
+
+    @ConfigProperty(name = "tax-id.index.rebuild-timeout", defaultValue = "600")
+    int rebuildTimeout;
+
+    @Inject
+    CompanyRepository companyRepository;
+
+    @Inject
+    MeterRegistry meterRegistry;
+
+    private volatile Snapshot snapshot;
+    private volatile ExecutorService updates;
+
+    private record Snapshot(long[] ids, String[] names, Map<String, String> legacy,
+                            Map<String, String> recent, BloomFilter bloom) {
+
+        long size() {
+            return ids.length + legacy.size() + recent.size();
+        }
+    }
+
+    void onStart(@Observes StartupEvent event) {
+        Gauge.builder("taxid.index.size", this, index -> index.snapshot == null ? 0 : index.snapshot.size())
+                .register(meterRegistry);
+        updates = Executors.newSingleThreadExecutor(Thread.ofVirtual().name("tax-id-index").factory());
+        rebuild();
+    }
+
+    void onStop(@Observes ShutdownEvent event) {
+        if (updates != null) {
+            updates.shutdownNow();
+        }
+    }
+
+    void onInvalidation(@Observes CacheInvalidation event) {
+        if (event.region() != CacheRegion.COMPANY || updates == null) {
+            return;
+        }
+        if (event.isAll()) {
+            rebuild();
+            return;
+        }
+        List<Long> companyIds = event.keys().stream().map(Long::valueOf).toList();
+        updates.execute(() -> add(companyIds));
+    }
+
+    /** False until the first snapshot has loaded; lookups must not be trusted before then. */
+    public boolean isReady() {
+        return snapshot != null;
+    }
+
+    /**
+     * @return the name of the company holding {@code taxId}, or null if it was never issued
+     */
+    public String lookup(String taxId) {
+        Snapshot current = snapshot;
+        if (current == null || !current.bloom.mightContain(taxId)) {
+            return null;
+        }
+        long key = TaxIdFormat.toNumber(taxId);
+        if (key >= 0) {
+            int position = Arrays.binarySearch(current.ids, key);
+            if (position >= 0) {
+                return current.names[position];
+            }
+        } else {
+            String name = current.legacy.get(taxId);
+            if (name != null) {
+                return name;
+            }
+        }
+        return current.recent.get(taxId);
+    }
+
+    /** Schedules a full reload from the database. */
+    Future<?> rebuild() {
+        return updates.submit(() -> {
+            try {
+                long started = System.nanoTime();
+                snapshot = QuarkusTransaction.requiringNew().timeout(rebuildTimeout).call(this::load);
+                Log.infof("Tax id index loaded %d ids in %d ms", snapshot.size(), (System.nanoTime() - started) / 1_000_000);
+            } catch (RuntimeException e) {
+                Log.error("Tax id index rebuild failed", e);
+            }
+        });
+    }
+
+    private Snapshot load() {
+        long[] ids = new long[1024];
+        String[] names = new String[1024];
+        int count = 0;
+        Map<String, String> legacy = new HashMap<>();
+        try (Stream<IssuedTaxId> rows = companyRepository.streamIssuedTaxIds(fetchSize)) {
+            for (IssuedTaxId row : (Iterable<IssuedTaxId>) rows::iterator) {
+                long key = TaxIdFormat.toNumber(row.taxId());
+                if (key < 0) {
+                    legacy.put(row.taxId(), row.name());
+                    continue;
+                }
+                if (count == ids.length) {
+                    ids = Arrays.copyOf(ids, count * 2);
+                    names = Arrays.copyOf(names, count * 2);
+                }
+                ids[count] = key;
+                names[count] = row.name();
+                count++;
+            }
+        }
+        ids = Arrays.copyOf(ids, count);
+        names = Arrays.copyOf(names, count);
+        return withBloom(ids, names, legacy);
+    }
+
+    private void add(List<Long> companyIds) {
+        Snapshot current = snapshot;
+        if (current == null) {
+            return;  // the pending rebuild will see these companies
+        }
+        List<IssuedTaxId> issued = QuarkusTransaction.requiringNew().call(() -> companyRepository.findIssuedTaxIds(companyIds));
+        for (IssuedTaxId row : issued) {
+            if (lookup(row.taxId()) == null) {
+                // map first, then bloom: a reader that passes the filter must find the entry
+                current.recent.put(row.taxId(), row.name());
+                current.bloom.add(row.taxId());
+            }
+        }
+        if (current.recent.size() >= mergeThreshold || current.size() > current.bloom.capacity()) {
+            merge(current);
+        }
+    }
+
+    private void merge(Snapshot current) {
+        Map<String, String> legacy = new HashMap<>(current.legacy);
+        long[] added = new long[current.recent.size()];
+        int addedCount = 0;
+        for (String taxId : current.recent.keySet()) {
+            long key = TaxIdFormat.toNumber(taxId);
+            if (key < 0) {
+                legacy.put(taxId, current.recent.get(taxId));
+            } else {
+                added[addedCount++] = key;
+            }
+        }
+        Arrays.sort(added, 0, addedCount);
+
+        long[] ids = new long[current.ids.length + addedCount];
+        String[] names = new String[ids.length];
+        int i = 0;
+        int j = 0;
+        for (int k = 0; k < ids.length; k++) {
+            if (j == addedCount || (i < current.ids.length && current.ids[i] < added[j])) {
+                ids[k] = current.ids[i];
+                names[k] = current.names[i++];
+            } else {
+                ids[k] = added[j];
+                names[k] = current.recent.get(TaxIdFormat.fromNumber(added[j]));
+                j++;
+            }
+        }
+        long size = ids.length + legacy.size();
+        snapshot = size > current.bloom.capacity()
+                ? withBloom(ids, names, legacy)
+                : new Snapshot(ids, names, legacy, new ConcurrentHashMap<>(), current.bloom);
+    }
+
+    private static Snapshot withBloom(long[] ids, String[] names, Map<String, String> legacy) {
+        long size = ids.length + legacy.size();
+        BloomFilter bloom = new BloomFilter(Math.max(MIN_CAPACITY, size * 2), FALSE_POSITIVE_RATE);
+        for (long id : ids) {
+            bloom.add(TaxIdFormat.fromNumber(id));
+        }
+        legacy.keySet().forEach(bloom::add);
+        return new Snapshot(ids, names, legacy, new ConcurrentHashMap<>(), bloom);
+    }
+}
@@ -0,0 +1,20 @@
+package gr.hua.taxid;
+
+import io.quarkus.arc.properties.IfBuildProperty;
+import jakarta.enterprise.context.ApplicationScoped;
+
+import java.util.UUID;
+
+/**
+ * The original random-UUID tax ids, kept as a fallback. Enabled at build time with
+ * {@code tax-id.generator=uuid}.
+ */
+@ApplicationScoped
+@IfBuildProperty(name = "tax-id.generator", stringValue = "uuid")
+public class UuidTaxIdGenerator implements TaxIdGenerator {
+
+    @Override
+    public String next() {
+        return UUID.randomUUID().toString();
+    }
+}
@@ -0,0 +1,30 @@
+package gr.hua.upload;
+
+import jakarta.ws.rs.BadRequestException;
+import jakarta.ws.rs.core.MediaType;
+
+/**
+ * Checks content types declared by clients. They are stored with the object and sent back as the download's
+ * {@code Content-Type}, so anything that is not a single media type is rejected.
+ */
+public final class ContentTypes {
+
+    private ContentTypes() {
+    }
+
+    /**
+     * @return {@code value} unchanged
+     * @throws BadRequestException if it is not a media type or contains control characters such as CR or LF
+     */
+    public static String check(String value) {
+        if (value.chars().anyMatch(Character::isISOControl)) {
+            throw new BadRequestException("Invalid content type");
+        }
+        try {
+            MediaType.valueOf(value);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Invalid content type");
+        }
+        return value;
+    }
+}
@@ -0,0 +1,248 @@
+package gr.hua.upload;
+
+import jakarta.ws.rs.BadRequestException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+/**
+ * Pull parser for multipart/form-data bodies. Parts are read straight off the request stream one at a time,
+ * so their contents never touch the disk; whatever a caller leaves unread of a part is skipped by {@link #next()}.
+ */
+public class MultipartReader {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_HEADER_BYTES = 8 * 1024;
+    private static final String DEFAULT_FILE_CONTENT_TYPE = "application/octet-stream";
+
+    public record Part(String name, String filename, String contentType, InputStream content) {
+
+        public boolean isFile() {
+            return filename != null;
+        }
+    }
+
+    private final InputStream input;
+    private final byte[] delimiter;
+    private final byte[] buffer;
+    private int position;
+    private int limit;
+    private boolean eof;
+    private boolean finished;
+    private PartInputStream current;
+
+    public MultipartReader(InputStream input, String contentType) {
+        this.input = input;
+        this.delimiter = ("\r\n--" + boundary(contentType)).getBytes(StandardCharsets.ISO_8859_1);
+        this.buffer = new byte[BUFFER_SIZE + delimiter.length];
+        // The first delimiter has no leading CRLF; supplying one lets the preamble be skipped like a part
+        buffer[0] = '\r';
+        buffer[1] = '\n';
+        limit = 2;
+        current = new PartInputStream();
+    }
+
+    /**
+     * Advances to the next part, or returns null once the closing delimiter has been read.
+     */
+    public Part next() throws IOException {
+        if (finished) {
+            return null;
+        }
+        current.skipRemaining();
+
+        fill(2);
+        if (limit - position >= 2 && buffer[position] == '-' && buffer[position + 1] == '-') {
+            finished = true;
+            return null;
+        }
+        // Anything after the delimiter up to CRLF is transport padding
+        readLine(new int[]{MAX_HEADER_BYTES});
+
+        String name = null;
+        String filename = null;
+        String contentType = null;
+        int[] headerBudget = {MAX_HEADER_BYTES};
+        for (String line = readLine(headerBudget); !line.isEmpty(); line = readLine(headerBudget)) {
+            int colon = line.indexOf(':');
+            if (colon < 0) {
+                throw new BadRequestException("Malformed multipart header: " + line);
+            }
+            String header = line.substring(0, colon).trim().toLowerCase(Locale.ROOT);
+            String value = line.substring(colon + 1).trim();
+            if (header.equals("content-disposition")) {
+                name = parameter(value, "name");
+                filename = parameter(value, "filename");
+            } else if (header.equals("content-type")) {
+                contentType = value;
+            }
+        }
+        if (contentType == null && filename != null) {
+            contentType = DEFAULT_FILE_CONTENT_TYPE;
+        }
+
+        current = new PartInputStream();
+        return new Part(name, filename, contentType, current);
+    }
+
+    private static String boundary(String contentType) {
+        String boundary = contentType == null ? null : parameter(contentType, "boundary");
+        if (boundary == null || boundary.isEmpty() || boundary.length() > 70) {
+            throw new BadRequestException("multipart/form-data body without a valid boundary");
+        }
+        return boundary;
+    }
+
+    /**
+     * Reads a {@code key=value} or {@code key="value"} parameter from a header value such as Content-Disposition.
+     */
+    private static String parameter(String headerValue, String key) {
+        int i = headerValue.indexOf(';');
+        while (i >= 0 && i < headerValue.length()) {
+            int start = i + 1;
+            while (start < headerValue.length() && headerValue.charAt(start) == ' ') {
+                start++;
+            }
+            int equals = headerValue.indexOf('=', start);
+            if (equals < 0) {
+                return null;
+            }
+            String candidate = headerValue.substring(start, equals).trim();
+            int valueStart = equals + 1;
+            String value;
+            int end;
+            if (valueStart < headerValue.length() && headerValue.charAt(valueStart) == '"') {
+                StringBuilder quoted = new StringBuilder();
+                end = valueStart + 1;
+                while (end < headerValue.length() && headerValue.charAt(end) != '"') {
+                    char c = headerValue.charAt(end);
+                    if (c == '\\' && end + 1 < headerValue.length()) {
+                        c = headerValue.charAt(++end);
+                    }
+                    quoted.append(c);
+                    end++;
+                }
+                value = quoted.toString();
+                end = headerValue.indexOf(';', end);
+            } else {
+                end = headerValue.indexOf(';', valueStart);
+                value = (end < 0 ? headerValue.substring(valueStart) : headerValue.substring(valueStart, end)).trim();
+            }
+            if (candidate.equalsIgnoreCase(key)) {
+                return value;
+            }
+            i = end;
+        }
+        return null;
+    }
+
+    private String readLine(int[] budget) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        while (true) {
+            if (!fill(1)) {
+                throw new BadRequestException("Multipart body ended inside part headers");
+            }
+            byte b = buffer[position++];
+            if (--budget[0] < 0) {
+                throw new BadRequestException("Multipart part headers too large");
+            }
+            if (b == '\n') {
+                break;
+            }
+            line.write(b);
+        }
+        String value = line.toString(StandardCharsets.UTF_8);
+        return value.endsWith("\r") ? value.substring(0, value.length() - 1) : value;
+    }
+
+    /**
+     * Makes at least {@code min} bytes available unless the stream ends first; returns whether it succeeded.
+     */
+    private boolean fill(int min) throws IOException {
+        if (limit - position >= min) {
+            return true;
+        }
+        if (position > 0) {
+            System.arraycopy(buffer, position, buffer, 0, limit - position);
+            limit -= position;
+            position = 0;
+        }
+        while (limit < min && !eof) {
+            int read = input.read(buffer, limit, buffer.length - limit);
+            if (read < 0) {
+                eof = true;
+            } else {
+                limit += read;
+            }
+        }
+        return limit - position >= min;
+    }
+
+    private int indexOfDelimiter() {
+        int last = limit - delimiter.length;
+        outer:
+        for (int i = position; i <= last; i++) {
+            if (buffer[i] != '\r') {
+                continue;
+            }
+            for (int j = 1; j < delimiter.length; j++) {
+                if (buffer[i + j] != delimiter[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    private class PartInputStream extends InputStream {
+
+        private boolean done;
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            return read(single, 0, 1) < 0 ? -1 : single[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] target, int offset, int length) throws IOException {
+            if (done) {
+                return -1;
+            }
+            if (length == 0) {
+                return 0;
+            }
+            fill(delimiter.length);
+            int index = indexOfDelimiter();
+            int safe;
+            if (index >= 0) {
+                safe = index - position;
+            } else if (eof) {
+                throw new BadRequestException("Multipart body ended inside a part");
+            } else {
+                // The tail may hold the start of a delimiter split across reads
+                safe = limit - position - delimiter.length + 1;
+            }
+            if (safe == 0) {
+                position += delimiter.length;
+                done = true;
+                return -1;
+            }
+            int count = Math.min(length, safe);
+            System.arraycopy(buffer, position, target, offset, count);
+            position += count;
+            return count;
+        }
+
+        void skipRemaining() throws IOException {
+            byte[] scratch = new byte[BUFFER_SIZE];
+            while (read(scratch, 0, scratch.length) >= 0) {
+                // discard
+            }
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package gr.hua.upload;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Counts the bytes read through it and fails the read that would take the total past {@code maxBytes}.
+ */
+public class SizeLimitedInputStream extends FilterInputStream {
+
+    private final long maxBytes;
+    private long count;
+    private boolean exceeded;
+
+    public SizeLimitedInputStream(InputStream input, long maxBytes) {
+        super(input);
+        this.maxBytes = maxBytes;
+    }
+
+    public long count() {
+        return count;
+    }
+
+    public boolean isExceeded() {
+        return exceeded;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = super.read();
+        if (b >= 0) {
+            advance(1);
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] target, int offset, int length) throws IOException {
+        int read = super.read(target, offset, length);
+        if (read > 0) {
+            advance(read);
+        }
+        return read;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = super.skip(n);
+        advance(skipped);
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    private void advance(long bytes) throws IOException {
+        count += bytes;
+        if (count > maxBytes) {
+            exceeded = true;
+            throw new IOException("Upload exceeds " + maxBytes + " bytes");
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package gr.hua.upload;
+
+import jakarta.ws.rs.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The tus {@code Upload-Metadata} header: comma-separated pairs of a key and a Base64-encoded value, the value
+ * optional. Only {@code filename} and {@code filetype} are used; {@code filetype} has to be a media type.
+ */
+public record UploadMetadata(String filename, String contentType) {
+
+    private static final String DEFAULT_CONTENT_TYPE = "application/octet-stream";
+
+    public static UploadMetadata parse(String header) {
+        Map<String, String> values = new HashMap<>();
+        if (header != null && !header.isBlank()) {
+            for (String pair : header.split(",")) {
+                String[] parts = pair.trim().split(" ", 2);
+                if (parts[0].isEmpty() || values.containsKey(parts[0])) {
+                    throw new BadRequestException("Malformed Upload-Metadata");
+                }
+                values.put(parts[0], parts.length == 2 ? decode(parts[1].trim()) : "");
+            }
+        }
+
+        String filename = values.get("filename");
+        if (filename == null || filename.isBlank()) {
+            throw new BadRequestException("Upload-Metadata must include a filename");
+        }
+        String contentType = values.get("filetype");
+        return new UploadMetadata(filename, contentType == null || contentType.isBlank() ? DEFAULT_CONTENT_TYPE : ContentTypes.check(contentType));
+    }
+
+    private static String decode(String value) {
+        try {
+            return new String(Base64.getDecoder().decode(value), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Malformed Upload-Metadata value");
+        }
+    }
+}
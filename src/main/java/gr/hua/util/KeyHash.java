@@ -0,0 +1,27 @@
+package gr.hua.util;
+
+/**
+ * 64-bit hash of string keys, shared by the in-memory sets that store hashes instead of keys.
+ */
+public final class KeyHash {
+
+    private KeyHash() {
+    }
+
+    /**
+     * 64-bit FNV-1a over the key's chars, finished with the MurmurHash3 mixer to spread the bits.
+     */
+    public static long of(String key) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            hash ^= key.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
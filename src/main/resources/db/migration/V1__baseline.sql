@@ -0,0 +1,40 @@
+-- Baseline schema, matching what Hibernate generated for the entities before
+-- migrations took over. Existing databases are baselined at this version.
+
+create table KeycloakUser (
+    id bigint generated by default as identity,
+    keycloakId varchar(255) not null,
+    username varchar(255),
+    primary key (id),
+    constraint uk_keycloakuser_keycloakid unique (keycloakId)
+);
+
+create table Company (
+    id bigint generated by default as identity,
+    version bigint,
+    representative_id bigint,
+    name varchar(255),
+    email varchar(255),
+    taxId varchar(255),
+    state smallint check (state between 0 and 2),
+    timestamp timestamp(6),
+    goal varchar(255),
+    hq varchar(255),
+    executives varchar(255),
+    primary key (id),
+    constraint uk_company_email unique (email),
+    constraint uk_company_representative unique (representative_id),
+    constraint fk_company_representative foreign key (representative_id) references KeycloakUser
+);
+
+create table ArticleDocument (
+    id bigint generated by default as identity,
+    company_id bigint not null,
+    objectKey varchar(255) not null,
+    originalFilename varchar(255) not null,
+    contentType varchar(255) not null,
+    fileSize bigint,
+    uploadedAt timestamp(6) not null,
+    primary key (id),
+    constraint fk_articledocument_company foreign key (company_id) references Company
+);
@@ -0,0 +1,67 @@
+-- Indexes for the access paths the services actually use.
+-- Company.representative_id is already covered by uk_company_representative.
+
+-- Processing queue: keyset pages over pending registrations (state 0 = PENDING)
+create index if not exists idx_company_pending on Company (timestamp, id) where state = 0;
+
+-- Listings by any other state
+create index if not exists idx_company_state on Company (state);
+
+-- Issued tax ids are looked up and must never repeat; pending rows stay null
+create unique index if not exists uk_company_taxid on Company (taxId);
+
+-- Documents are always loaded per company
+create index if not exists idx_articledocument_company on ArticleDocument (company_id);
+
+-- Superseded by idx_company_pending
+drop index if exists idx_company_state_timestamp_id;
+
+-- Databases created by Hibernate before keycloakId was declared unique. Concurrent
+-- first logins may have left several rows per keycloakId: the oldest survives and
+-- takes over the company of any duplicate, then the duplicates are deleted.
+do $$
+begin
+    if not exists (
+        select 1
+        from pg_index i
+        join pg_attribute a on a.attrelid = i.indrelid and a.attnum = i.indkey[0]
+        where i.indrelid = 'keycloakuser'::regclass
+          and i.indisunique
+          and i.indnatts = 1
+          and a.attname = 'keycloakid'
+    ) then
+        if exists (
+            select 1
+            from KeycloakUser u
+            join Company c on c.representative_id = u.id
+            where u.keycloakId is not null
+            group by u.keycloakId
+            having count(*) > 1
+        ) then
+            raise exception 'Duplicate KeycloakUser rows represent different companies; merge them by hand before migrating';
+        end if;
+
+        create temporary table keycloakuser_duplicate as
+        select id, survivor
+        from (
+            select id, min(id) over (partition by keycloakId) as survivor
+            from KeycloakUser
+            where keycloakId is not null
+        ) ranked
+        where id <> survivor;
+
+        update Company c
+        set representative_id = d.survivor
+        from keycloakuser_duplicate d
+        where c.representative_id = d.id;
+
+        delete from KeycloakUser u
+        using keycloakuser_duplicate d
+        where u.id = d.id;
+
+        drop table keycloakuser_duplicate;
+
+        create unique index uk_keycloakuser_keycloakid on KeycloakUser (keycloakId);
+    end if;
+end
+$$;
@@ -0,0 +1,16 @@
+-- Move ids from identity columns to sequences so Hibernate can allocate them
+-- in blocks (pooled-lo optimizer) and batch inserts. Each sequence continues
+-- after the highest id already issued. The increment is the block size and must
+-- match the entities' allocation size (Hibernate's default of 50).
+
+create sequence if not exists keycloakuser_seq increment by 50;
+alter table KeycloakUser alter column id drop identity if exists;
+select setval('keycloakuser_seq', coalesce(max(id), 0) + 1, false) from KeycloakUser;
+
+create sequence if not exists company_seq increment by 50;
+alter table Company alter column id drop identity if exists;
+select setval('company_seq', coalesce(max(id), 0) + 1, false) from Company;
+
+create sequence if not exists articledocument_seq increment by 50;
+alter table ArticleDocument alter column id drop identity if exists;
+select setval('articledocument_seq', coalesce(max(id), 0) + 1, false) from ArticleDocument;
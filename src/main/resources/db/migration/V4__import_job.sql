@@ -0,0 +1,16 @@
+-- Checkpoints of bulk registration imports. committedRecords is the number
+-- of input records whose chunk has committed; a resumed import skips them.
+
+create sequence if not exists importjob_seq increment by 50;
+
+create table ImportJob (
+    id bigint not null,
+    format smallint not null check (format between 0 and 1),
+    committedRecords bigint not null,
+    imported bigint not null,
+    skipped bigint not null,
+    rejected bigint not null,
+    createdAt timestamp(6) not null,
+    updatedAt timestamp(6) not null,
+    primary key (id)
+);
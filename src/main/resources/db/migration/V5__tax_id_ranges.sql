@@ -0,0 +1,23 @@
+-- Tax ids are nine digits: an eight-digit body and a check digit. Nodes reserve
+-- bodies in blocks of the increment; nextval returns the first body of a block.
+create sequence if not exists taxid_seq
+    increment by 1000
+    minvalue 10000000
+    maxvalue 99999999
+    start with 10000000;
+
+-- Nine-digit ids are stored as a number; ids in any other format (the UUIDs issued
+-- so far) keep a text column of their own. A company holds at most one of the two.
+alter table Company add column taxNumber bigint;
+alter table Company rename column taxId to legacyTaxId;
+alter index if exists uk_company_taxid rename to uk_company_legacytaxid;
+update Company set taxNumber = legacyTaxId::bigint, legacyTaxId = null where legacyTaxId ~ '^[0-9]{9}$';
+alter table Company alter column legacyTaxId type varchar(36);
+
+-- Blocks are reserved past the largest body already held, so the generator cannot issue an existing id
+select setval('taxid_seq', max(taxNumber / 10))
+from Company
+where taxNumber / 10 between 10000000 and 99999999
+having count(*) > 0;
+alter table Company add constraint ck_company_single_taxid check (taxNumber is null or legacyTaxId is null);
+create unique index if not exists uk_company_taxnumber on Company (taxNumber);
@@ -0,0 +1,13 @@
+-- Outbox of MinIO objects whose ArticleDocument row has been deleted. Rows are
+-- written in the same transaction as the delete and removed by
+-- ObjectDeletionWorker once the object is gone from the bucket.
+
+create sequence if not exists objectdeletion_seq increment by 50;
+
+create table ObjectDeletion (
+    id bigint not null,
+    objectKey varchar(255) not null,
+    attempts integer not null,
+    createdAt timestamp(6) not null,
+    primary key (id)
+);
@@ -0,0 +1,20 @@
+-- Object keys handed out for direct-to-storage uploads that have not been
+-- committed yet. Commit turns a row into an ArticleDocument; rows never
+-- committed are removed by the storage reconciliation once stale.
+
+create sequence if not exists pendingupload_seq increment by 50;
+
+create table PendingUpload (
+    id bigint not null,
+    company_id bigint not null,
+    objectKey varchar(255) not null,
+    originalFilename varchar(255) not null,
+    contentType varchar(255) not null,
+    fileSize bigint not null,
+    expiresAt timestamp(6) not null,
+    primary key (id),
+    constraint uk_pendingupload_objectkey unique (objectKey),
+    constraint fk_pendingupload_company foreign key (company_id) references Company on delete cascade
+);
+
+create index idx_pendingupload_company on PendingUpload (company_id);
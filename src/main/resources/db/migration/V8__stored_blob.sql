@@ -0,0 +1,25 @@
+-- Uploaded content by SHA-256, so identical files are stored once. refCount
+-- counts the ArticleDocument rows (and uploads in flight) using the object;
+-- when it reaches zero the row is dropped and the object queued in
+-- ObjectDeletion. Documents stored before this table existed have no row and
+-- are deleted as before.
+
+create sequence if not exists storedblob_seq increment by 50;
+
+create table StoredBlob (
+    id bigint not null,
+    contentHash varchar(64) not null,
+    objectKey varchar(255) not null,
+    fileSize bigint not null,
+    refCount integer not null,
+    createdAt timestamp(6) not null,
+    acquiredAt timestamp(6) not null,
+    primary key (id),
+    constraint uk_storedblob_contenthash unique (contentHash),
+    constraint uk_storedblob_objectkey unique (objectKey)
+);
+
+create index idx_storedblob_unreferenced on StoredBlob (id) where refCount <= 0;
+
+-- Reference counts are released and recounted by object key
+create index if not exists idx_articledocument_objectkey on ArticleDocument (objectKey);
@@ -0,0 +1,41 @@
+-- Resumable (tus) uploads. A session collects the chunks of one file as
+-- separate objects, one UploadPart each, until uploadOffset reaches fileSize;
+-- the parts are then composed into one object and the session points at the
+-- ArticleDocument recorded for it. Sessions past expiresAt are deleted with
+-- their parts, whose objects are queued in ObjectDeletion.
+
+create sequence if not exists uploadsession_seq increment by 50;
+create sequence if not exists uploadpart_seq increment by 50;
+
+create table UploadSession (
+    id bigint not null,
+    token varchar(36) not null,
+    company_id bigint not null,
+    document_id bigint,
+    originalFilename varchar(255) not null,
+    contentType varchar(255) not null,
+    fileSize bigint not null,
+    uploadOffset bigint not null,
+    createdAt timestamp(6) not null,
+    expiresAt timestamp(6) not null,
+    primary key (id),
+    constraint uk_uploadsession_token unique (token),
+    constraint fk_uploadsession_company foreign key (company_id) references Company on delete cascade,
+    constraint fk_uploadsession_document foreign key (document_id) references ArticleDocument on delete cascade
+);
+
+create index idx_uploadsession_company on UploadSession (company_id);
+create index idx_uploadsession_expiresat on UploadSession (expiresAt);
+create index idx_uploadsession_document on UploadSession (document_id);
+
+create table UploadPart (
+    id bigint not null,
+    session_id bigint not null,
+    partOffset bigint not null,
+    size bigint not null,
+    objectKey varchar(255) not null,
+    primary key (id),
+    constraint uk_uploadpart_objectkey unique (objectKey),
+    constraint uk_uploadpart_offset unique (session_id, partOffset),
+    constraint fk_uploadpart_session foreign key (session_id) references UploadSession on delete cascade
+);
@@ -0,0 +1,111 @@
+package gr.hua.cache;
+
+import gr.hua.service.StorageService;
+import io.quarkus.arc.ClientProxy;
+import io.quarkus.runtime.configuration.MemorySize;
+import io.quarkus.test.InjectMock;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * The cache is disabled in the test profile; these tests switch it on against target/document-file-cache.
+ */
+@QuarkusTest
+@DisplayName("DocumentFileCache Tests")
+class DocumentFileCacheTest {
+
+    @Inject
+    DocumentFileCache documentFileCache;
+
+    @InjectMock
+    StorageService storageService;
+
+    private DocumentFileCache cache;
+    private MemorySize configuredMaxSize;
+
+    @BeforeEach
+    void setUp() {
+        cache = ClientProxy.unwrap(documentFileCache);
+        configuredMaxSize = cache.maxSize;
+        cache.enabled = true;
+        cache.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        cache.enabled = false;
+        cache.maxSize = configuredMaxSize;
+    }
+
+    private void givenObject(String objectKey, String content) {
+        when(storageService.downloadFile(objectKey))
+                .thenAnswer(invocation -> new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    @DisplayName("fill should copy the object to disk once and serve later gets locally")
+    void fill_shouldCacheObjectOnDisk() throws IOException {
+        // Arrange
+        givenObject("a/articles.pdf", "articles");
+
+        // Act
+        cache.fill("a/articles.pdf", 8);
+        cache.fill("a/articles.pdf", 8);
+        Path cached = cache.get("a/articles.pdf", 8);
+
+        // Assert
+        assertNotNull(cached);
+        assertEquals("articles", Files.readString(cached));
+        assertEquals(8, cache.size());
+        verify(storageService, times(1)).downloadFile("a/articles.pdf");
+    }
+
+    @Test
+    @DisplayName("fill should evict the least recently used objects once over the size cap")
+    void fill_overMaxSize_shouldEvictLeastRecentlyUsed() {
+        // Arrange
+        cache.maxSize = new MemorySize(BigInteger.valueOf(10));
+        givenObject("a/one.pdf", "1111");
+        givenObject("b/two.pdf", "2222");
+        givenObject("c/three.pdf", "3333");
+        cache.fill("a/one.pdf", 4);
+        cache.fill("b/two.pdf", 4);
+
+        // Act: touching one.pdf leaves two.pdf as the eldest entry
+        assertNotNull(cache.get("a/one.pdf", 4));
+        cache.fill("c/three.pdf", 4);
+
+        // Assert
+        assertTrue(cache.contains("a/one.pdf"));
+        assertFalse(cache.contains("b/two.pdf"));
+        assertTrue(cache.contains("c/three.pdf"));
+        assertEquals(8, cache.size());
+    }
+
+    @Test
+    @DisplayName("fill should not cache an object whose stored size differs from the expected one")
+    void fill_withSizeMismatch_shouldNotCache() {
+        // Arrange
+        givenObject("d/short.pdf", "abc");
+
+        // Act & Assert
+        assertThrows(UncheckedIOException.class, () -> cache.fill("d/short.pdf", 10));
+        assertFalse(cache.contains("d/short.pdf"));
+        assertEquals(0, cache.size());
+    }
+}
@@ -0,0 +1,105 @@
+package gr.hua.cache;
+
+import gr.hua.model.projection.DocumentMetadata;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@QuarkusTest
+@DisplayName("DocumentMetadataCache Tests")
+class DocumentMetadataCacheTest {
+
+    @Inject
+    DocumentMetadataCache documentMetadataCache;
+
+    private AtomicInteger loads;
+    private LongFunction<DocumentMetadata> loader;
+
+    @BeforeEach
+    void setUp() {
+        documentMetadataCache.invalidateAll();
+        loads = new AtomicInteger();
+        loader = id -> {
+            loads.incrementAndGet();
+            return new DocumentMetadata(id, 10L, 20L, "key-" + id, "application/pdf", "file.pdf", 100L);
+        };
+    }
+
+    @Test
+    @DisplayName("get should load once and serve repeat lookups from the cache")
+    void get_shouldLoadOnceThenHit() {
+        // Act
+        DocumentMetadata first = documentMetadataCache.get(42L, loader);
+        DocumentMetadata second = documentMetadataCache.get(42L, loader);
+
+        // Assert
+        assertSame(first, second);
+        assertEquals("key-42", second.objectKey());
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    @DisplayName("get with missing document should not cache the miss")
+    void get_withMissingDocument_shouldNotCacheMiss() {
+        // Arrange
+        LongFunction<DocumentMetadata> missing = id -> {
+            loads.incrementAndGet();
+            return null;
+        };
+
+        // Act & Assert
+        assertNull(documentMetadataCache.get(7L, missing));
+        assertNull(documentMetadataCache.get(7L, missing));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    @DisplayName("invalidate should force the next lookup to reload")
+    void invalidate_shouldForceReload() {
+        // Arrange
+        documentMetadataCache.get(42L, loader);
+
+        // Act
+        documentMetadataCache.invalidate(42L);
+        documentMetadataCache.get(42L, loader);
+
+        // Assert
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    @DisplayName("invalidation during a load should keep the loaded entry out of the cache")
+    void get_withInvalidationDuringLoad_shouldNotInstallEntry() {
+        // Arrange
+        LongFunction<DocumentMetadata> racingLoader = id -> {
+            DocumentMetadata metadata = loader.apply(id);
+            documentMetadataCache.invalidate(id);  // row deleted while we were reading it
+            return metadata;
+        };
+
+        // Act
+        documentMetadataCache.get(42L, racingLoader);
+        documentMetadataCache.get(42L, loader);
+
+        // Assert
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    @DisplayName("colliding ids should never return another document's metadata")
+    void get_withManyIds_shouldNeverReturnWrongEntry() {
+        for (long id = 1; id <= 20_000; id++) {
+            assertEquals(id, documentMetadataCache.get(id, loader).id());
+        }
+        for (long id = 1; id <= 20_000; id++) {
+            assertEquals(id, documentMetadataCache.get(id, loader).id());
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package gr.hua.cache;
+
+import gr.hua.model.projection.DocumentMetadata;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@QuarkusTest
+@DisplayName("InvalidationBus Tests")
+class InvalidationBusTest {
+
+    @Inject
+    InvalidationBus invalidationBus;
+
+    @Inject
+    DocumentMetadataCache documentMetadataCache;
+
+    @Inject
+    EntityManager entityManager;
+
+    private AtomicInteger loads;
+    private LongFunction<DocumentMetadata> loader;
+
+    @BeforeEach
+    void setUp() {
+        documentMetadataCache.invalidateAll();
+        loads = new AtomicInteger();
+        loader = id -> {
+            loads.incrementAndGet();
+            return new DocumentMetadata(id, 10L, 20L, "key-" + id, "application/pdf", "file.pdf", 100L);
+        };
+    }
+
+    @Test
+    @DisplayName("publish should evict the local entry once the transaction commits")
+    void publish_shouldEvictAfterCommit() {
+        // Arrange
+        documentMetadataCache.get(1L, loader);
+
+        // Act
+        QuarkusTransaction.requiringNew().run(() -> {
+            invalidationBus.publish(CacheRegion.DOCUMENT, 1L);
+            // still cached until commit
+            documentMetadataCache.get(1L, loader);
+            assertEquals(1, loads.get());
+        });
+        documentMetadataCache.get(1L, loader);
+
+        // Assert
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    @DisplayName("publish should leave the entry cached when the transaction rolls back")
+    void publish_withRollback_shouldKeepEntry() {
+        // Arrange
+        documentMetadataCache.get(2L, loader);
+
+        // Act
+        assertThrows(RuntimeException.class, () -> QuarkusTransaction.requiringNew().run(() -> {
+            invalidationBus.publish(CacheRegion.DOCUMENT, 2L);
+            QuarkusTransaction.setRollbackOnly();
+        }));
+        documentMetadataCache.get(2L, loader);
+
+        // Assert
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    @DisplayName("notification from another node should evict the local entry")
+    void notification_fromOtherNode_shouldEvictEntry() throws InterruptedException {
+        // Arrange
+        documentMetadataCache.get(3L, loader);
+        String payload = "other-node|" + System.currentTimeMillis() + "|DOCUMENT|3";
+
+        // Act
+        QuarkusTransaction.requiringNew().run(() -> entityManager
+                .createNativeQuery("select 1 from pg_notify(:channel, :payload)")
+                .setParameter("channel", InvalidationBus.CHANNEL)
+                .setParameter("payload", payload)
+                .getSingleResult());
+
+        // Assert
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (loads.get() == 1 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+            documentMetadataCache.get(3L, loader);
+        }
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    @DisplayName("apply should ignore its own and malformed notifications")
+    void apply_withOwnOrMalformedPayload_shouldIgnore() {
+        // Arrange
+        documentMetadataCache.get(4L, loader);
+
+        // Act
+        invalidationBus.apply("garbage");
+        invalidationBus.apply("other-node|not-a-time|DOCUMENT|4");
+        invalidationBus.apply("other-node|0|UNKNOWN|4");
+        documentMetadataCache.get(4L, loader);
+
+        // Assert
+        assertEquals(1, loads.get());
+    }
+}
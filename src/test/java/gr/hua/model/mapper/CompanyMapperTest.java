@@ -3,6 +3,9 @@ package gr.hua.model.mapper;
 import gr.hua.model.entity.Company;
 import gr.hua.model.entity.KeycloakUser;
 import gr.hua.model.enums.RegistrationState;
+import gr.hua.model.projection.ArticleDocumentSummary;
+import gr.hua.model.projection.CompanySummary;
+import gr.hua.model.response.ArticleDocumentResponse;
 import gr.hua.model.response.CompanyResponse;
 import io.quarkus.test.junit.QuarkusTest;
 import jakarta.inject.Inject;
@@ -223,4 +226,34 @@ class CompanyMapperTest {
         CompanyResponse deniedResponse = companyMapper.toCompanyResponse(denied);
         assertEquals(RegistrationState.DENIED, deniedResponse.getState());
     }
+
+    @Test
+    @DisplayName("toCompanyResponse from summary should map fields, representative and documents")
+    void toCompanyResponse_fromSummary_shouldMapFieldsRepresentativeAndDocuments() {
+        // Arrange
+        CompanySummary summary = new CompanySummary(
+                1L, 1L, "keycloak-123", "testuser",
+                "Test Company", "test@company.com", null, RegistrationState.PENDING, testTimestamp,
+                "Test goal", "Test HQ", "Test Executives"
+        );
+        ArticleDocumentSummary document = new ArticleDocumentSummary(
+                7L, 1L, "key/articles.pdf", "articles.pdf", "application/pdf", 2048L, testTimestamp);
+        ArticleDocumentResponse documentResponse = companyMapper.toArticleDocumentResponse(document);
+
+        // Act
+        CompanyResponse response = companyMapper.toCompanyResponse(summary, List.of(documentResponse));
+
+        // Assert
+        assertEquals(1L, response.getId());
+        assertEquals("Test Company", response.getName());
+        assertEquals(RegistrationState.PENDING, response.getState());
+        assertEquals(testTimestamp, response.getTimestamp());
+        assertEquals(1L, response.getRepresentative().getId());
+        assertEquals("keycloak-123", response.getRepresentative().getKeycloakId());
+        assertEquals("testuser", response.getRepresentative().getUsername());
+        assertEquals(1, response.getArticleDocuments().size());
+        assertEquals(7L, response.getArticleDocuments().get(0).getId());
+        assertEquals("articles.pdf", response.getArticleDocuments().get(0).getOriginalFilename());
+        assertEquals(2048L, response.getArticleDocuments().get(0).getFileSize());
+    }
 }
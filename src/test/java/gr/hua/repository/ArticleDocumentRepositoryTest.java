@@ -0,0 +1,137 @@
+package gr.hua.repository;
+
+import gr.hua.model.entity.ArticleDocument;
+import gr.hua.model.entity.Company;
+import gr.hua.model.entity.KeycloakUser;
+import gr.hua.model.entity.ObjectDeletion;
+import gr.hua.model.projection.ArticleDocumentSummary;
+import gr.hua.model.projection.DocumentMetadata;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@QuarkusTest
+@DisplayName("ArticleDocumentRepository Tests")
+class ArticleDocumentRepositoryTest {
+
+    @Inject
+    ArticleDocumentRepository articleDocumentRepository;
+
+    @Inject
+    CompanyRepository companyRepository;
+
+    @Inject
+    KeycloakUserRepository keycloakUserRepository;
+
+    @Inject
+    StoredBlobRepository storedBlobRepository;
+
+    @Inject
+    ObjectDeletionRepository objectDeletionRepository;
+
+    private KeycloakUser representative;
+    private Company company;
+    private ArticleDocument document;
+
+    @BeforeEach
+    void setUp() {
+        QuarkusTransaction.requiringNew().run(() -> {
+            articleDocumentRepository.deleteAll();
+            storedBlobRepository.deleteAll();
+            objectDeletionRepository.deleteAll();
+            companyRepository.deleteAll();
+            keycloakUserRepository.deleteAll();
+
+            representative = new KeycloakUser();
+            representative.setKeycloakId("doc-rep");
+            representative.setUsername("docrep");
+            keycloakUserRepository.persist(representative);
+
+            company = new Company(representative, "Doc Company", "doc@test.com", "Goal", "HQ", "Executives");
+            companyRepository.persist(company);
+
+            document = new ArticleDocument(company, "uuid/articles.pdf", "articles.pdf", "application/pdf", 2048L);
+            articleDocumentRepository.persist(document);
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        QuarkusTransaction.requiringNew().run(() -> {
+            articleDocumentRepository.deleteAll();
+            storedBlobRepository.deleteAll();
+            objectDeletionRepository.deleteAll();
+        });
+    }
+
+    @Test
+    @DisplayName("findMetadata should project the document with its company and representative ids")
+    void findMetadata_shouldProjectDocument() {
+        // Act
+        DocumentMetadata metadata = articleDocumentRepository.findMetadata(document.getId());
+
+        // Assert
+        assertNotNull(metadata);
+        assertEquals(document.getId(), metadata.id());
+        assertEquals(company.getId(), metadata.companyId());
+        assertEquals(representative.getId(), metadata.representativeId());
+        assertEquals("uuid/articles.pdf", metadata.objectKey());
+        assertEquals("application/pdf", metadata.contentType());
+        assertEquals("articles.pdf", metadata.filename());
+        assertEquals(2048L, metadata.fileSize());
+    }
+
+    @Test
+    @DisplayName("findMetadata with unknown id should return null")
+    void findMetadata_withUnknownId_shouldReturnNull() {
+        assertNull(articleDocumentRepository.findMetadata(-1L));
+    }
+
+    @Test
+    @DisplayName("findSummariesByCompanyIds should return documents keyed by company")
+    void findSummariesByCompanyIds_shouldReturnDocumentsWithCompanyId() {
+        // Act
+        List<ArticleDocumentSummary> summaries = articleDocumentRepository.findSummariesByCompanyIds(List.of(company.getId()));
+
+        // Assert
+        assertEquals(1, summaries.size());
+        assertEquals(company.getId(), summaries.get(0).companyId());
+        assertEquals("articles.pdf", summaries.get(0).originalFilename());
+    }
+
+    @Test
+    @DisplayName("deleteQueuingObjects should queue a shared object only once its last document is gone")
+    void deleteQueuingObjects_withSharedObject_shouldQueueAfterLastReference() {
+        // Arrange: two documents share one stored object, acquired once by each upload
+        ArticleDocument copy = QuarkusTransaction.requiringNew().call(() -> {
+            storedBlobRepository.register("c0ffee", "shared/articles.pdf", 2048L);
+            storedBlobRepository.acquire("c0ffee", 2048L);
+            articleDocumentRepository.update("objectKey = ?1 where id = ?2", "shared/articles.pdf", document.getId());
+            ArticleDocument second = new ArticleDocument(company, "shared/articles.pdf", "copy.pdf", "application/pdf", 2048L);
+            articleDocumentRepository.persist(second);
+            return second;
+        });
+
+        // Act
+        QuarkusTransaction.requiringNew().run(() -> articleDocumentRepository.deleteQueuingObjects(company.getId(), List.of(document.getId())));
+        List<String> queuedAfterFirst = QuarkusTransaction.requiringNew().call(() ->
+                objectDeletionRepository.listAll().stream().map(ObjectDeletion::getObjectKey).toList());
+        QuarkusTransaction.requiringNew().run(() -> articleDocumentRepository.deleteQueuingObjects(company.getId(), List.of(copy.getId())));
+
+        // Assert
+        assertEquals(List.of(), queuedAfterFirst);
+        QuarkusTransaction.requiringNew().run(() -> {
+            assertEquals(List.of("shared/articles.pdf"),
+                    objectDeletionRepository.listAll().stream().map(ObjectDeletion::getObjectKey).toList());
+            assertEquals(0, storedBlobRepository.count());
+        });
+    }
+}
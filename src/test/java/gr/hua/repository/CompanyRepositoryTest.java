@@ -0,0 +1,167 @@
+package gr.hua.repository;
+
+import gr.hua.model.entity.Company;
+import gr.hua.model.entity.IdAllocation;
+import gr.hua.model.entity.KeycloakUser;
+import gr.hua.model.enums.RegistrationState;
+import gr.hua.model.projection.CompanySummary;
+import gr.hua.model.request.LegacyRegistration;
+import gr.hua.model.request.PageCursor;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@QuarkusTest
+@DisplayName("CompanyRepository Tests")
+class CompanyRepositoryTest {
+
+    @Inject
+    CompanyRepository companyRepository;
+
+    @Inject
+    ArticleDocumentRepository articleDocumentRepository;
+
+    @Inject
+    KeycloakUserRepository keycloakUserRepository;
+
+    @Inject
+    EntityManager entityManager;
+
+    @BeforeEach
+    void setUp() {
+        QuarkusTransaction.requiringNew().run(() -> {
+            articleDocumentRepository.deleteAll();
+            companyRepository.deleteAll();
+            keycloakUserRepository.deleteAll();
+
+            for (int i = 0; i < 5; i++) {
+                KeycloakUser representative = new KeycloakUser();
+                representative.setKeycloakId("repo-rep-" + i);
+                representative.setUsername("reporep" + i);
+                keycloakUserRepository.persist(representative);
+
+                Company company = new Company(representative, "Company " + i, "repo" + i + "@test.com", "Goal", "HQ", "Executives");
+                company.setTimestamp(new Timestamp(1_700_000_000_000L + i * 1000L));
+                if (i == 2) {
+                    company.setState(RegistrationState.ACCEPTED);
+                }
+                companyRepository.persist(company);
+            }
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        QuarkusTransaction.requiringNew().run(() -> companyRepository.deleteAll());
+    }
+
+    @Test
+    @DisplayName("findSummaryPageByState should page pending companies in (timestamp, id) order")
+    void findSummaryPageByState_shouldPageInOrder() {
+        // Act
+        List<CompanySummary> first = companyRepository.findSummaryPageByState(RegistrationState.PENDING, null, 2);
+        CompanySummary last = first.get(first.size() - 1);
+        List<CompanySummary> second = companyRepository.findSummaryPageByState(RegistrationState.PENDING,
+                new PageCursor(last.timestamp(), last.id()), 2);
+
+        // Assert
+        assertEquals(List.of("Company 0", "Company 1"), first.stream().map(CompanySummary::name).toList());
+        assertEquals(List.of("Company 3", "Company 4"), second.stream().map(CompanySummary::name).toList());
+    }
+
+    @Test
+    @DisplayName("findSummaryPageByState should only return companies in the requested state")
+    void findSummaryPageByState_shouldFilterByState() {
+        // Act
+        List<CompanySummary> accepted = companyRepository.findSummaryPageByState(RegistrationState.ACCEPTED, null, 10);
+
+        // Assert
+        assertEquals(1, accepted.size());
+        assertEquals("Company 2", accepted.get(0).name());
+        assertEquals(RegistrationState.ACCEPTED, accepted.get(0).state());
+    }
+
+    @Test
+    @DisplayName("migrations should create the hot-path indexes")
+    void migrations_shouldCreateHotPathIndexes() {
+        // Act
+        @SuppressWarnings("unchecked")
+        List<String> indexes = entityManager
+                .createNativeQuery("select indexname from pg_indexes where schemaname = current_schema()")
+                .getResultList();
+
+        // Assert
+        assertTrue(indexes.containsAll(List.of(
+                "idx_company_pending",
+                "idx_company_state",
+                "uk_company_taxnumber",
+                "uk_company_legacytaxid",
+                "idx_articledocument_company",
+                "uk_keycloakuser_keycloakid")));
+        assertFalse(indexes.contains("idx_company_state_timestamp_id"));
+    }
+
+    @Test
+    @DisplayName("bulkImport should take ids in pooled blocks and none for rows that already exist")
+    void bulkImport_shouldAllocateIdsOnlyForInsertedRows() {
+        // Arrange
+        List<LegacyRegistration> rows = List.of(
+                LegacyRegistration.builder().keycloakId("import-rep-0").username("a").name("A").email("import0@test.com").build(),
+                LegacyRegistration.builder().keycloakId("import-rep-1").username("b").name("B").email("import1@test.com").build(),
+                LegacyRegistration.builder().keycloakId("repo-rep-0").username("c").name("Dup").email("repo0@test.com").build());
+        long companiesBefore = lastValue("company_seq");
+        long usersBefore = lastValue("keycloakuser_seq");
+
+        // Act
+        CompanyRepository.BulkImportResult result = QuarkusTransaction.requiringNew()
+                .call(() -> companyRepository.bulkImport(rows, 1));
+
+        // Assert
+        assertEquals(2, result.inserted());
+        assertEquals(companiesBefore + IdAllocation.ALLOCATION_SIZE, lastValue("company_seq"));
+        assertEquals(usersBefore + IdAllocation.ALLOCATION_SIZE, lastValue("keycloakuser_seq"));
+        List<Long> ids = QuarkusTransaction.requiringNew().call(() -> companyRepository
+                .find("email like 'import%' order by id").stream().map(Company::getId).toList());
+        assertEquals(ids.get(0) + 1, ids.get(1));
+    }
+
+    @Test
+    @DisplayName("bulkImport should store nine-digit tax ids as numbers and keep other ids as legacy text")
+    void bulkImport_shouldSplitTaxIdColumns() {
+        // Arrange
+        List<LegacyRegistration> rows = List.of(
+                LegacyRegistration.builder().keycloakId("import-rep-0").username("a").name("A").email("import0@test.com")
+                        .taxId("012345678").state("ACCEPTED").build(),
+                LegacyRegistration.builder().keycloakId("import-rep-1").username("b").name("B").email("import1@test.com")
+                        .taxId("c3a1f0e2-legacy").state("ACCEPTED").build());
+
+        // Act
+        QuarkusTransaction.requiringNew().run(() -> companyRepository.bulkImport(rows, 1));
+
+        // Assert
+        Company numeric = QuarkusTransaction.requiringNew().call(() -> companyRepository.find("email", "import0@test.com").firstResult());
+        Company legacy = QuarkusTransaction.requiringNew().call(() -> companyRepository.find("email", "import1@test.com").firstResult());
+        assertEquals(12_345_678L, numeric.getTaxNumber());
+        assertNull(numeric.getLegacyTaxId());
+        assertEquals("012345678", numeric.getTaxId());
+        assertNull(legacy.getTaxNumber());
+        assertEquals("c3a1f0e2-legacy", legacy.getTaxId());
+        assertEquals("A", companyRepository.findIssuedTaxId("012345678").name());
+        assertEquals("B", companyRepository.findIssuedTaxId("c3a1f0e2-legacy").name());
+    }
+
+    private long lastValue(String sequence) {
+        return QuarkusTransaction.requiringNew().call(() -> ((Number) entityManager
+                .createNativeQuery("select last_value from " + sequence).getSingleResult()).longValue());
+    }
+}
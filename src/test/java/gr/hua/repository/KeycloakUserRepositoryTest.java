@@ -0,0 +1,124 @@
+package gr.hua.repository;
+
+import gr.hua.model.entity.KeycloakUser;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@QuarkusTest
+@DisplayName("KeycloakUserRepository Tests")
+class KeycloakUserRepositoryTest {
+
+    @Inject
+    KeycloakUserRepository keycloakUserRepository;
+
+    @Inject
+    CompanyRepository companyRepository;
+
+    @BeforeEach
+    void setUp() {
+        QuarkusTransaction.requiringNew().run(() -> {
+            companyRepository.deleteAll();
+            keycloakUserRepository.deleteAll();
+        });
+    }
+
+    @Test
+    @DisplayName("provision should insert a new user and return the existing row on later calls")
+    void provision_shouldInsertOnceAndReturnExistingRow() {
+        // Act
+        KeycloakUser first = QuarkusTransaction.requiringNew()
+                .call(() -> keycloakUserRepository.provision("provision-123", "firstname"));
+        KeycloakUser second = QuarkusTransaction.requiringNew()
+                .call(() -> keycloakUserRepository.provision("provision-123", "othername"));
+
+        // Assert
+        assertEquals(first.getId(), second.getId());
+        assertEquals("firstname", second.getUsername());
+        assertEquals(1, QuarkusTransaction.requiringNew()
+                .call(() -> keycloakUserRepository.count("keycloakId", "provision-123")));
+    }
+
+    @Test
+    @DisplayName("provision with concurrent first logins should create exactly one row")
+    void provision_withConcurrentCalls_shouldCreateSingleRow() throws Exception {
+        // Arrange
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            // Act
+            List<Future<KeycloakUser>> results = IntStream.range(0, 16)
+                    .mapToObj(i -> executor.submit(() -> QuarkusTransaction.requiringNew()
+                            .call(() -> keycloakUserRepository.provision("concurrent-123", "user" + i))))
+                    .toList();
+
+            // Assert
+            long id = results.get(0).get().getId();
+            for (Future<KeycloakUser> result : results) {
+                assertEquals(id, result.get().getId());
+            }
+            assertEquals(1, QuarkusTransaction.requiringNew()
+                    .call(() -> keycloakUserRepository.count("keycloakId", "concurrent-123")));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("provision and pooled persists should never hand out the same id")
+    void provision_mixedWithPersist_shouldUseDistinctIds() {
+        // Act
+        List<Long> ids = QuarkusTransaction.requiringNew().call(() -> {
+            List<KeycloakUser> users = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                KeycloakUser user = new KeycloakUser();
+                user.setKeycloakId("pooled-" + i);
+                keycloakUserRepository.persist(user);
+                users.add(user);
+            }
+            users.add(keycloakUserRepository.provision("pooled-native", "native"));
+            for (int i = 3; i < 6; i++) {
+                KeycloakUser user = new KeycloakUser();
+                user.setKeycloakId("pooled-" + i);
+                keycloakUserRepository.persist(user);
+                users.add(user);
+            }
+            return users.stream().map(KeycloakUser::getId).toList();
+        });
+
+        // Assert
+        assertEquals(7, ids.stream().distinct().count());
+        assertEquals(7, QuarkusTransaction.requiringNew()
+                .call(() -> keycloakUserRepository.count("keycloakId like 'pooled-%'")));
+    }
+
+    @Test
+    @DisplayName("provision of an existing user should not take ids from the sequence")
+    void provision_withExistingUser_shouldNotAdvanceSequence() {
+        // Arrange
+        QuarkusTransaction.requiringNew().run(() -> keycloakUserRepository.provision("existing-123", "existing"));
+        long before = lastValue();
+
+        // Act
+        QuarkusTransaction.requiringNew().run(() -> keycloakUserRepository.provision("existing-123", "existing"));
+
+        // Assert
+        assertEquals(before, lastValue());
+    }
+
+    private long lastValue() {
+        return QuarkusTransaction.requiringNew().call(() -> ((Number) keycloakUserRepository.getEntityManager()
+                .createNativeQuery("select last_value from keycloakuser_seq").getSingleResult()).longValue());
+    }
+}
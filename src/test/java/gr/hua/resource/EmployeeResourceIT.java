@@ -16,6 +16,9 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+
 import static io.restassured.RestAssured.given;
 import static org.hamcrest.Matchers.*;
 import static org.junit.jupiter.api.Assertions.*;
@@ -89,6 +92,47 @@ class EmployeeResourceIT {
                 .body("[0].state", equalTo("PENDING"));
     }
 
+    @Test
+    @TestSecurity(user = "employee", roles = "Employee")
+    @DisplayName("GET /api/processing with limit should page through pending companies with X-Next-Cursor")
+    void getPending_withLimit_shouldPageWithContinuationToken() {
+        createPendingCompany("Second Pending Company", "second-pending@test.com");
+
+        String cursor = given()
+                .queryParam("limit", 1)
+                .when()
+                .get(BASE_PATH)
+                .then()
+                .statusCode(200)
+                .body("size()", equalTo(1))
+                .body("[0].name", equalTo("Test Pending Company"))
+                .header("X-Next-Cursor", notNullValue())
+                .extract().header("X-Next-Cursor");
+
+        given()
+                .queryParam("limit", 1)
+                .queryParam("cursor", cursor)
+                .when()
+                .get(BASE_PATH)
+                .then()
+                .statusCode(200)
+                .body("size()", equalTo(1))
+                .body("[0].name", equalTo("Second Pending Company"))
+                .header("X-Next-Cursor", nullValue());
+    }
+
+    @Test
+    @TestSecurity(user = "employee", roles = "Employee")
+    @DisplayName("GET /api/processing with malformed cursor should return 400")
+    void getPending_withMalformedCursor_shouldReturn400() {
+        given()
+                .queryParam("cursor", "not-a-cursor")
+                .when()
+                .get(BASE_PATH)
+                .then()
+                .statusCode(400);
+    }
+
     @Test
     @TestSecurity(user = "employee", roles = "Employee")
     @DisplayName("PUT /api/processing with Employee role and valid request should return 200")
@@ -230,4 +274,86 @@ class EmployeeResourceIT {
                 .then()
                 .statusCode(403);
     }
+
+    @Test
+    @TestSecurity(user = "employee", roles = "Employee")
+    @DisplayName("POST /api/processing/import with NDJSON should import records and expose the job")
+    void importRegistrations_withNdjson_shouldReturnJob() {
+        String body = "{\"keycloakId\":\"legacy-it\",\"username\":\"legacyit\",\"name\":\"Legacy IT\","
+                + "\"email\":\"legacy-it@test.com\",\"goal\":\"Goal\",\"hq\":\"HQ\",\"executives\":\"Execs\"}\n";
+
+        Integer jobId = given()
+                .contentType("application/x-ndjson")
+                .body(body.getBytes(StandardCharsets.UTF_8))
+                .when()
+                .post(BASE_PATH + "/import")
+                .then()
+                .statusCode(200)
+                .body("committedRecords", equalTo(1))
+                .body("imported", equalTo(1))
+                .body("errors", empty())
+                .extract().path("id");
+
+        given()
+                .when()
+                .get(BASE_PATH + "/import/" + jobId)
+                .then()
+                .statusCode(200)
+                .body("imported", equalTo(1));
+    }
+
+    @Test
+    @TestSecurity(user = "representative", roles = "Representative")
+    @DisplayName("POST /api/processing/import with Representative role should return 403")
+    void importRegistrations_withRepresentativeRole_shouldReturn403() {
+        given()
+                .contentType("text/csv")
+                .body("keycloakId,name\n")
+                .when()
+                .post(BASE_PATH + "/import")
+                .then()
+                .statusCode(403);
+    }
+
+    @Test
+    @TestSecurity(user = "employee", roles = "Employee")
+    @DisplayName("GET /api/processing/export with Accept text/csv should stream CSV")
+    void exportRegistrations_withCsvAccept_shouldStreamCsv() {
+        given()
+                .accept("text/csv")
+                .queryParam("state", "PENDING")
+                .when()
+                .get(BASE_PATH + "/export")
+                .then()
+                .statusCode(200)
+                .contentType(startsWith("text/csv"))
+                .header("Content-Disposition", containsString("companies-pending.csv"))
+                .body(startsWith("id,taxId,name,email,hq,state,timestamp\n"))
+                .body(containsString("pending@test.com"));
+    }
+
+    @Test
+    @TestSecurity(user = "employee", roles = "Employee")
+    @DisplayName("GET /api/processing/export with malformed window should return 400")
+    void exportRegistrations_withMalformedFrom_shouldReturn400() {
+        given()
+                .accept("application/x-ndjson")
+                .queryParam("from", "yesterday")
+                .when()
+                .get(BASE_PATH + "/export")
+                .then()
+                .statusCode(400);
+    }
+
+    @Transactional
+    void createPendingCompany(String name, String email) {
+        KeycloakUser representative = new KeycloakUser();
+        representative.setKeycloakId("rep-" + email);
+        representative.setUsername(name);
+        keycloakUserRepository.persist(representative);
+
+        Company company = new Company(representative, name, email, "Goal", "HQ", "Executives");
+        company.setTimestamp(new Timestamp(testCompany.getTimestamp().getTime() + 1000));
+        companyRepository.persist(company);
+    }
 }
@@ -1,26 +1,43 @@
 package gr.hua.resource;
 
+import gr.hua.model.entity.ArticleDocument;
 import gr.hua.model.entity.Company;
 import gr.hua.model.entity.KeycloakUser;
+import gr.hua.model.entity.ObjectDeletion;
 import gr.hua.model.enums.RegistrationState;
 import gr.hua.model.request.RegistrationRequest;
 import gr.hua.model.request.UpdateRequest;
+import gr.hua.repository.ArticleDocumentRepository;
 import gr.hua.repository.CompanyRepository;
 import gr.hua.repository.KeycloakUserRepository;
+import gr.hua.repository.ObjectDeletionRepository;
 import gr.hua.service.KeycloakService;
+import gr.hua.service.StorageService;
+import io.quarkus.narayana.jta.QuarkusTransaction;
 import io.quarkus.test.InjectMock;
 import io.quarkus.test.junit.QuarkusTest;
 import io.quarkus.test.security.TestSecurity;
 import io.restassured.http.ContentType;
+import io.smallrye.mutiny.Multi;
+import io.vertx.core.buffer.Buffer;
 import jakarta.inject.Inject;
 import jakarta.transaction.Transactional;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
 import static io.restassured.RestAssured.given;
 import static org.hamcrest.Matchers.*;
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
 @QuarkusTest
@@ -36,16 +53,27 @@ class RepresentativeResourceIT {
     @Inject
     KeycloakUserRepository keycloakUserRepository;
 
+    @Inject
+    ArticleDocumentRepository articleDocumentRepository;
+
+    @Inject
+    ObjectDeletionRepository objectDeletionRepository;
+
     @InjectMock
     KeycloakService keycloakService;
 
+    @InjectMock
+    StorageService storageService;
+
     private KeycloakUser testRepresentative;
     private Company testCompany;
 
     @BeforeEach
     @Transactional
     void setUp() {
-        // Clean up - delete companies first due to foreign key constraint
+        // Clean up - delete documents and companies first due to foreign key constraints
+        articleDocumentRepository.deleteAll();
+        objectDeletionRepository.deleteAll();
         companyRepository.deleteAll();
         keycloakUserRepository.deleteAll();
 
@@ -68,6 +96,7 @@ class RepresentativeResourceIT {
 
         // Mock KeycloakService to return testRepresentative
         when(keycloakService.getUser()).thenReturn(testRepresentative);
+        when(keycloakService.getSubject()).thenReturn(TEST_KEYCLOAK_ID);
     }
 
     @Test
@@ -257,4 +286,153 @@ class RepresentativeResourceIT {
                 .then()
                 .statusCode(403);
     }
+
+    @Test
+    @TestSecurity(user = "rep3", roles = "Representative")
+    @DisplayName("POST /api/registration/files should stream each uploaded file to storage and record it")
+    void uploadFiles_withRepresentativeRole_shouldStreamFilesToStorage() {
+        // Arrange
+        Set<String> received = ConcurrentHashMap.newKeySet();
+        when(storageService.uploadFile(any(InputStream.class), anyString(), anyString(), anyLong())).thenAnswer(invocation -> {
+            received.add(new String(invocation.<InputStream>getArgument(0).readAllBytes(), StandardCharsets.UTF_8));
+            return "key/" + invocation.getArgument(1);
+        });
+
+        // Act
+        given()
+                .multiPart("files", "articles.pdf", "article contents".getBytes(StandardCharsets.UTF_8), "application/pdf")
+                .multiPart("files", "minutes.txt", "minutes".getBytes(StandardCharsets.UTF_8), "text/plain")
+                .when()
+                .post(BASE_PATH + "/files")
+                .then()
+                .statusCode(200)
+                .body("size()", equalTo(2))
+                .body("[0].originalFilename", equalTo("articles.pdf"))
+                .body("[1].fileSize", equalTo(7));
+
+        // Assert
+        assertEquals(Set.of("article contents", "minutes"), received);
+        assertEquals(2, articleDocumentRepository.count());
+    }
+
+    @Test
+    @TestSecurity(user = "rep4", roles = "Representative")
+    @DisplayName("DELETE /api/registration/files should remove the listed files and queue their objects for deletion")
+    void deleteFiles_withOwnFiles_shouldDeleteRowsAndQueueObjects() {
+        // Arrange
+        List<Long> ids = QuarkusTransaction.requiringNew().call(() -> {
+            List<Long> created = new ArrayList<>();
+            for (String key : List.of("bulk/a", "bulk/b", "bulk/c")) {
+                ArticleDocument document = new ArticleDocument(companyRepository.findById(testCompany.getId()), key, key, "application/pdf", 1L);
+                articleDocumentRepository.persist(document);
+                created.add(document.getId());
+            }
+            return created;
+        });
+
+        // Act
+        given()
+                .queryParam("id", ids.get(0), ids.get(2))
+                .when()
+                .delete(BASE_PATH + "/files")
+                .then()
+                .statusCode(204);
+        given()
+                .queryParam("id", ids.get(1), -1L)
+                .when()
+                .delete(BASE_PATH + "/files")
+                .then()
+                .statusCode(404);
+
+        // Assert
+        QuarkusTransaction.requiringNew().run(() -> {
+            assertEquals(List.of(ids.get(1)), articleDocumentRepository.findAll().stream().map(ArticleDocument::getId).toList());
+            assertEquals(Set.of("bulk/a", "bulk/c"),
+                    objectDeletionRepository.findAll().stream().map(ObjectDeletion::getObjectKey).collect(Collectors.toSet()));
+        });
+        verify(storageService, never()).deleteFile(anyString());
+    }
+
+    private Long createDocument(String objectKey, long size) {
+        return QuarkusTransaction.requiringNew().call(() -> {
+            ArticleDocument document = new ArticleDocument(companyRepository.findById(testCompany.getId()), objectKey, "articles.pdf", "application/pdf", size);
+            articleDocumentRepository.persist(document);
+            return document.getId();
+        });
+    }
+
+    @Test
+    @TestSecurity(user = "rep5", roles = "Representative")
+    @DisplayName("GET /api/registration/files/{id} with Range should return 206 with only the requested bytes")
+    void downloadFile_withRange_shouldReturnPartialContent() {
+        // Arrange
+        Long id = createDocument("5f0c1d2e-range/articles.pdf", 100);
+        when(storageService.streamFile("5f0c1d2e-range/articles.pdf", 10, 20))
+                .thenReturn(Multi.createFrom().items(Buffer.buffer("0123456789"), Buffer.buffer("abcdefghij")));
+
+        // Act & Assert
+        given()
+                .header("Range", "bytes=10-29")
+                .when()
+                .get(BASE_PATH + "/files/" + id)
+                .then()
+                .statusCode(206)
+                .header("Content-Range", "bytes 10-29/100")
+                .header("Content-Length", "20")
+                .header("Accept-Ranges", "bytes")
+                .header("ETag", "\"5f0c1d2e-range\"")
+                .header("Cache-Control", containsString("immutable"))
+                .body(equalTo("0123456789abcdefghij"));
+        given()
+                .header("Range", "bytes=100-")
+                .when()
+                .get(BASE_PATH + "/files/" + id)
+                .then()
+                .statusCode(416)
+                .header("Content-Range", "bytes */100");
+    }
+
+    @Test
+    @TestSecurity(user = "rep7", roles = "Representative")
+    @DisplayName("GET /api/registration/files/{id} should stream the object chunk by chunk with its full length")
+    void downloadFile_shouldStreamObjectChunks() {
+        // Arrange
+        Long id = createDocument("3c4d5e6f-stream/articles.pdf", 15);
+        when(storageService.streamFile("3c4d5e6f-stream/articles.pdf", 0, -1))
+                .thenReturn(Multi.createFrom().items(Buffer.buffer("first"), Buffer.buffer("-mid-"), Buffer.buffer("last!")));
+
+        // Act & Assert
+        given()
+                .when()
+                .get(BASE_PATH + "/files/" + id)
+                .then()
+                .statusCode(200)
+                .header("Content-Length", "15")
+                .contentType("application/pdf")
+                .body(equalTo("first-mid-last!"));
+    }
+
+    @Test
+    @TestSecurity(user = "rep6", roles = "Representative")
+    @DisplayName("HEAD and conditional GET on /api/registration/files/{id} should not read the object")
+    void headAndConditionalGet_shouldNotReadObject() {
+        // Arrange
+        Long id = createDocument("7a8b9c0d-cond/articles.pdf", 100);
+
+        // Act & Assert
+        given()
+                .when()
+                .head(BASE_PATH + "/files/" + id)
+                .then()
+                .statusCode(200)
+                .header("Content-Length", "100")
+                .header("ETag", "\"7a8b9c0d-cond\"");
+        given()
+                .header("If-None-Match", "\"7a8b9c0d-cond\"")
+                .when()
+                .get(BASE_PATH + "/files/" + id)
+                .then()
+                .statusCode(304);
+        verify(storageService, never()).streamFile(anyString(), anyLong(), anyLong());
+    }
 }
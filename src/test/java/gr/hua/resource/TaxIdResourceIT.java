@@ -0,0 +1,58 @@
+package gr.hua.resource;
+
+import io.restassured.http.ContentType;
+import io.quarkus.test.junit.QuarkusTest;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.List;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.*;
+
+@QuarkusTest
+@DisplayName("TaxIdResource Integration Tests")
+class TaxIdResourceIT {
+
+    private static final String BASE_PATH = "/api/tax-ids";
+
+    @Test
+    @DisplayName("GET /api/tax-ids/{taxId} without authentication should report an unknown id")
+    void verify_withoutAuthentication_shouldReportUnknownId() {
+        given()
+                .when()
+                .get(BASE_PATH + "/999999990")
+                .then()
+                .statusCode(200)
+                .body("taxId", equalTo("999999990"))
+                .body("issued", equalTo(false))
+                .body("companyName", nullValue());
+    }
+
+    @Test
+    @DisplayName("POST /api/tax-ids/verify should answer every id in order")
+    void verifyAll_shouldAnswerEveryId() {
+        given()
+                .contentType(ContentType.JSON)
+                .body(List.of("999999990", "not-issued"))
+                .when()
+                .post(BASE_PATH + "/verify")
+                .then()
+                .statusCode(200)
+                .body("taxId", contains("999999990", "not-issued"))
+                .body("issued", contains(false, false));
+    }
+
+    @Test
+    @DisplayName("POST /api/tax-ids/verify with an empty batch should return 400")
+    void verifyAll_withEmptyBatch_shouldReturn400() {
+        given()
+                .contentType(ContentType.JSON)
+                .body(Collections.emptyList())
+                .when()
+                .post(BASE_PATH + "/verify")
+                .then()
+                .statusCode(400);
+    }
+}
@@ -0,0 +1,199 @@
+package gr.hua.service;
+
+import gr.hua.model.entity.ArticleDocument;
+import gr.hua.model.entity.Company;
+import gr.hua.model.entity.KeycloakUser;
+import gr.hua.model.entity.ObjectDeletion;
+import gr.hua.model.entity.PendingUpload;
+import gr.hua.model.enums.RegistrationState;
+import gr.hua.model.mapper.CompanyMapper;
+import gr.hua.model.request.UploadRequest;
+import gr.hua.model.response.UploadTicketResponse;
+import gr.hua.repository.ArticleDocumentRepository;
+import gr.hua.repository.CompanyRepository;
+import gr.hua.repository.ObjectDeletionRepository;
+import gr.hua.repository.PendingUploadRepository;
+import gr.hua.storage.DocumentStore;
+import io.quarkus.test.InjectMock;
+import io.quarkus.test.junit.QuarkusTest;
+import io.smallrye.mutiny.Uni;
+import jakarta.inject.Inject;
+import jakarta.validation.ValidationException;
+import jakarta.ws.rs.BadRequestException;
+import jakarta.ws.rs.ClientErrorException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@QuarkusTest
+@DisplayName("DirectUploadService Tests")
+class DirectUploadServiceTest {
+
+    private static final String KEYCLOAK_ID = "keycloak-123";
+    private static final String OBJECT_KEY = "0b7e4f0c-uuid/report.pdf";
+    private static final String COPY_KEY = "5d21a9e3-uuid/report.pdf";
+
+    @Inject
+    DirectUploadService directUploadService;
+
+    @InjectMock
+    CompanyRepository companyRepository;
+
+    @InjectMock
+    KeycloakService keycloakService;
+
+    @InjectMock
+    CompanyMapper companyMapper;
+
+    @InjectMock
+    StorageService storageService;
+
+    @InjectMock
+    ArticleDocumentRepository articleDocumentRepository;
+
+    @InjectMock
+    PendingUploadRepository pendingUploadRepository;
+
+    @InjectMock
+    ObjectDeletionRepository objectDeletionRepository;
+
+    private Company company;
+    private PendingUpload pendingUpload;
+
+    @BeforeEach
+    void setUp() {
+        KeycloakUser user = new KeycloakUser();
+        user.setId(1L);
+        user.setKeycloakId(KEYCLOAK_ID);
+
+        company = new Company(user, "Pending Company", "pending@company.com", "Goal", "HQ", "Executives");
+        company.setId(1L);
+
+        pendingUpload = new PendingUpload(company, OBJECT_KEY, "report.pdf", "application/pdf", 2048,
+                Timestamp.from(Instant.now().plus(Duration.ofMinutes(15))));
+        pendingUpload.setId(10L);
+
+        when(keycloakService.getSubject()).thenReturn(KEYCLOAK_ID);
+        when(companyRepository.findByRepKeycloakId(KEYCLOAK_ID)).thenReturn(company);
+        when(companyRepository.findByRepKeycloakIdForUpdate(KEYCLOAK_ID)).thenReturn(company);
+        when(storageService.newObjectKey("report.pdf")).thenReturn(COPY_KEY);
+    }
+
+    @Test
+    @DisplayName("initiate should reserve an object key and return a presigned PUT URL for each file")
+    void initiate_shouldIssueTicketsAndRecordPendingUploads() {
+        // Arrange
+        Instant expiresAt = Instant.now().plus(Duration.ofMinutes(15));
+        when(storageService.newObjectKey("report.pdf")).thenReturn(OBJECT_KEY);
+        when(storageService.presignedUploadUrl(eq(OBJECT_KEY), any(Duration.class)))
+                .thenReturn(new DocumentStore.PresignedUrl("http://minio/put", expiresAt));
+
+        // Act
+        List<UploadTicketResponse> tickets = directUploadService.initiate(
+                List.of(new UploadRequest("report.pdf", "application/pdf", 2048)));
+
+        // Assert
+        assertEquals(1, tickets.size());
+        assertEquals(OBJECT_KEY, tickets.get(0).getObjectKey());
+        assertEquals("http://minio/put", tickets.get(0).getUrl());
+        ArgumentCaptor<PendingUpload> captor = ArgumentCaptor.forClass(PendingUpload.class);
+        verify(pendingUploadRepository).persist(captor.capture());
+        assertEquals(OBJECT_KEY, captor.getValue().getObjectKey());
+        assertEquals(2048, captor.getValue().getFileSize());
+        assertSame(company, captor.getValue().getCompany());
+    }
+
+    @Test
+    @DisplayName("initiate should reject files over the direct upload limit with 413")
+    void initiate_withOversizedFile_shouldThrow413() {
+        // Act & Assert
+        ClientErrorException e = assertThrows(ClientErrorException.class, () -> directUploadService.initiate(
+                List.of(new UploadRequest("huge.bin", "application/octet-stream", 1L << 40))));
+        assertEquals(413, e.getResponse().getStatus());
+        verifyNoInteractions(storageService, pendingUploadRepository);
+    }
+
+    @Test
+    @DisplayName("initiate should reject a content type that is not a single media type with 400")
+    void initiate_withInvalidContentType_shouldThrowBadRequest() {
+        // Act & Assert
+        assertThrows(BadRequestException.class, () -> directUploadService.initiate(
+                List.of(new UploadRequest("report.pdf", "application/pdf\r\nX-Injected: 1", 2048))));
+        verifyNoInteractions(storageService, pendingUploadRepository);
+    }
+
+    @Test
+    @DisplayName("initiate should throw ValidationException for an accepted registration")
+    void initiate_withAcceptedCompany_shouldThrowValidationException() {
+        // Arrange
+        company.setState(RegistrationState.ACCEPTED);
+
+        // Act & Assert
+        assertThrows(ValidationException.class, () -> directUploadService.initiate(
+                List.of(new UploadRequest("report.pdf", "application/pdf", 2048))));
+        verify(pendingUploadRepository, never()).persist(any(PendingUpload.class));
+    }
+
+    @Test
+    @DisplayName("commit should record copies of objects matching their declared size and type and queue the uploads for deletion")
+    void commit_withMatchingObjects_shouldPersistDocuments() {
+        // Arrange
+        when(pendingUploadRepository.findByCompanyIdAndObjectKeys(anyLong(), anyCollection())).thenReturn(List.of(pendingUpload));
+        when(pendingUploadRepository.deleteByIds(Set.of(10L))).thenReturn(1L);
+        when(storageService.copyFileAsync(OBJECT_KEY, COPY_KEY)).thenReturn(Uni.createFrom().item(new DocumentStore.ObjectInfo(2048, "application/pdf")));
+
+        // Act
+        directUploadService.commit(List.of(OBJECT_KEY));
+
+        // Assert
+        ArgumentCaptor<ArticleDocument> captor = ArgumentCaptor.forClass(ArticleDocument.class);
+        verify(articleDocumentRepository).persist(captor.capture());
+        assertEquals(COPY_KEY, captor.getValue().getObjectKey());
+        assertEquals("report.pdf", captor.getValue().getOriginalFilename());
+        assertEquals(2048L, captor.getValue().getFileSize());
+        ArgumentCaptor<ObjectDeletion> deletion = ArgumentCaptor.forClass(ObjectDeletion.class);
+        verify(objectDeletionRepository).persist(deletion.capture());
+        assertEquals(OBJECT_KEY, deletion.getValue().getObjectKey());
+    }
+
+    @Test
+    @DisplayName("commit should reject an object whose size differs from the declared one")
+    void commit_withSizeMismatch_shouldThrowBadRequest() {
+        // Arrange
+        when(pendingUploadRepository.findByCompanyIdAndObjectKeys(anyLong(), anyCollection())).thenReturn(List.of(pendingUpload));
+        when(storageService.copyFileAsync(OBJECT_KEY, COPY_KEY)).thenReturn(Uni.createFrom().item(new DocumentStore.ObjectInfo(4096, "application/pdf")));
+
+        // Act & Assert
+        assertThrows(BadRequestException.class, () -> directUploadService.commit(List.of(OBJECT_KEY)));
+        verify(storageService).deleteFiles(List.of(COPY_KEY));
+        verify(pendingUploadRepository, never()).deleteByIds(anyCollection());
+        verify(articleDocumentRepository, never()).persist(any(ArticleDocument.class));
+    }
+
+    @Test
+    @DisplayName("commit should reject uploads that were already committed by a concurrent request")
+    void commit_whenAlreadyCommitted_shouldThrowConflict() {
+        // Arrange
+        when(pendingUploadRepository.findByCompanyIdAndObjectKeys(anyLong(), anyCollection())).thenReturn(List.of(pendingUpload));
+        when(pendingUploadRepository.deleteByIds(Set.of(10L))).thenReturn(0L);
+        when(storageService.copyFileAsync(OBJECT_KEY, COPY_KEY)).thenReturn(Uni.createFrom().item(new DocumentStore.ObjectInfo(2048, "application/pdf")));
+
+        // Act & Assert
+        ClientErrorException e = assertThrows(ClientErrorException.class, () -> directUploadService.commit(List.of(OBJECT_KEY)));
+        assertEquals(409, e.getResponse().getStatus());
+        verify(articleDocumentRepository, never()).persist(any(ArticleDocument.class));
+    }
+}
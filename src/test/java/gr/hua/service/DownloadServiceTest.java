@@ -0,0 +1,123 @@
+package gr.hua.service;
+
+import gr.hua.model.enums.DownloadMode;
+import gr.hua.model.projection.DocumentMetadata;
+import gr.hua.model.response.DownloadUrlResponse;
+import io.quarkus.arc.ClientProxy;
+import io.quarkus.cache.Cache;
+import io.quarkus.cache.CacheName;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Presigning is local with the region configured in the test profile, so these run without MinIO.
+ */
+@QuarkusTest
+@DisplayName("DownloadService Tests")
+class DownloadServiceTest {
+
+    private static final DocumentMetadata DOCUMENT =
+            new DocumentMetadata(1L, 2L, 3L, "9e1f2a3b-presign/articles.pdf", "application/pdf", "articles.pdf", 100L);
+
+    @Inject
+    DownloadService downloadService;
+
+    @CacheName(DownloadService.PRESIGNED_URL_CACHE)
+    Cache presignedUrls;
+
+    @BeforeEach
+    void setUp() {
+        presignedUrls.invalidateAll().await().indefinitely();
+        ClientProxy.unwrap(downloadService).mode = DownloadMode.PRESIGNED;
+    }
+
+    @AfterEach
+    void tearDown() {
+        ClientProxy.unwrap(downloadService).mode = DownloadMode.PROXY;
+    }
+
+    private static HttpHeaders accepting(MediaType mediaType) {
+        HttpHeaders headers = mock(HttpHeaders.class);
+        when(headers.getAcceptableMediaTypes()).thenReturn(List.of(mediaType));
+        return headers;
+    }
+
+    @Test
+    @DisplayName("download in presigned mode should return a signed URL as JSON and reuse it per document")
+    void download_presignedWithJsonAccept_shouldReturnCachedUrl() {
+        // Act
+        Response first = downloadService.download(DOCUMENT, accepting(MediaType.APPLICATION_JSON_TYPE));
+        Response second = downloadService.download(DOCUMENT, accepting(MediaType.APPLICATION_JSON_TYPE));
+
+        // Assert
+        assertEquals(200, first.getStatus());
+        DownloadUrlResponse body = (DownloadUrlResponse) first.getEntity();
+        assertTrue(body.getUrl().contains("/articles-of-association/9e1f2a3b-presign/articles.pdf?"));
+        assertTrue(body.getUrl().contains("X-Amz-Expires=900"));
+        assertTrue(body.getUrl().contains("response-content-disposition="));
+        assertSame(body.getUrl(), ((DownloadUrlResponse) second.getEntity()).getUrl());
+        assertEquals("no-store", first.getHeaderString(HttpHeaders.CACHE_CONTROL));
+    }
+
+    @Test
+    @DisplayName("download in presigned mode should not share a URL between documents with the same object key")
+    void download_presignedForSharedObject_shouldSignPerDocument() {
+        // Arrange
+        DocumentMetadata other = new DocumentMetadata(4L, 5L, 6L, DOCUMENT.objectKey(), "application/pdf", "statute.pdf", 100L);
+
+        // Act
+        Response first = downloadService.download(DOCUMENT, accepting(MediaType.APPLICATION_JSON_TYPE));
+        Response second = downloadService.download(other, accepting(MediaType.APPLICATION_JSON_TYPE));
+
+        // Assert
+        String url = ((DownloadUrlResponse) second.getEntity()).getUrl();
+        assertNotEquals(((DownloadUrlResponse) first.getEntity()).getUrl(), url);
+        assertTrue(url.contains("statute.pdf"));
+    }
+
+    @Test
+    @DisplayName("download in presigned mode should answer JSON for an Accept header with parameters")
+    void download_presignedWithParameterisedJsonAccept_shouldReturnJson() {
+        // Act
+        Response response = downloadService.download(DOCUMENT, accepting(MediaType.valueOf("application/json; charset=utf-8")));
+
+        // Assert
+        assertEquals(200, response.getStatus());
+        assertInstanceOf(DownloadUrlResponse.class, response.getEntity());
+    }
+
+    @Test
+    @DisplayName("download in presigned mode should redirect other clients to the signed URL")
+    void download_presignedWithoutJsonAccept_shouldRedirect() {
+        // Act
+        Response response = downloadService.download(DOCUMENT, accepting(MediaType.WILDCARD_TYPE));
+
+        // Assert
+        assertEquals(307, response.getStatus());
+        assertTrue(response.getLocation().toString().contains("X-Amz-Signature="));
+    }
+
+    @Test
+    @DisplayName("head in presigned mode should still be answered locally")
+    void head_presigned_shouldAnswerLocally() {
+        // Act
+        Response response = downloadService.head(DOCUMENT, accepting(MediaType.WILDCARD_TYPE));
+
+        // Assert
+        assertEquals(200, response.getStatus());
+        assertEquals("100", response.getHeaderString(HttpHeaders.CONTENT_LENGTH));
+        assertNull(response.getEntity());
+    }
+}
@@ -0,0 +1,110 @@
+package gr.hua.service;
+
+import gr.hua.model.entity.Company;
+import gr.hua.model.entity.KeycloakUser;
+import gr.hua.model.enums.RecordFormat;
+import gr.hua.model.enums.RegistrationState;
+import gr.hua.repository.ArticleDocumentRepository;
+import gr.hua.repository.CompanyRepository;
+import gr.hua.repository.KeycloakUserRepository;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.BadRequestException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@QuarkusTest
+@DisplayName("ExportService Tests")
+class ExportServiceTest {
+
+    @Inject
+    ExportService exportService;
+
+    @Inject
+    CompanyRepository companyRepository;
+
+    @Inject
+    ArticleDocumentRepository articleDocumentRepository;
+
+    @Inject
+    KeycloakUserRepository keycloakUserRepository;
+
+    @BeforeEach
+    void setUp() {
+        QuarkusTransaction.requiringNew().run(() -> {
+            articleDocumentRepository.deleteAll();
+            companyRepository.deleteAll();
+            keycloakUserRepository.deleteAll();
+
+            createCompany(0, RegistrationState.ACCEPTED, "2024-01-01T00:00:00Z");
+            createCompany(1, RegistrationState.ACCEPTED, "2024-02-01T00:00:00Z");
+            createCompany(2, RegistrationState.PENDING, "2024-02-01T00:00:00Z");
+        });
+    }
+
+    private void createCompany(int index, RegistrationState state, String timestamp) {
+        KeycloakUser representative = new KeycloakUser();
+        representative.setKeycloakId("export-rep-" + index);
+        keycloakUserRepository.persist(representative);
+
+        Company company = new Company(representative, "Export " + index, "export" + index + "@test.com", "Goal", "HQ " + index, "Execs");
+        company.setState(state);
+        company.setTimestamp(Timestamp.from(Instant.parse(timestamp)));
+        if (state == RegistrationState.ACCEPTED) {
+            company.setTaxId("TID-" + index);
+        }
+        companyRepository.persist(company);
+    }
+
+    private String export(RegistrationState state, String from, String to, RecordFormat format) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        exportService.export(state, from, to, format).write(output);
+        return output.toString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    @DisplayName("export as NDJSON should write one accepted company per line in id order")
+    void export_asNdjson_shouldWriteOneLinePerCompany() throws IOException {
+        // Act
+        String body = export(RegistrationState.ACCEPTED, null, null, RecordFormat.NDJSON);
+
+        // Assert
+        String[] lines = body.split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(body.endsWith("\n"));
+        assertTrue(lines[0].contains("\"taxId\":\"TID-0\""));
+        assertTrue(lines[1].contains("\"taxId\":\"TID-1\""));
+        assertFalse(body.contains("Export 2"));
+    }
+
+    @Test
+    @DisplayName("export as CSV should write a header and honour the time window")
+    void export_asCsvWithWindow_shouldFilterByTimestamp() throws IOException {
+        // Act
+        String body = export(RegistrationState.ACCEPTED, "2024-01-15T00:00:00Z", "2024-03-01T00:00:00Z", RecordFormat.CSV);
+
+        // Assert
+        String[] lines = body.split("\n");
+        assertEquals(2, lines.length);
+        assertEquals("id,taxId,name,email,hq,state,timestamp", lines[0]);
+        assertTrue(lines[1].contains("TID-1,\"Export 1\",export1@test.com,\"HQ 1\",ACCEPTED"));
+    }
+
+    @Test
+    @DisplayName("export with malformed window bound should fail before writing")
+    void export_withMalformedBound_shouldThrowBadRequest() {
+        // Act & Assert
+        assertThrows(BadRequestException.class,
+                () -> exportService.export(RegistrationState.ACCEPTED, "yesterday", null, RecordFormat.CSV));
+    }
+}
@@ -0,0 +1,200 @@
+package gr.hua.service;
+
+import gr.hua.model.entity.Company;
+import gr.hua.model.enums.RecordFormat;
+import gr.hua.model.enums.RegistrationDecision;
+import gr.hua.model.enums.RegistrationState;
+import gr.hua.model.request.ProcessRequest;
+import gr.hua.model.response.ImportJobResponse;
+import gr.hua.repository.ArticleDocumentRepository;
+import gr.hua.repository.CompanyRepository;
+import gr.hua.repository.ImportJobRepository;
+import gr.hua.repository.KeycloakUserRepository;
+import gr.hua.taxid.TaxIdFormat;
+import gr.hua.taxid.TaxIdGenerator;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.BadRequestException;
+import jakarta.ws.rs.ClientErrorException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs against the database: the import loads rows over COPY. Chunks are 2 records in the test profile.
+ */
+@QuarkusTest
+@DisplayName("ImportService Tests")
+class ImportServiceTest {
+
+    @Inject
+    ImportService importService;
+
+    @Inject
+    ImportJobRepository importJobRepository;
+
+    @Inject
+    CompanyRepository companyRepository;
+
+    @Inject
+    ArticleDocumentRepository articleDocumentRepository;
+
+    @Inject
+    KeycloakUserRepository keycloakUserRepository;
+
+    @Inject
+    IssuingService issuingService;
+
+    @Inject
+    TaxIdGenerator taxIdGenerator;
+
+    @BeforeEach
+    void setUp() {
+        QuarkusTransaction.requiringNew().run(() -> {
+            articleDocumentRepository.deleteAll();
+            companyRepository.deleteAll();
+            keycloakUserRepository.deleteAll();
+            importJobRepository.deleteAll();
+        });
+    }
+
+    private static String ndjson(int index) {
+        return "{\"keycloakId\":\"legacy-" + index + "\",\"username\":\"legacy" + index + "\",\"name\":\"Legacy " + index
+                + "\",\"email\":\"legacy" + index + "@test.com\",\"goal\":\"Goal\",\"hq\":\"HQ\",\"executives\":\"Execs\"}\n";
+    }
+
+    private static InputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @DisplayName("importRegistrations with NDJSON should load valid records and reject invalid ones")
+    void importRegistrations_withNdjson_shouldLoadValidAndRejectInvalid() {
+        // Arrange
+        String input = ndjson(0) + ndjson(1)
+                + "{\"keycloakId\":\"legacy-bad\",\"name\":\"No Email\",\"goal\":\"G\",\"hq\":\"H\",\"executives\":\"E\"}\n"
+                + ndjson(1).replace("legacy-1", "legacy-dup")
+                + ndjson(4);
+
+        // Act
+        ImportJobResponse response = importService.importRegistrations(null, 0, RecordFormat.NDJSON, stream(input));
+
+        // Assert
+        assertEquals(5, response.getCommittedRecords());
+        assertEquals(3, response.getImported());
+        assertEquals(1, response.getSkipped());
+        assertEquals(1, response.getRejected());
+        assertEquals(1, response.getErrors().size());
+        assertTrue(response.getErrors().get(0).startsWith("record 2: email"));
+        QuarkusTransaction.requiringNew().run(() -> {
+            assertEquals(3, companyRepository.count());
+            Company company = companyRepository.find("email", "legacy4@test.com").firstResult();
+            assertEquals(RegistrationState.PENDING, company.getState());
+            assertEquals("legacy-4", company.getRepresentative().getKeycloakId());
+            assertEquals(0L, company.getVersion());
+        });
+    }
+
+    @Test
+    @DisplayName("importRegistrations with CSV should load records with state and tax id")
+    void importRegistrations_withCsv_shouldLoadRecords() {
+        // Arrange
+        String input = """
+                keycloakId,username,name,email,goal,hq,executives,taxId,state,timestamp
+                legacy-csv,csvuser,"Csv, Inc.",csv@test.com,"Goal with \"\"quotes\"\"",HQ,Execs,LEGACY-1,ACCEPTED,2015-03-01T10:00:00Z
+                """;
+
+        // Act
+        ImportJobResponse response = importService.importRegistrations(null, 0, RecordFormat.CSV, stream(input));
+
+        // Assert
+        assertEquals(1, response.getImported());
+        QuarkusTransaction.requiringNew().run(() -> {
+            Company company = companyRepository.find("email", "csv@test.com").firstResult();
+            assertEquals("Csv, Inc.", company.getName());
+            assertEquals("Goal with \"quotes\"", company.getGoal());
+            assertEquals("LEGACY-1", company.getTaxId());
+            assertEquals(RegistrationState.ACCEPTED, company.getState());
+        });
+    }
+
+    @Test
+    @DisplayName("importRegistrations should resume a failed job after its last committed chunk")
+    void importRegistrations_afterMalformedRecord_shouldResumeFromCheckpoint() {
+        // Arrange
+        String valid = ndjson(0) + ndjson(1) + ndjson(2) + ndjson(3);
+        String broken = ndjson(0) + ndjson(1) + ndjson(2) + "{\"keycloakId\": oops\n";
+        BadRequestException failure = assertThrows(BadRequestException.class,
+                () -> importService.importRegistrations(null, 0, RecordFormat.NDJSON, stream(broken)));
+        Long jobId = QuarkusTransaction.requiringNew().call(() -> importJobRepository.findAll().firstResult().getId());
+
+        // Act
+        ImportJobResponse checkpoint = importService.getJob(jobId);
+        ImportJobResponse resumed = importService.importRegistrations(jobId, 0, RecordFormat.NDJSON, stream(valid));
+
+        // Assert
+        assertTrue(failure.getMessage().contains("2 records committed"));
+        assertEquals(2, checkpoint.getCommittedRecords());
+        assertEquals(4, resumed.getCommittedRecords());
+        assertEquals(4, resumed.getImported());
+        assertEquals(0, resumed.getSkipped());
+        assertEquals(4, QuarkusTransaction.requiringNew().call(() -> companyRepository.count()));
+    }
+
+    @Test
+    @DisplayName("importRegistrations should accept the remainder of the input and refuse gaps")
+    void importRegistrations_withFrom_shouldContinueOrRefuseGap() {
+        // Arrange
+        ImportJobResponse first = importService.importRegistrations(null, 0, RecordFormat.NDJSON, stream(ndjson(0) + ndjson(1)));
+
+        // Act
+        ImportJobResponse second = importService.importRegistrations(first.getId(), 2, RecordFormat.NDJSON, stream(ndjson(2)));
+        ClientErrorException gap = assertThrows(ClientErrorException.class,
+                () -> importService.importRegistrations(first.getId(), 5, RecordFormat.NDJSON, stream(ndjson(5))));
+
+        // Assert
+        assertEquals(3, second.getCommittedRecords());
+        assertEquals(3, second.getImported());
+        assertEquals(409, gap.getResponse().getStatus());
+    }
+
+    @Test
+    @DisplayName("accepting a registration after importing an id from the generator's block should skip to a free id")
+    void importRegistrations_withIdFromGeneratorBlock_shouldNotBlockAccepting() {
+        // Arrange
+        long body = Long.parseLong(taxIdGenerator.next().substring(0, TaxIdFormat.LENGTH - 1));
+        String imported = TaxIdFormat.format(body + 1);
+        String input = """
+                keycloakId,username,name,email,goal,hq,executives,taxId,state,timestamp
+                legacy-held,held,Held,held@test.com,Goal,HQ,Execs,%s,ACCEPTED,2015-03-01T10:00:00Z
+                legacy-pending,pending,Pending,pending@test.com,Goal,HQ,Execs,,PENDING,2015-03-01T10:00:00Z
+                """.formatted(imported);
+        importService.importRegistrations(null, 0, RecordFormat.CSV, stream(input));
+        Long pendingId = QuarkusTransaction.requiringNew()
+                .call(() -> companyRepository.find("email", "pending@test.com").firstResult().getId());
+        ProcessRequest request = new ProcessRequest();
+        request.setCompanyId(pendingId);
+        request.setDecision(RegistrationDecision.ACCEPT);
+
+        // Act
+        issuingService.processPending(request);
+
+        // Assert
+        QuarkusTransaction.requiringNew().run(() -> {
+            Company accepted = companyRepository.findById(pendingId);
+            assertEquals(RegistrationState.ACCEPTED, accepted.getState());
+            assertTrue(TaxIdFormat.isValid(accepted.getTaxId()));
+            assertNotEquals(imported, accepted.getTaxId());
+            long sequence = ((Number) companyRepository.getEntityManager()
+                    .createNativeQuery("select last_value from taxid_seq").getSingleResult()).longValue();
+            assertTrue(sequence >= body + 1);
+        });
+    }
+}
@@ -1,34 +1,47 @@
 package gr.hua.service;
 
+import gr.hua.cache.DocumentFileCache;
 import gr.hua.model.entity.Company;
 import gr.hua.model.entity.KeycloakUser;
 import gr.hua.model.enums.RegistrationDecision;
 import gr.hua.model.enums.RegistrationState;
 import gr.hua.model.mapper.CompanyMapper;
+import gr.hua.model.projection.ArticleDocumentSummary;
+import gr.hua.model.projection.CompanySummary;
+import gr.hua.model.request.PageCursor;
 import gr.hua.model.request.ProcessRequest;
+import gr.hua.model.response.ArticleDocumentResponse;
 import gr.hua.model.response.CompanyResponse;
+import gr.hua.model.response.PageResponse;
+import gr.hua.repository.ArticleDocumentRepository;
 import gr.hua.repository.CompanyRepository;
+import gr.hua.taxid.TaxIdFormat;
 import io.quarkus.test.InjectMock;
 import io.quarkus.test.junit.QuarkusTest;
 import jakarta.inject.Inject;
+import jakarta.ws.rs.BadRequestException;
 import jakarta.ws.rs.NotAcceptableException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
 
+import java.nio.charset.StandardCharsets;
 import java.sql.Timestamp;
 import java.util.Arrays;
+import java.util.Base64;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Optional;
-import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 
 @QuarkusTest
@@ -41,9 +54,15 @@ class IssuingServiceTest {
     @InjectMock
     CompanyRepository companyRepository;
 
+    @InjectMock
+    ArticleDocumentRepository articleDocumentRepository;
+
     @InjectMock
     CompanyMapper companyMapper;
 
+    @InjectMock
+    DocumentFileCache documentFileCache;
+
     private Company pendingCompany;
     private Company acceptedCompany;
     private Company deniedCompany;
@@ -95,42 +114,117 @@ class IssuingServiceTest {
     }
 
     @Test
-    @DisplayName("getAllPending should return mapped pending companies")
-    void getAllPending_shouldReturnMappedPendingCompanies() {
+    @DisplayName("getPending should return mapped pending companies with their documents")
+    void getPending_shouldReturnMappedPendingCompanies() {
         // Arrange
-        List<Company> companies = Arrays.asList(pendingCompany);
+        CompanySummary summary = summaryOf(pendingCompany);
+        ArticleDocumentSummary document = new ArticleDocumentSummary(
+                5L, pendingCompany.getId(), "key/articles.pdf", "articles.pdf", "application/pdf", 1024L, new Timestamp(System.currentTimeMillis()));
+        ArticleDocumentResponse documentResponse = new ArticleDocumentResponse();
+        documentResponse.setId(5L);
         CompanyResponse response = new CompanyResponse();
         response.setId(1L);
         response.setName("Test Company");
 
-        when(companyRepository.findbyState(RegistrationState.PENDING)).thenReturn(companies);
-        when(companyMapper.toCompanyResponseList(companies)).thenReturn(Arrays.asList(response));
+        when(companyRepository.findSummaryPageByState(eq(RegistrationState.PENDING), isNull(), anyInt()))
+                .thenReturn(Arrays.asList(summary));
+        when(articleDocumentRepository.findSummariesByCompanyIds(List.of(1L))).thenReturn(Arrays.asList(document));
+        when(companyMapper.toArticleDocumentResponse(document)).thenReturn(documentResponse);
+        when(companyMapper.toCompanyResponse(summary, List.of(documentResponse))).thenReturn(response);
 
         // Act
-        List<CompanyResponse> result = issuingService.getAllPending();
+        PageResponse<CompanyResponse> result = issuingService.getPending(null, null);
 
         // Assert
         assertNotNull(result);
-        assertEquals(1, result.size());
-        assertEquals("Test Company", result.get(0).getName());
-        verify(companyRepository).findbyState(RegistrationState.PENDING);
-        verify(companyMapper).toCompanyResponseList(companies);
+        assertEquals(1, result.getItems().size());
+        assertEquals("Test Company", result.getItems().get(0).getName());
+        assertNull(result.getNextCursor());
+        verify(articleDocumentRepository).findSummariesByCompanyIds(List.of(1L));
+        verify(companyMapper).toCompanyResponse(summary, List.of(documentResponse));
+        verify(documentFileCache).prefetch(Map.of("key/articles.pdf", 1024L));
     }
 
     @Test
-    @DisplayName("getAllPending should return empty list when no pending companies")
-    void getAllPending_shouldReturnEmptyListWhenNoPendingCompanies() {
+    @DisplayName("getPending should return empty page and skip the document query when no pending companies")
+    void getPending_shouldReturnEmptyPageWhenNoPendingCompanies() {
         // Arrange
-        when(companyRepository.findbyState(RegistrationState.PENDING)).thenReturn(Collections.emptyList());
-        when(companyMapper.toCompanyResponseList(anyList())).thenReturn(Collections.emptyList());
+        when(companyRepository.findSummaryPageByState(eq(RegistrationState.PENDING), isNull(), anyInt()))
+                .thenReturn(Collections.emptyList());
 
         // Act
-        List<CompanyResponse> result = issuingService.getAllPending();
+        PageResponse<CompanyResponse> result = issuingService.getPending(null, null);
 
         // Assert
         assertNotNull(result);
-        assertTrue(result.isEmpty());
-        verify(companyRepository).findbyState(RegistrationState.PENDING);
+        assertTrue(result.getItems().isEmpty());
+        assertNull(result.getNextCursor());
+        verify(articleDocumentRepository, never()).findSummariesByCompanyIds(any());
+    }
+
+    @Test
+    @DisplayName("getPending should fetch one extra row and return a cursor to the last item when more exist")
+    void getPending_withMoreRows_shouldReturnNextCursor() {
+        // Arrange
+        Company secondPending = new Company(
+                representative,
+                "Second Company",
+                "second@company.com",
+                "Second goal",
+                "Second HQ",
+                "Second Executives"
+        );
+        secondPending.setId(4L);
+        secondPending.setTimestamp(new Timestamp(pendingCompany.getTimestamp().getTime() + 1000));
+
+        when(companyRepository.findSummaryPageByState(RegistrationState.PENDING, null, 2))
+                .thenReturn(Arrays.asList(summaryOf(pendingCompany), summaryOf(secondPending)));
+        when(articleDocumentRepository.findSummariesByCompanyIds(anyList())).thenReturn(Collections.emptyList());
+        when(companyMapper.toCompanyResponse(any(CompanySummary.class), anyList())).thenReturn(new CompanyResponse());
+
+        // Act
+        PageResponse<CompanyResponse> result = issuingService.getPending(null, 1);
+
+        // Assert
+        assertEquals(1, result.getItems().size());
+        assertNotNull(result.getNextCursor());
+        PageCursor cursor = PageCursor.decode(result.getNextCursor());
+        assertEquals(pendingCompany.getId(), cursor.id());
+        assertEquals(pendingCompany.getTimestamp(), cursor.timestamp());
+        verify(articleDocumentRepository).findSummariesByCompanyIds(List.of(1L));
+    }
+
+    @Test
+    @DisplayName("getPending should resume after the decoded cursor")
+    void getPending_withCursor_shouldResumeAfterCursor() {
+        // Arrange
+        PageCursor cursor = new PageCursor(pendingCompany.getTimestamp(), pendingCompany.getId());
+        when(companyRepository.findSummaryPageByState(any(), any(), anyInt())).thenReturn(Collections.emptyList());
+
+        // Act
+        issuingService.getPending(cursor.encode(), 10);
+
+        // Assert
+        verify(companyRepository).findSummaryPageByState(RegistrationState.PENDING, cursor, 11);
+    }
+
+    @Test
+    @DisplayName("getPending with malformed cursor should throw BadRequestException")
+    void getPending_withMalformedCursor_shouldThrowBadRequestException() {
+        assertThrows(BadRequestException.class, () -> issuingService.getPending("not-a-cursor", null));
+        verify(companyRepository, never()).findSummaryPageByState(any(), any(), anyInt());
+    }
+
+    @Test
+    @DisplayName("getPending with a cursor whose timestamp is out of range should throw BadRequestException")
+    void getPending_withOutOfRangeCursor_shouldThrowBadRequestException() {
+        // Arrange
+        String cursor = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((Long.MAX_VALUE + ":0:1").getBytes(StandardCharsets.UTF_8));
+
+        // Act & Assert
+        assertThrows(BadRequestException.class, () -> issuingService.getPending(cursor, null));
+        verify(companyRepository, never()).findSummaryPageByState(any(), any(), anyInt());
     }
 
     @Test
@@ -154,8 +248,7 @@ class IssuingServiceTest {
 
         assertEquals(RegistrationState.ACCEPTED, persistedCompany.getState());
         assertNotNull(persistedCompany.getTaxId());
-        // Verify it's a valid UUID format
-        assertDoesNotThrow(() -> UUID.fromString(persistedCompany.getTaxId()));
+        assertTrue(TaxIdFormat.isValid(persistedCompany.getTaxId()));
     }
 
     @Test
@@ -289,4 +382,21 @@ class IssuingServiceTest {
         assertNotNull(taxId2);
         assertNotEquals(taxId1, taxId2, "Tax IDs should be unique");
     }
+
+    private static CompanySummary summaryOf(Company company) {
+        return new CompanySummary(
+                company.getId(),
+                company.getRepresentative().getId(),
+                company.getRepresentative().getKeycloakId(),
+                company.getRepresentative().getUsername(),
+                company.getName(),
+                company.getEmail(),
+                company.getTaxId(),
+                company.getState(),
+                company.getTimestamp(),
+                company.getGoal(),
+                company.getHq(),
+                company.getExecutives()
+        );
+    }
 }
@@ -2,18 +2,25 @@ package gr.hua.service;
 
 import gr.hua.model.entity.KeycloakUser;
 import gr.hua.repository.KeycloakUserRepository;
-import io.quarkus.hibernate.orm.panache.PanacheQuery;
+import io.quarkus.cache.Cache;
+import io.quarkus.cache.CacheName;
+import io.quarkus.narayana.jta.QuarkusTransaction;
 import io.quarkus.test.InjectMock;
 import io.quarkus.test.junit.QuarkusTest;
 import jakarta.inject.Inject;
+import jakarta.transaction.SystemException;
+import jakarta.transaction.Transaction;
+import jakarta.transaction.TransactionManager;
 import org.eclipse.microprofile.jwt.JsonWebToken;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
-import org.mockito.ArgumentCaptor;
+
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @QuarkusTest
@@ -29,10 +36,23 @@ class KeycloakServiceTest {
     @InjectMock
     JsonWebToken jwt;  // No @IdToken - service uses access token
 
+    @Inject
+    CurrentUser currentUser;
+
+    @CacheName(KeycloakService.USER_CACHE)
+    Cache userCache;
+
+    @Inject
+    TransactionManager transactionManager;
+
     private KeycloakUser existingUser;
 
     @BeforeEach
     void setUp() {
+        // Start every test with a cold cache and no principal resolved for the request
+        userCache.invalidateAll().await().indefinitely();
+        currentUser.setUser(null);
+
         // Create existing user
         existingUser = new KeycloakUser();
         existingUser.setId(1L);
@@ -44,13 +64,9 @@ class KeycloakServiceTest {
     @DisplayName("getUser with existing user should return existing user")
     void getUser_withExistingUser_shouldReturnExistingUser() {
         // Arrange
-        @SuppressWarnings("unchecked")
-        PanacheQuery<KeycloakUser> mockQuery = mock(PanacheQuery.class);
-
         when(jwt.getSubject()).thenReturn("keycloak-123");
         when(jwt.getName()).thenReturn("existinguser");
-        when(keycloakUserRepository.findByKeycloakId("keycloak-123")).thenReturn(mockQuery);
-        when(mockQuery.firstResult()).thenReturn(existingUser);
+        when(keycloakUserRepository.provision("keycloak-123", "existinguser")).thenReturn(existingUser);
 
         // Act
         KeycloakUser result = keycloakService.getUser();
@@ -60,49 +76,39 @@ class KeycloakServiceTest {
         assertEquals("keycloak-123", result.getKeycloakId());
         assertEquals("existinguser", result.getUsername());
         assertEquals(1L, result.getId());
-        verify(keycloakUserRepository).findByKeycloakId("keycloak-123");
+        verify(keycloakUserRepository).provision("keycloak-123", "existinguser");
         verify(keycloakUserRepository, never()).persist(any(KeycloakUser.class));
     }
 
     @Test
-    @DisplayName("getUser with non-existent user should create and return new user")
-    void getUser_withNonExistentUser_shouldCreateAndReturnNewUser() {
+    @DisplayName("getUser with non-existent user should provision and return new user")
+    void getUser_withNonExistentUser_shouldProvisionAndReturnNewUser() {
         // Arrange
-        @SuppressWarnings("unchecked")
-        PanacheQuery<KeycloakUser> mockQuery = mock(PanacheQuery.class);
+        KeycloakUser provisioned = new KeycloakUser(2L, "new-keycloak-id", "newuser");
 
         when(jwt.getSubject()).thenReturn("new-keycloak-id");
         when(jwt.getName()).thenReturn("newuser");
-        when(keycloakUserRepository.findByKeycloakId("new-keycloak-id")).thenReturn(mockQuery);
-        when(mockQuery.firstResult()).thenReturn(null);
-
-        ArgumentCaptor<KeycloakUser> userCaptor = ArgumentCaptor.forClass(KeycloakUser.class);
+        when(keycloakUserRepository.provision("new-keycloak-id", "newuser")).thenReturn(provisioned);
 
         // Act
         KeycloakUser result = keycloakService.getUser();
 
         // Assert
         assertNotNull(result);
+        assertEquals(2L, result.getId());
         assertEquals("new-keycloak-id", result.getKeycloakId());
         assertEquals("newuser", result.getUsername());
-
-        verify(keycloakUserRepository).persist(userCaptor.capture());
-        KeycloakUser persistedUser = userCaptor.getValue();
-        assertEquals("new-keycloak-id", persistedUser.getKeycloakId());
-        assertEquals("newuser", persistedUser.getUsername());
+        verify(keycloakUserRepository).provision("new-keycloak-id", "newuser");
     }
 
     @Test
-    @DisplayName("getUser should set keycloakId from JWT subject")
-    void getUser_shouldSetKeycloakIdFromJwtSubject() {
+    @DisplayName("getUser should provision with keycloakId from JWT subject")
+    void getUser_shouldProvisionWithKeycloakIdFromJwtSubject() {
         // Arrange
-        @SuppressWarnings("unchecked")
-        PanacheQuery<KeycloakUser> mockQuery = mock(PanacheQuery.class);
-
         when(jwt.getSubject()).thenReturn("subject-123");
         when(jwt.getName()).thenReturn("testuser");
-        when(keycloakUserRepository.findByKeycloakId("subject-123")).thenReturn(mockQuery);
-        when(mockQuery.firstResult()).thenReturn(null);
+        when(keycloakUserRepository.provision(anyString(), anyString()))
+                .thenReturn(new KeycloakUser(3L, "subject-123", "testuser"));
 
         // Act
         KeycloakUser result = keycloakService.getUser();
@@ -110,19 +116,17 @@ class KeycloakServiceTest {
         // Assert
         assertEquals("subject-123", result.getKeycloakId());
         verify(jwt).getSubject();
+        verify(keycloakUserRepository).provision(eq("subject-123"), anyString());
     }
 
     @Test
-    @DisplayName("getUser should set username from JWT name")
-    void getUser_shouldSetUsernameFromJwtName() {
+    @DisplayName("getUser should provision with username from JWT name")
+    void getUser_shouldProvisionWithUsernameFromJwtName() {
         // Arrange
-        @SuppressWarnings("unchecked")
-        PanacheQuery<KeycloakUser> mockQuery = mock(PanacheQuery.class);
-
         when(jwt.getSubject()).thenReturn("keycloak-456");
         when(jwt.getName()).thenReturn("testusername");
-        when(keycloakUserRepository.findByKeycloakId("keycloak-456")).thenReturn(mockQuery);
-        when(mockQuery.firstResult()).thenReturn(null);
+        when(keycloakUserRepository.provision(anyString(), anyString()))
+                .thenReturn(new KeycloakUser(4L, "keycloak-456", "testusername"));
 
         // Act
         KeycloakUser result = keycloakService.getUser();
@@ -130,25 +134,17 @@ class KeycloakServiceTest {
         // Assert
         assertEquals("testusername", result.getUsername());
         verify(jwt).getName();
+        verify(keycloakUserRepository).provision(anyString(), eq("testusername"));
     }
 
     @Test
-    @DisplayName("getUser with multiple calls should not create duplicates")
-    void getUser_withMultipleCalls_shouldNotCreateDuplicates() {
+    @DisplayName("getUser with multiple calls in one request should resolve the user once")
+    void getUser_withMultipleCalls_shouldResolveOncePerRequest() {
         // Arrange
-        @SuppressWarnings("unchecked")
-        PanacheQuery<KeycloakUser> mockQuery = mock(PanacheQuery.class);
-
-        String keycloakId = "keycloak-789";
-        String username = "multiuser";
-
-        // First call - user doesn't exist
-        when(jwt.getSubject()).thenReturn(keycloakId);
-        when(jwt.getName()).thenReturn(username);
-        when(keycloakUserRepository.findByKeycloakId(keycloakId)).thenReturn(mockQuery);
-        when(mockQuery.firstResult())
-                .thenReturn(null)  // First call: doesn't exist
-                .thenReturn(existingUser);  // Second call: exists
+        when(jwt.getSubject()).thenReturn("keycloak-789");
+        when(jwt.getName()).thenReturn("multiuser");
+        when(keycloakUserRepository.provision("keycloak-789", "multiuser"))
+                .thenReturn(new KeycloakUser(5L, "keycloak-789", "multiuser"));
 
         // Act
         KeycloakUser firstCall = keycloakService.getUser();
@@ -156,12 +152,57 @@ class KeycloakServiceTest {
 
         // Assert
         assertNotNull(firstCall);
-        assertNotNull(secondCall);
+        assertSame(firstCall, secondCall);
 
-        // Verify persist was called only once (during first call)
-        verify(keycloakUserRepository, times(1)).persist(any(KeycloakUser.class));
+        // Second call is served by the request-scoped holder
+        verify(keycloakUserRepository, times(1)).provision("keycloak-789", "multiuser");
+        verify(jwt, times(1)).getSubject();
+    }
 
-        // Verify findByKeycloakId was called twice (once per call)
-        verify(keycloakUserRepository, times(2)).findByKeycloakId(keycloakId);
+    @Test
+    @DisplayName("getUser in a later request should be served from the cache without a query")
+    void getUser_inLaterRequest_shouldHitCache() {
+        // Arrange
+        when(jwt.getSubject()).thenReturn("keycloak-123");
+        when(jwt.getName()).thenReturn("existinguser");
+        when(keycloakUserRepository.provision("keycloak-123", "existinguser")).thenReturn(existingUser);
+
+        // Act
+        KeycloakUser firstRequest = keycloakService.getUser();
+        currentUser.setUser(null);  // simulate a new request
+        KeycloakUser secondRequest = keycloakService.getUser();
+
+        // Assert
+        assertEquals(firstRequest.getId(), secondRequest.getId());
+        assertEquals("keycloak-123", secondRequest.getKeycloakId());
+        verify(keycloakUserRepository, times(1)).provision("keycloak-123", "existinguser");
+    }
+
+    @Test
+    @DisplayName("getUser should provision in a transaction of its own, so a caller's rollback cannot undo a cached user")
+    void getUser_insideCallerTransaction_shouldProvisionInNewTransaction() throws Exception {
+        // Arrange
+        AtomicReference<Transaction> provisionedIn = new AtomicReference<>();
+        when(jwt.getSubject()).thenReturn("keycloak-123");
+        when(jwt.getName()).thenReturn("existinguser");
+        when(keycloakUserRepository.provision("keycloak-123", "existinguser")).thenAnswer(invocation -> {
+            provisionedIn.set(transactionManager.getTransaction());
+            return existingUser;
+        });
+
+        // Act
+        AtomicReference<Transaction> caller = new AtomicReference<>();
+        QuarkusTransaction.requiringNew().run(() -> {
+            try {
+                caller.set(transactionManager.getTransaction());
+            } catch (SystemException e) {
+                throw new IllegalStateException(e);
+            }
+            keycloakService.getUser();
+        });
+
+        // Assert
+        assertNotNull(provisionedIn.get());
+        assertNotEquals(caller.get(), provisionedIn.get());
     }
 }
@@ -0,0 +1,110 @@
+package gr.hua.service;
+
+import gr.hua.model.entity.ObjectDeletion;
+import gr.hua.repository.ObjectDeletionRepository;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.InjectMock;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@QuarkusTest
+@DisplayName("ObjectDeletionWorker Tests")
+class ObjectDeletionWorkerTest {
+
+    @Inject
+    ObjectDeletionWorker objectDeletionWorker;
+
+    @Inject
+    ObjectDeletionRepository objectDeletionRepository;
+
+    @InjectMock
+    StorageService storageService;
+
+    @BeforeEach
+    void setUp() {
+        QuarkusTransaction.requiringNew().run(() -> {
+            objectDeletionRepository.deleteAll();
+            for (String key : List.of("outbox/a", "outbox/b", "outbox/c")) {
+                objectDeletionRepository.persist(new ObjectDeletion(key));
+            }
+        });
+    }
+
+    @Test
+    @DisplayName("drain should remove all queued objects in one batch request and empty the outbox")
+    void drain_shouldRemoveQueuedObjectsInOneBatch() {
+        // Arrange
+        when(storageService.deleteFiles(any())).thenReturn(Set.of());
+
+        // Act
+        int removed = objectDeletionWorker.drain();
+
+        // Assert
+        assertEquals(3, removed);
+        verify(storageService, times(1)).deleteFiles(List.of("outbox/a", "outbox/b", "outbox/c"));
+        verify(storageService, never()).deleteFile(any());
+        assertEquals(0, QuarkusTransaction.requiringNew().call(() -> objectDeletionRepository.count()));
+    }
+
+    @Test
+    @DisplayName("drain should keep objects MinIO failed to delete and count the attempt")
+    void drain_withFailedKey_shouldKeepItQueued() {
+        // Arrange
+        when(storageService.deleteFiles(any())).thenReturn(Set.of("outbox/b"));
+
+        // Act
+        int removed = objectDeletionWorker.drain();
+
+        // Assert
+        assertEquals(2, removed);
+        QuarkusTransaction.requiringNew().run(() -> {
+            List<ObjectDeletion> remaining = objectDeletionRepository.listAll();
+            assertEquals(1, remaining.size());
+            assertEquals("outbox/b", remaining.get(0).getObjectKey());
+            assertEquals(1, remaining.get(0).getAttempts());
+        });
+    }
+
+    @Test
+    @DisplayName("drain should park objects that reached the attempt limit and stop sending them")
+    void drain_withExhaustedAttempts_shouldParkRow() {
+        // Arrange
+        QuarkusTransaction.requiringNew().run(() -> objectDeletionRepository.update("attempts = 9 where objectKey = 'outbox/b'"));
+        when(storageService.deleteFiles(any())).thenReturn(Set.of("outbox/b"));
+        objectDeletionWorker.drain();
+        reset(storageService);
+
+        // Act
+        int removed = objectDeletionWorker.drain();
+
+        // Assert
+        assertEquals(0, removed);
+        verify(storageService, never()).deleteFiles(any());
+        QuarkusTransaction.requiringNew().run(() -> {
+            List<ObjectDeletion> remaining = objectDeletionRepository.listAll();
+            assertEquals(1, remaining.size());
+            assertEquals(10, remaining.get(0).getAttempts());
+        });
+    }
+
+    @Test
+    @DisplayName("drain should leave the outbox intact when the batch request fails")
+    void drain_whenStorageUnavailable_shouldLeaveOutboxIntact() {
+        // Arrange
+        when(storageService.deleteFiles(any())).thenThrow(new RuntimeException("Failed to delete files from MinIO"));
+
+        // Act & Assert
+        assertThrows(RuntimeException.class, () -> objectDeletionWorker.drain());
+        assertEquals(3, QuarkusTransaction.requiringNew().call(() -> objectDeletionRepository.count()));
+    }
+}
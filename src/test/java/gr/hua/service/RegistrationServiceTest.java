@@ -4,21 +4,41 @@ import gr.hua.model.entity.Company;
 import gr.hua.model.entity.ArticleDocument;
 import gr.hua.model.entity.KeycloakUser;
 import gr.hua.model.enums.RegistrationState;
+import gr.hua.cache.DocumentMetadataCache;
 import gr.hua.model.mapper.CompanyMapper;
+import gr.hua.model.projection.DocumentMetadata;
 import gr.hua.model.request.RegistrationRequest;
 import gr.hua.model.request.UpdateRequest;
 import gr.hua.model.response.CompanyResponse;
 import gr.hua.repository.ArticleDocumentRepository;
 import gr.hua.repository.CompanyRepository;
+import gr.hua.repository.StoredBlobRepository;
+import gr.hua.repository.UploadSessionRepository;
 import io.quarkus.test.InjectMock;
 import io.quarkus.test.junit.QuarkusTest;
+import io.smallrye.mutiny.Uni;
 import jakarta.inject.Inject;
 import jakarta.validation.ValidationException;
+import jakarta.ws.rs.BadRequestException;
+import jakarta.ws.rs.ClientErrorException;
+import jakarta.ws.rs.ForbiddenException;
+import jakarta.ws.rs.NotFoundException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
@@ -46,6 +66,15 @@ class RegistrationServiceTest {
     @InjectMock
     ArticleDocumentRepository articleDocumentRepository;
 
+    @InjectMock
+    StoredBlobRepository storedBlobRepository;
+
+    @InjectMock
+    UploadSessionRepository uploadSessionRepository;
+
+    @Inject
+    DocumentMetadataCache documentMetadataCache;
+
     private KeycloakUser mockUser;
     private Company pendingCompany;
     private Company acceptedCompany;
@@ -53,6 +82,8 @@ class RegistrationServiceTest {
 
     @BeforeEach
     void setUp() {
+        documentMetadataCache.invalidateAll();
+
         // Create mock user
         mockUser = new KeycloakUser();
         mockUser.setId(1L);
@@ -104,8 +135,8 @@ class RegistrationServiceTest {
         expectedResponse.setId(1L);
         expectedResponse.setName("Pending Company");
 
-        when(keycloakService.getUser()).thenReturn(mockUser);
-        when(companyRepository.findByRepId(1L)).thenReturn(pendingCompany);
+        when(keycloakService.getSubject()).thenReturn(mockUser.getKeycloakId());
+        when(companyRepository.findByRepKeycloakId(mockUser.getKeycloakId())).thenReturn(pendingCompany);
         when(companyMapper.toCompanyResponse(pendingCompany)).thenReturn(expectedResponse);
 
         // Act
@@ -115,25 +146,27 @@ class RegistrationServiceTest {
         assertNotNull(result);
         assertEquals(1L, result.getId());
         assertEquals("Pending Company", result.getName());
-        verify(keycloakService).getUser();
-        verify(companyRepository).findByRepId(1L);
+        verify(keycloakService).getSubject();
+        verify(companyRepository).findByRepKeycloakId("keycloak-123");
         verify(companyMapper).toCompanyResponse(pendingCompany);
     }
 
     @Test
-    @DisplayName("getRegistrationByRep should call KeycloakService and repository in correct order")
-    void getRegistrationByRep_shouldCallKeycloakServiceAndRepository() {
+    @DisplayName("getRegistrationByRep should resolve the company from the JWT subject in one lookup")
+    void getRegistrationByRep_shouldResolveCompanyFromSubject() {
         // Arrange
-        when(keycloakService.getUser()).thenReturn(mockUser);
-        when(companyRepository.findByRepId(1L)).thenReturn(pendingCompany);
+        when(keycloakService.getSubject()).thenReturn(mockUser.getKeycloakId());
+        when(companyRepository.findByRepKeycloakId(mockUser.getKeycloakId())).thenReturn(pendingCompany);
         when(companyMapper.toCompanyResponse(any())).thenReturn(new CompanyResponse());
 
         // Act
         registrationService.getRegistrationByRep();
 
         // Assert
-        verify(keycloakService).getUser();
-        verify(companyRepository).findByRepId(mockUser.getId());
+        verify(keycloakService).getSubject();
+        verify(keycloakService, never()).getUser();
+        verify(companyRepository).findByRepKeycloakId(mockUser.getKeycloakId());
+        verify(companyRepository, never()).findByRepId(anyLong());
     }
 
     @Test
@@ -148,8 +181,8 @@ class RegistrationServiceTest {
         request.setHq("Updated HQ");
         request.setExecutives("Updated Executives");
 
-        when(keycloakService.getUser()).thenReturn(mockUser);
-        when(companyRepository.findByRepId(mockUser.getId())).thenReturn(pendingCompany);
+        when(keycloakService.getSubject()).thenReturn(mockUser.getKeycloakId());
+        when(companyRepository.findByRepKeycloakId(mockUser.getKeycloakId())).thenReturn(pendingCompany);
 
         ArgumentCaptor<Company> companyCaptor = ArgumentCaptor.forClass(Company.class);
 
@@ -179,8 +212,8 @@ class RegistrationServiceTest {
         request.setHq("Updated Denied HQ");
         request.setExecutives("Updated Denied Executives");
 
-        when(keycloakService.getUser()).thenReturn(mockUser);
-        when(companyRepository.findByRepId(mockUser.getId())).thenReturn(deniedCompany);
+        when(keycloakService.getSubject()).thenReturn(mockUser.getKeycloakId());
+        when(companyRepository.findByRepKeycloakId(mockUser.getKeycloakId())).thenReturn(deniedCompany);
 
         ArgumentCaptor<Company> companyCaptor = ArgumentCaptor.forClass(Company.class);
 
@@ -207,8 +240,8 @@ class RegistrationServiceTest {
         request.setHq("Should Not Update HQ");
         request.setExecutives("Should Not Update Executives");
 
-        when(keycloakService.getUser()).thenReturn(mockUser);
-        when(companyRepository.findByRepId(mockUser.getId())).thenReturn(acceptedCompany);
+        when(keycloakService.getSubject()).thenReturn(mockUser.getKeycloakId());
+        when(companyRepository.findByRepKeycloakId(mockUser.getKeycloakId())).thenReturn(acceptedCompany);
 
         // Act & Assert
         ValidationException exception = assertThrows(ValidationException.class, () -> {
@@ -231,8 +264,8 @@ class RegistrationServiceTest {
         request.setHq("Updated HQ");
         request.setExecutives("Updated Executives");
 
-        when(keycloakService.getUser()).thenReturn(mockUser);
-        when(companyRepository.findByRepId(mockUser.getId())).thenReturn(pendingCompany);
+        when(keycloakService.getSubject()).thenReturn(mockUser.getKeycloakId());
+        when(companyRepository.findByRepKeycloakId(mockUser.getKeycloakId())).thenReturn(pendingCompany);
 
         ArgumentCaptor<Company> companyCaptor = ArgumentCaptor.forClass(Company.class);
 
@@ -258,8 +291,8 @@ class RegistrationServiceTest {
         request.setHq("Updated HQ");
         request.setExecutives("Updated Executives");
 
-        when(keycloakService.getUser()).thenReturn(mockUser);
-        when(companyRepository.findByRepId(mockUser.getId())).thenReturn(pendingCompany);
+        when(keycloakService.getSubject()).thenReturn(mockUser.getKeycloakId());
+        when(companyRepository.findByRepKeycloakId(mockUser.getKeycloakId())).thenReturn(pendingCompany);
 
         ArgumentCaptor<Company> companyCaptor = ArgumentCaptor.forClass(Company.class);
 
@@ -333,35 +366,21 @@ class RegistrationServiceTest {
     }
 
     @Test
-    @DisplayName("deleteRegistration with PENDING company should delete all files and company")
+    @DisplayName("deleteRegistration with PENDING company should bulk-delete and queue its files and uploads, then delete the company")
     void deleteRegistration_withPendingCompany_shouldDeleteAllFilesAndCompany() {
         // Arrange
-        ArticleDocument firstDocument = new ArticleDocument(
-                pendingCompany,
-                "first-file-key",
-                "first.pdf",
-                "application/pdf",
-                100L
-        );
-        ArticleDocument secondDocument = new ArticleDocument(
-                pendingCompany,
-                "second-file-key",
-                "second.pdf",
-                "application/pdf",
-                200L
-        );
-
-        when(keycloakService.getUser()).thenReturn(mockUser);
-        when(companyRepository.findByRepId(mockUser.getId())).thenReturn(pendingCompany);
-        when(articleDocumentRepository.findByCompanyId(pendingCompany.getId()))
-                .thenReturn(java.util.List.of(firstDocument, secondDocument));
+        when(keycloakService.getSubject()).thenReturn(mockUser.getKeycloakId());
+        when(companyRepository.findByRepKeycloakIdForUpdate(mockUser.getKeycloakId())).thenReturn(pendingCompany);
+        when(articleDocumentRepository.deleteQueuingObjects(pendingCompany.getId(), null)).thenReturn(List.of(1L, 2L));
 
         // Act
         registrationService.deleteRegistration();
 
         // Assert
-        verify(storageService).deleteFile("first-file-key");
-        verify(storageService).deleteFile("second-file-key");
+        verify(articleDocumentRepository).deleteQueuingObjects(pendingCompany.getId(), null);
+        verify(uploadSessionRepository).deleteByCompanyIdQueuingParts(pendingCompany.getId());
+        verify(storageService, never()).deleteFile(anyString());
+        verify(storageService, never()).deleteFiles(any());
         verify(companyRepository).delete(pendingCompany);
     }
 
@@ -369,8 +388,8 @@ class RegistrationServiceTest {
     @DisplayName("deleteRegistration with ACCEPTED company should throw ValidationException")
     void deleteRegistration_withAcceptedCompany_shouldThrowValidationException() {
         // Arrange
-        when(keycloakService.getUser()).thenReturn(mockUser);
-        when(companyRepository.findByRepId(mockUser.getId())).thenReturn(acceptedCompany);
+        when(keycloakService.getSubject()).thenReturn(mockUser.getKeycloakId());
+        when(companyRepository.findByRepKeycloakIdForUpdate(mockUser.getKeycloakId())).thenReturn(acceptedCompany);
 
         // Act & Assert
         ValidationException exception = assertThrows(ValidationException.class, () -> {
@@ -378,8 +397,267 @@ class RegistrationServiceTest {
         });
 
         assertEquals("Cannot delete an accepted registration", exception.getMessage());
-        verify(articleDocumentRepository, never()).findByCompanyId(anyLong());
+        verify(articleDocumentRepository, never()).deleteQueuingObjects(anyLong(), any());
         verify(storageService, never()).deleteFile(anyString());
         verify(companyRepository, never()).delete(any(Company.class));
     }
+
+    @Test
+    @DisplayName("getArticleDocument for own file should return metadata and cache it")
+    void getArticleDocument_forOwnFile_shouldReturnMetadataAndCacheIt() {
+        // Arrange
+        DocumentMetadata metadata = new DocumentMetadata(
+                10L, pendingCompany.getId(), mockUser.getId(), "key", "application/pdf", "a.pdf", 100L);
+        when(keycloakService.getUser()).thenReturn(mockUser);
+        when(articleDocumentRepository.findMetadata(10L)).thenReturn(metadata);
+
+        // Act
+        DocumentMetadata first = registrationService.getArticleDocument(10L);
+        DocumentMetadata second = registrationService.getArticleDocument(10L);
+
+        // Assert
+        assertSame(metadata, first);
+        assertSame(metadata, second);
+        verify(articleDocumentRepository, times(1)).findMetadata(10L);
+        verify(companyRepository, never()).findByRepKeycloakId(anyString());
+    }
+
+    @Test
+    @DisplayName("getArticleDocument for another representative's file should throw ForbiddenException")
+    void getArticleDocument_forOtherRepresentativesFile_shouldThrowForbiddenException() {
+        // Arrange
+        when(keycloakService.getUser()).thenReturn(mockUser);
+        when(articleDocumentRepository.findMetadata(11L)).thenReturn(
+                new DocumentMetadata(11L, 99L, 99L, "key", "application/pdf", "a.pdf", 100L));
+
+        // Act & Assert
+        assertThrows(ForbiddenException.class, () -> registrationService.getArticleDocument(11L));
+    }
+
+    @Test
+    @DisplayName("getArticleDocumentForCompany with mismatched company should throw NotFoundException")
+    void getArticleDocumentForCompany_withMismatchedCompany_shouldThrowNotFoundException() {
+        // Arrange
+        when(articleDocumentRepository.findMetadata(12L)).thenReturn(
+                new DocumentMetadata(12L, 99L, 99L, "key", "application/pdf", "a.pdf", 100L));
+
+        // Act & Assert
+        assertThrows(NotFoundException.class, () -> registrationService.getArticleDocumentForCompany(1L, 12L));
+        assertEquals(12L, registrationService.getArticleDocumentForCompany(99L, 12L).id());
+    }
+
+    private static final String BOUNDARY = "----upload-boundary";
+    private static final String MULTIPART = "multipart/form-data; boundary=" + BOUNDARY;
+
+    private static byte[] multipartBody(String... parts) {
+        StringBuilder body = new StringBuilder("preamble to ignore\r\n");
+        for (String part : parts) {
+            body.append("--").append(BOUNDARY).append("\r\n").append(part).append("\r\n");
+        }
+        body.append("--").append(BOUNDARY).append("--\r\n");
+        return body.toString().getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    private static String filePart(String filename, String content) {
+        return "Content-Disposition: form-data; name=\"files\"; filename=\"" + filename + "\"\r\n"
+                + "Content-Type: application/pdf\r\n\r\n" + content;
+    }
+
+    private void givenPendingCompany() {
+        when(storageService.deleteFileAsync(anyString())).thenReturn(Uni.createFrom().voidItem());
+        when(storedBlobRepository.register(anyString(), anyString(), anyLong())).thenReturn(true);
+        when(storedBlobRepository.release(any())).thenAnswer(invocation -> List.copyOf(invocation.<List<String>>getArgument(0)));
+        when(keycloakService.getSubject()).thenReturn(mockUser.getKeycloakId());
+        when(companyRepository.findByRepKeycloakId(mockUser.getKeycloakId())).thenReturn(pendingCompany);
+        when(companyRepository.findByRepKeycloakIdForUpdate(mockUser.getKeycloakId())).thenReturn(pendingCompany);
+    }
+
+    private Map<String, byte[]> captureUploads(Map<String, Long> sizes) {
+        Map<String, byte[]> uploaded = new ConcurrentHashMap<>();
+        when(storageService.uploadFile(any(InputStream.class), anyString(), anyString(), anyLong())).thenAnswer(invocation -> {
+            String filename = invocation.getArgument(1);
+            uploaded.put(filename, invocation.<InputStream>getArgument(0).readAllBytes());
+            sizes.put(filename, invocation.getArgument(3));
+            return "key/" + filename;
+        });
+        return uploaded;
+    }
+
+    @Test
+    @DisplayName("uploadFiles should stream each file part to storage, buffering only small ones")
+    void uploadFiles_withMultipartBody_shouldStreamFilesToStorage() {
+        // Arrange: the test profile buffers up to 1 KB in memory
+        String small = "small file";
+        String large = ("x".repeat(700) + "\r\n--" + BOUNDARY.substring(0, 8)).repeat(3);
+        byte[] body = multipartBody(
+                "Content-Disposition: form-data; name=\"note\"\r\n\r\nnot a file",
+                filePart("small.pdf", small),
+                filePart("large.pdf", large));
+        givenPendingCompany();
+        Map<String, Long> sizes = new ConcurrentHashMap<>();
+        Map<String, byte[]> uploaded = captureUploads(sizes);
+
+        // Act
+        registrationService.uploadFiles(MULTIPART, new ByteArrayInputStream(body));
+
+        // Assert
+        assertEquals(Set.of("small.pdf", "large.pdf"), uploaded.keySet());
+        assertEquals(small, new String(uploaded.get("small.pdf"), StandardCharsets.ISO_8859_1));
+        assertEquals(large, new String(uploaded.get("large.pdf"), StandardCharsets.ISO_8859_1));
+        assertEquals(small.length(), sizes.get("small.pdf"));
+        assertEquals(-1L, sizes.get("large.pdf"));
+        ArgumentCaptor<ArticleDocument> documents = ArgumentCaptor.forClass(ArticleDocument.class);
+        verify(articleDocumentRepository, times(2)).persist(documents.capture());
+        assertEquals(large.length(), documents.getAllValues().get(1).getFileSize());
+    }
+
+    @Test
+    @DisplayName("uploadFiles with a file over the size limit should fail with 413")
+    void uploadFiles_withOversizedFile_shouldThrowPayloadTooLarge() {
+        // Arrange: the test profile caps files at 4 KB
+        byte[] body = multipartBody(filePart("huge.pdf", "y".repeat(5000)));
+        givenPendingCompany();
+        captureUploads(new ConcurrentHashMap<>());
+
+        // Act & Assert
+        ClientErrorException exception = assertThrows(ClientErrorException.class,
+                () -> registrationService.uploadFiles(MULTIPART, new ByteArrayInputStream(body)));
+        assertEquals(413, exception.getResponse().getStatus());
+        verify(articleDocumentRepository, never()).persist(any(ArticleDocument.class));
+    }
+
+    @Test
+    @DisplayName("uploadFiles with a truncated body or no boundary should throw BadRequestException")
+    void uploadFiles_withMalformedBody_shouldThrowBadRequest() {
+        // Arrange
+        byte[] truncated = ("--" + BOUNDARY + "\r\n" + filePart("cut.pdf", "never ends")).getBytes(StandardCharsets.ISO_8859_1);
+        givenPendingCompany();
+        captureUploads(new ConcurrentHashMap<>());
+
+        // Act & Assert
+        assertThrows(BadRequestException.class,
+                () -> registrationService.uploadFiles(MULTIPART, new ByteArrayInputStream(truncated)));
+        assertThrows(BadRequestException.class,
+                () -> registrationService.uploadFiles("multipart/form-data", new ByteArrayInputStream(truncated)));
+    }
+
+    @Test
+    @DisplayName("uploadFiles should transfer buffered files concurrently, capped per request")
+    void uploadFiles_withSeveralSmallFiles_shouldTransferConcurrentlyWithinCap() {
+        // Arrange: the test profile allows 2 concurrent transfers
+        byte[] body = multipartBody(filePart("a.pdf", "a"), filePart("b.pdf", "b"), filePart("c.pdf", "c"), filePart("d.pdf", "d"));
+        givenPendingCompany();
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        when(storageService.uploadFile(any(InputStream.class), anyString(), anyString(), anyLong())).thenAnswer(invocation -> {
+            peak.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            Thread.sleep(100);
+            inFlight.decrementAndGet();
+            return "key/" + invocation.getArgument(1);
+        });
+
+        // Act
+        registrationService.uploadFiles(MULTIPART, new ByteArrayInputStream(body));
+
+        // Assert
+        assertEquals(2, peak.get());
+        ArgumentCaptor<ArticleDocument> documents = ArgumentCaptor.forClass(ArticleDocument.class);
+        verify(articleDocumentRepository, times(4)).persist(documents.capture());
+        assertEquals(List.of("a.pdf", "b.pdf", "c.pdf", "d.pdf"),
+                documents.getAllValues().stream().map(ArticleDocument::getOriginalFilename).toList());
+    }
+
+    @Test
+    @DisplayName("uploadFiles should delete the uploaded objects when the metadata cannot be committed")
+    void uploadFiles_whenMetadataCommitFails_shouldDeleteUploadedObjects() {
+        // Arrange
+        byte[] body = multipartBody(filePart("a.pdf", "a"), filePart("b.pdf", "b"));
+        givenPendingCompany();
+        captureUploads(new ConcurrentHashMap<>());
+        doThrow(new IllegalStateException("database down")).when(articleDocumentRepository).persist(any(ArticleDocument.class));
+
+        // Act & Assert
+        assertThrows(IllegalStateException.class,
+                () -> registrationService.uploadFiles(MULTIPART, new ByteArrayInputStream(body)));
+        verify(storageService).deleteFileAsync("key/a.pdf");
+        verify(storageService).deleteFileAsync("key/b.pdf");
+    }
+
+    @Test
+    @DisplayName("uploadFiles should delete the objects already stored when another transfer fails")
+    void uploadFiles_whenOneTransferFails_shouldDeleteTheOthers() {
+        // Arrange
+        byte[] body = multipartBody(filePart("ok.pdf", "fine"), filePart("bad.pdf", "broken"));
+        givenPendingCompany();
+        when(storageService.uploadFile(any(InputStream.class), eq("ok.pdf"), anyString(), anyLong())).thenReturn("key/ok.pdf");
+        when(storageService.uploadFile(any(InputStream.class), eq("bad.pdf"), anyString(), anyLong()))
+                .thenThrow(new RuntimeException("Failed to upload file to MinIO"));
+
+        // Act & Assert
+        RuntimeException exception = assertThrows(RuntimeException.class,
+                () -> registrationService.uploadFiles(MULTIPART, new ByteArrayInputStream(body)));
+        assertEquals("Failed to upload file: bad.pdf", exception.getMessage());
+        verify(storageService).deleteFileAsync("key/ok.pdf");
+        verify(articleDocumentRepository, never()).persist(any(ArticleDocument.class));
+    }
+
+    @Test
+    @DisplayName("uploadFiles should reference content that is already stored instead of sending it again")
+    void uploadFiles_withKnownContent_shouldSkipStorageWrite() throws Exception {
+        // Arrange
+        byte[] body = multipartBody(filePart("again.pdf", "same articles"), filePart("new.pdf", "new articles"));
+        givenPendingCompany();
+        String knownHash = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256")
+                .digest("same articles".getBytes(StandardCharsets.ISO_8859_1)));
+        when(storedBlobRepository.acquire(knownHash, 13)).thenReturn("key/first-upload.pdf");
+        Map<String, byte[]> uploaded = captureUploads(new ConcurrentHashMap<>());
+
+        // Act
+        registrationService.uploadFiles(MULTIPART, new ByteArrayInputStream(body));
+
+        // Assert
+        assertEquals(Set.of("new.pdf"), uploaded.keySet());
+        verify(storedBlobRepository).register(anyString(), eq("key/new.pdf"), eq(12L));
+        ArgumentCaptor<ArticleDocument> documents = ArgumentCaptor.forClass(ArticleDocument.class);
+        verify(articleDocumentRepository, times(2)).persist(documents.capture());
+        assertEquals(List.of("key/first-upload.pdf", "key/new.pdf"),
+                documents.getAllValues().stream().map(ArticleDocument::getObjectKey).toList());
+    }
+
+    @Test
+    @DisplayName("uploadFiles should delete a streamed copy of content registered by another upload")
+    void uploadFiles_withStreamedDuplicate_shouldDeleteFreshCopy() {
+        // Arrange: over the 1 KB in-memory threshold, so the file is hashed while it streams
+        byte[] body = multipartBody(filePart("scan.pdf", "z".repeat(2000)));
+        givenPendingCompany();
+        captureUploads(new ConcurrentHashMap<>());
+        when(storedBlobRepository.register(anyString(), eq("key/scan.pdf"), eq(2000L))).thenReturn(false);
+        when(storedBlobRepository.acquire(anyString(), eq(2000L))).thenReturn("key/earlier-scan.pdf");
+
+        // Act
+        registrationService.uploadFiles(MULTIPART, new ByteArrayInputStream(body));
+
+        // Assert
+        verify(storageService).deleteFileAsync("key/scan.pdf");
+        ArgumentCaptor<ArticleDocument> document = ArgumentCaptor.forClass(ArticleDocument.class);
+        verify(articleDocumentRepository).persist(document.capture());
+        assertEquals("key/earlier-scan.pdf", document.getValue().getObjectKey());
+    }
+
+    @Test
+    @DisplayName("uploadFiles should release the references it took when the metadata cannot be committed")
+    void uploadFiles_whenMetadataCommitFails_shouldReleaseReferences() {
+        // Arrange: the second upload of the same content keeps the shared object alive
+        byte[] body = multipartBody(filePart("a.pdf", "a"));
+        givenPendingCompany();
+        when(storedBlobRepository.acquire(anyString(), eq(1L))).thenReturn("key/shared.pdf");
+        when(storedBlobRepository.release(List.of("key/shared.pdf"))).thenReturn(List.of());
+        doThrow(new IllegalStateException("database down")).when(articleDocumentRepository).persist(any(ArticleDocument.class));
+
+        // Act & Assert
+        assertThrows(IllegalStateException.class,
+                () -> registrationService.uploadFiles(MULTIPART, new ByteArrayInputStream(body)));
+        verify(storedBlobRepository).release(List.of("key/shared.pdf"));
+        verify(storageService, never()).deleteFileAsync(anyString());
+    }
 }
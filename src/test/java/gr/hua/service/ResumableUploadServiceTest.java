@@ -0,0 +1,240 @@
+package gr.hua.service;
+
+import gr.hua.model.entity.ArticleDocument;
+import gr.hua.model.entity.Company;
+import gr.hua.model.entity.KeycloakUser;
+import gr.hua.model.entity.ObjectDeletion;
+import gr.hua.model.entity.UploadSession;
+import gr.hua.repository.ArticleDocumentRepository;
+import gr.hua.repository.CompanyRepository;
+import gr.hua.repository.KeycloakUserRepository;
+import gr.hua.repository.ObjectDeletionRepository;
+import gr.hua.repository.UploadPartRepository;
+import gr.hua.repository.UploadSessionRepository;
+import gr.hua.storage.DocumentStore;
+import gr.hua.upload.UploadMetadata;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.InjectMock;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.BadRequestException;
+import jakarta.ws.rs.ClientErrorException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@QuarkusTest
+@DisplayName("ResumableUploadService Tests")
+class ResumableUploadServiceTest {
+
+    private static final String KEYCLOAK_ID = "resumable-rep";
+    private static final String OBJECT_KEY = "7c1d/report.pdf";
+    private static final UploadMetadata METADATA = new UploadMetadata("report.pdf", "application/pdf");
+
+    @Inject
+    ResumableUploadService resumableUploadService;
+
+    @Inject
+    UploadSessionRepository uploadSessionRepository;
+
+    @Inject
+    UploadPartRepository uploadPartRepository;
+
+    @Inject
+    ArticleDocumentRepository articleDocumentRepository;
+
+    @Inject
+    ObjectDeletionRepository objectDeletionRepository;
+
+    @Inject
+    CompanyRepository companyRepository;
+
+    @Inject
+    KeycloakUserRepository keycloakUserRepository;
+
+    @InjectMock
+    KeycloakService keycloakService;
+
+    @InjectMock
+    StorageService storageService;
+
+    @BeforeEach
+    void setUp() {
+        QuarkusTransaction.requiringNew().run(() -> {
+            articleDocumentRepository.deleteAll();
+            objectDeletionRepository.deleteAll();
+            companyRepository.deleteAll();
+            keycloakUserRepository.deleteAll();
+
+            KeycloakUser representative = new KeycloakUser();
+            representative.setKeycloakId(KEYCLOAK_ID);
+            keycloakUserRepository.persist(representative);
+            companyRepository.persist(new Company(representative, "Resumable", "resumable@test.com", "Goal", "HQ", "Execs"));
+        });
+
+        when(keycloakService.getSubject()).thenReturn(KEYCLOAK_ID);
+        when(storageService.newObjectKey("report.pdf")).thenReturn(OBJECT_KEY);
+        // Parts are read to the end, failing as a store would
+        doAnswer(invocation -> {
+            try {
+                return invocation.<InputStream>getArgument(1).readAllBytes();
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to upload file", e);
+            }
+        })
+                .when(storageService).putFile(anyString(), any(InputStream.class), anyString(), anyLong());
+    }
+
+    private static InputStream bytes(int count) {
+        return new ByteArrayInputStream(new byte[count]);
+    }
+
+    private Set<String> queuedDeletions() {
+        return QuarkusTransaction.requiringNew().call(() -> objectDeletionRepository.listAll().stream()
+                .map(ObjectDeletion::getObjectKey)
+                .collect(Collectors.toSet()));
+    }
+
+    @Test
+    @DisplayName("append should store chunks as parts and compose them into a document once the length is reached")
+    @SuppressWarnings("unchecked")
+    void append_untilLength_shouldComposePartsAndRecordDocument() {
+        // Arrange
+        ResumableUploadService.Status created = resumableUploadService.create(10, METADATA);
+
+        // Act
+        ResumableUploadService.Status first = resumableUploadService.append(created.token(), 0, 4, bytes(4));
+        ResumableUploadService.Status last = resumableUploadService.append(created.token(), 4, -1, bytes(6));
+
+        // Assert
+        assertEquals(4, first.offset());
+        assertFalse(first.isComplete());
+        assertEquals(10, last.offset());
+        assertTrue(last.isComplete());
+
+        ArgumentCaptor<List<DocumentStore.Source>> sources = ArgumentCaptor.forClass(List.class);
+        verify(storageService).composeFile(eq(OBJECT_KEY), sources.capture(), eq("application/pdf"));
+        assertEquals(List.of(4L, 6L), sources.getValue().stream().map(DocumentStore.Source::size).toList());
+        assertTrue(sources.getValue().stream().allMatch(source -> source.key().startsWith(created.token() + "/")));
+
+        ArticleDocument doc = QuarkusTransaction.requiringNew().call(() -> articleDocumentRepository.findById(last.documentId()));
+        assertEquals(OBJECT_KEY, doc.getObjectKey());
+        assertEquals(10L, doc.getFileSize());
+        assertEquals(0, QuarkusTransaction.requiringNew().call(() -> uploadPartRepository.count()));
+        assertEquals(sources.getValue().stream().map(DocumentStore.Source::key).collect(Collectors.toSet()), queuedDeletions());
+        assertEquals(last.documentId(), resumableUploadService.status(created.token()).documentId());
+    }
+
+    @Test
+    @DisplayName("append at the full length of a completed upload should report its document without composing again")
+    void append_afterCompletion_shouldReturnRecordedDocument() {
+        // Arrange
+        ResumableUploadService.Status created = resumableUploadService.create(3, METADATA);
+        Long documentId = resumableUploadService.append(created.token(), 0, 3, bytes(3)).documentId();
+
+        // Act
+        ResumableUploadService.Status retried = resumableUploadService.append(created.token(), 3, 0, bytes(0));
+
+        // Assert
+        assertEquals(documentId, retried.documentId());
+        verify(storageService, times(1)).composeFile(anyString(), anyList(), anyString());
+    }
+
+    @Test
+    @DisplayName("append at an offset other than the upload's should fail with 409 before storing anything")
+    void append_withWrongOffset_shouldThrow409() {
+        // Arrange
+        ResumableUploadService.Status created = resumableUploadService.create(10, METADATA);
+
+        // Act & Assert
+        ClientErrorException e = assertThrows(ClientErrorException.class,
+                () -> resumableUploadService.append(created.token(), 4, 6, bytes(6)));
+        assertEquals(409, e.getResponse().getStatus());
+        verify(storageService, never()).putFile(anyString(), any(InputStream.class), anyString(), anyLong());
+    }
+
+    @Test
+    @DisplayName("append with more bytes than the upload has left should fail with 413 and keep the offset")
+    void append_pastLength_shouldThrow413() {
+        // Arrange
+        ResumableUploadService.Status created = resumableUploadService.create(10, METADATA);
+
+        // Act & Assert
+        ClientErrorException e = assertThrows(ClientErrorException.class,
+                () -> resumableUploadService.append(created.token(), 0, -1, bytes(11)));
+        assertEquals(413, e.getResponse().getStatus());
+        assertEquals(0, resumableUploadService.status(created.token()).offset());
+        assertEquals(0, QuarkusTransaction.requiringNew().call(() -> uploadPartRepository.count()));
+    }
+
+    @Test
+    @DisplayName("create should reject files over the resumable upload limit with 413")
+    void create_withOversizedFile_shouldThrow413() {
+        // Act & Assert
+        ClientErrorException e = assertThrows(ClientErrorException.class,
+                () -> resumableUploadService.create(resumableUploadService.maxFileSize() + 1, METADATA));
+        assertEquals(413, e.getResponse().getStatus());
+    }
+
+    @Test
+    @DisplayName("expire should drop sessions past their expiry and queue their parts for deletion")
+    void expire_shouldDropExpiredSessionsAndQueueParts() {
+        // Arrange
+        ResumableUploadService.Status expired = resumableUploadService.create(10, METADATA);
+        ResumableUploadService.Status active = resumableUploadService.create(10, METADATA);
+        resumableUploadService.append(expired.token(), 0, 4, bytes(4));
+        resumableUploadService.append(active.token(), 0, 4, bytes(4));
+        QuarkusTransaction.requiringNew().run(() -> uploadSessionRepository.update("expiresAt = ?1 where token = ?2",
+                Timestamp.from(Instant.now().minus(Duration.ofMinutes(1))), expired.token()));
+
+        // Act
+        ClientErrorException gone = assertThrows(ClientErrorException.class, () -> resumableUploadService.status(expired.token()));
+        long dropped = resumableUploadService.expire();
+
+        // Assert
+        assertEquals(410, gone.getResponse().getStatus());
+        assertEquals(1, dropped);
+        List<String> remaining = QuarkusTransaction.requiringNew().call(() -> uploadSessionRepository.listAll().stream()
+                .map(UploadSession::getToken).toList());
+        assertEquals(List.of(active.token()), remaining);
+        Set<String> queued = queuedDeletions();
+        assertEquals(1, queued.size());
+        assertTrue(queued.iterator().next().startsWith(expired.token() + "/"));
+    }
+
+    @Test
+    @DisplayName("UploadMetadata should reject a filetype that is not a single media type with 400")
+    void parseMetadata_withInvalidFiletype_shouldThrowBadRequest() {
+        // Arrange
+        String filename = Base64.getEncoder().encodeToString("report.pdf".getBytes(StandardCharsets.UTF_8));
+        String injected = Base64.getEncoder().encodeToString("application/pdf\nother/key".getBytes(StandardCharsets.UTF_8));
+        String garbage = Base64.getEncoder().encodeToString("not a type".getBytes(StandardCharsets.UTF_8));
+        String valid = Base64.getEncoder().encodeToString("application/pdf".getBytes(StandardCharsets.UTF_8));
+
+        // Act & Assert
+        assertThrows(BadRequestException.class, () -> UploadMetadata.parse("filename " + filename + ",filetype " + injected));
+        assertThrows(BadRequestException.class, () -> UploadMetadata.parse("filename " + filename + ",filetype " + garbage));
+        assertEquals(METADATA, UploadMetadata.parse("filename " + filename + ",filetype " + valid));
+    }
+}
@@ -0,0 +1,197 @@
+package gr.hua.service;
+
+import gr.hua.model.entity.ArticleDocument;
+import gr.hua.model.entity.Company;
+import gr.hua.model.entity.KeycloakUser;
+import gr.hua.model.entity.ObjectDeletion;
+import gr.hua.repository.ArticleDocumentRepository;
+import gr.hua.repository.CompanyRepository;
+import gr.hua.repository.KeycloakUserRepository;
+import gr.hua.repository.ObjectDeletionRepository;
+import gr.hua.repository.StoredBlobRepository;
+import gr.hua.storage.DocumentStore;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.InjectMock;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@QuarkusTest
+@DisplayName("StorageReconciliation Tests")
+class StorageReconciliationTest {
+
+    private static final Instant OLD = Instant.now().minus(Duration.ofDays(2));
+
+    @Inject
+    StorageReconciliation storageReconciliation;
+
+    @Inject
+    ArticleDocumentRepository articleDocumentRepository;
+
+    @Inject
+    ObjectDeletionRepository objectDeletionRepository;
+
+    @Inject
+    StoredBlobRepository storedBlobRepository;
+
+    @Inject
+    CompanyRepository companyRepository;
+
+    @Inject
+    KeycloakUserRepository keycloakUserRepository;
+
+    @Inject
+    EntityManager entityManager;
+
+    @InjectMock
+    StorageService storageService;
+
+    @BeforeEach
+    void setUp() {
+        QuarkusTransaction.requiringNew().run(() -> {
+            articleDocumentRepository.deleteAll();
+            objectDeletionRepository.deleteAll();
+            storedBlobRepository.deleteAll();
+            companyRepository.deleteAll();
+            keycloakUserRepository.deleteAll();
+
+            KeycloakUser representative = new KeycloakUser();
+            representative.setKeycloakId("reconcile-rep");
+            keycloakUserRepository.persist(representative);
+            Company company = new Company(representative, "Reconcile", "reconcile@test.com", "Goal", "HQ", "Execs");
+            companyRepository.persist(company);
+
+            createDocument(company, "0aaa/known.pdf", OLD);
+            createDocument(company, "4eee/missing.pdf", OLD);
+            createDocument(company, "5fff/uploading.pdf", Instant.now());
+            objectDeletionRepository.persist(new ObjectDeletion("3ddd/queued.pdf"));
+        });
+    }
+
+    private void createDocument(Company company, String objectKey, Instant uploadedAt) {
+        ArticleDocument document = new ArticleDocument(company, objectKey, objectKey, "application/pdf", 1L);
+        document.setUploadedAt(Timestamp.from(uploadedAt));
+        articleDocumentRepository.persist(document);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Set<String> givenBucket(Map<String, Instant> objects) {
+        Set<String> listedPrefixes = ConcurrentHashMap.newKeySet();
+        doAnswer(invocation -> {
+            String prefix = invocation.getArgument(0);
+            listedPrefixes.add(prefix);
+            Consumer<DocumentStore.StoredObject> consumer = invocation.getArgument(1);
+            objects.forEach((key, lastModified) -> {
+                if (key.startsWith(prefix)) {
+                    consumer.accept(new DocumentStore.StoredObject(key, lastModified));
+                }
+            });
+            return null;
+        }).when(storageService).listObjects(anyString(), any(Consumer.class));
+        return listedPrefixes;
+    }
+
+    @Test
+    @DisplayName("run should queue old orphans and report missing objects, sparing recent ones")
+    void run_shouldQueueOrphansAndReportMissing() {
+        // Arrange
+        Set<String> listedPrefixes = givenBucket(Map.of(
+                "0aaa/known.pdf", OLD,
+                "1bbb/orphan.pdf", OLD,
+                "2ccc/just-uploaded.pdf", Instant.now(),
+                "3ddd/queued.pdf", OLD));
+
+        // Act
+        StorageReconciliation.Report report = storageReconciliation.run();
+
+        // Assert
+        assertTrue(report.ran());
+        assertEquals(4, report.scannedObjects());
+        assertEquals(4, report.knownKeys());
+        assertEquals(1, report.orphans());
+        assertEquals(1, report.missing());
+        assertEquals(16, listedPrefixes.size());
+        assertEquals(Set.of("1bbb/orphan.pdf", "3ddd/queued.pdf"), QuarkusTransaction.requiringNew().call(() ->
+                objectDeletionRepository.listAll().stream().map(ObjectDeletion::getObjectKey).collect(Collectors.toSet())));
+        verify(storageService, never()).deleteFiles(any());
+    }
+
+    @Test
+    @DisplayName("run should recount stale blob references and queue the content no document uses")
+    void run_withLeakedBlobReferences_shouldRecountAndQueueUnused() {
+        // Arrange: an upload took a reference to 0aaa/known.pdf and another stored 6aaa/abandoned.pdf, and
+        // neither recorded its document
+        givenBucket(Map.of("0aaa/known.pdf", OLD, "6aaa/abandoned.pdf", OLD));
+        QuarkusTransaction.requiringNew().run(() -> {
+            storedBlobRepository.register("known", "0aaa/known.pdf", 1L);
+            storedBlobRepository.acquire("known", 1L);
+            storedBlobRepository.register("abandoned", "6aaa/abandoned.pdf", 1L);
+            storedBlobRepository.update("acquiredAt = ?1", Timestamp.from(OLD));
+        });
+
+        // Act
+        StorageReconciliation.Report report = storageReconciliation.run();
+
+        // Assert: the known object keeps one reference, and the abandoned one is queued rather than orphaned
+        assertTrue(report.ran());
+        assertEquals(0, report.orphans());
+        QuarkusTransaction.requiringNew().run(() -> {
+            assertEquals(1, storedBlobRepository.find("objectKey", "0aaa/known.pdf").singleResult().getRefCount());
+            assertEquals(1, storedBlobRepository.count());
+            assertEquals(Set.of("3ddd/queued.pdf", "6aaa/abandoned.pdf"),
+                    objectDeletionRepository.listAll().stream().map(ObjectDeletion::getObjectKey).collect(Collectors.toSet()));
+        });
+    }
+
+    @Test
+    @DisplayName("run should skip while another node holds the reconciliation lock")
+    void run_whileLockHeldElsewhere_shouldSkip() throws Exception {
+        // Arrange
+        givenBucket(Map.of());
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread holder = Thread.ofVirtual().start(() -> QuarkusTransaction.requiringNew().run(() -> {
+            entityManager.createNativeQuery("select pg_advisory_xact_lock(?1)")
+                    .setParameter(1, StorageReconciliation.ADVISORY_LOCK_KEY)
+                    .getSingleResult();
+            locked.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        locked.await();
+
+        // Act
+        StorageReconciliation.Report report;
+        try {
+            report = storageReconciliation.run();
+        } finally {
+            release.countDown();
+            holder.join();
+        }
+
+        // Assert
+        assertFalse(report.ran());
+        verify(storageService, never()).listObjects(anyString(), any());
+    }
+}
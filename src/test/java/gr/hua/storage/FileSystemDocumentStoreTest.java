@@ -0,0 +1,144 @@
+package gr.hua.storage;
+
+import io.quarkus.arc.ClientProxy;
+import io.quarkus.test.junit.QuarkusTest;
+import io.vertx.core.buffer.Buffer;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs against target/document-store; the store is looked up only when {@code storage.backend} is
+ * {@code filesystem}, but can always be injected directly.
+ */
+@QuarkusTest
+@DisplayName("FileSystemDocumentStore Tests")
+class FileSystemDocumentStoreTest {
+
+    @Inject
+    FileSystemDocumentStore store;
+
+    private static ByteArrayInputStream content(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String read(String objectKey, long offset, long length) {
+        Buffer body = Buffer.buffer();
+        store.read(objectKey, offset, length).subscribe().asStream().forEach(body::appendBuffer);
+        return body.toString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    @DisplayName("put should store the object in its shard and serve stat, ranged reads and a local path")
+    void put_shouldStoreObjectForReads() throws IOException {
+        // Arrange
+        String objectKey = UUID.randomUUID() + "/καταστατικό.pdf";
+
+        // Act
+        store.put(objectKey, content("articles of association"), 23, "application/pdf").await().indefinitely();
+
+        // Assert
+        DocumentStore.ObjectInfo info = store.stat(objectKey).await().indefinitely();
+        assertEquals(23, info.size());
+        assertEquals("application/pdf", info.contentType());
+        assertEquals("articles of association", read(objectKey, 0, -1));
+        assertEquals("of", read(objectKey, 9, 2));
+        Path path = store.localPath(objectKey).orElseThrow();
+        assertEquals(objectKey.substring(0, 2), path.getParent().getParent().getFileName().toString());
+        assertEquals("articles of association", Files.readString(path));
+    }
+
+    @Test
+    @DisplayName("put should fail and leave nothing behind when fewer bytes arrive than declared")
+    void put_shortStream_shouldLeaveNoObject() throws IOException {
+        // Arrange
+        String objectKey = UUID.randomUUID() + "/short.pdf";
+
+        // Act & Assert
+        assertThrows(UncheckedIOException.class,
+                () -> store.put(objectKey, content("short"), 100, "application/pdf").await().indefinitely());
+        assertNull(store.stat(objectKey).await().indefinitely());
+        assertTrue(store.localPath(objectKey).isEmpty());
+        try (Stream<Path> temporary = Files.list(ClientProxy.unwrap(store).root.resolve("tmp"))) {
+            assertTrue(temporary.noneMatch(path -> path.getFileName().toString().endsWith(".part")));
+        }
+    }
+
+    @Test
+    @DisplayName("compose should store the sources concatenated in order and leave them in place")
+    void compose_shouldConcatenateSources() {
+        // Arrange
+        String token = UUID.randomUUID().toString();
+        String first = token + "/part-0";
+        String second = token + "/part-9";
+        String objectKey = UUID.randomUUID() + "/composed.pdf";
+        store.put(first, content("articles "), 9, "application/octet-stream").await().indefinitely();
+        store.put(second, content("of association"), 14, "application/octet-stream").await().indefinitely();
+
+        // Act
+        store.compose(objectKey, List.of(new DocumentStore.Source(first, 9), new DocumentStore.Source(second, 14)),
+                "application/pdf").await().indefinitely();
+
+        // Assert
+        DocumentStore.ObjectInfo info = store.stat(objectKey).await().indefinitely();
+        assertEquals(23, info.size());
+        assertEquals("application/pdf", info.contentType());
+        assertEquals("articles of association", read(objectKey, 0, -1));
+        assertEquals("articles ", read(first, 0, -1));
+    }
+
+    @Test
+    @DisplayName("copy should store the object under the new key with its content type, or emit null without a source")
+    void copy_shouldDuplicateObject() {
+        // Arrange
+        String source = UUID.randomUUID() + "/upload.pdf";
+        String objectKey = UUID.randomUUID() + "/upload.pdf";
+        store.put(source, content("articles of association"), 23, "application/pdf").await().indefinitely();
+
+        // Act
+        DocumentStore.ObjectInfo info = store.copy(source, objectKey).await().indefinitely();
+
+        // Assert
+        assertEquals(new DocumentStore.ObjectInfo(23, "application/pdf"), info);
+        assertEquals("articles of association", read(objectKey, 0, -1));
+        assertNull(store.copy(UUID.randomUUID() + "/missing.pdf", UUID.randomUUID() + "/copy.pdf").await().indefinitely());
+    }
+
+    @Test
+    @DisplayName("list should return the objects under a prefix and delete should remove them")
+    void list_shouldFilterByPrefix() {
+        // Arrange
+        String prefix = UUID.randomUUID().toString();
+        String first = prefix + "/a.pdf";
+        String second = prefix + "/b.pdf";
+        store.put(first, content("a"), 1, "application/pdf").await().indefinitely();
+        store.put(second, content("b"), -1, "application/pdf").await().indefinitely();
+        store.put(UUID.randomUUID() + "/other.pdf", content("c"), 1, "application/pdf").await().indefinitely();
+
+        // Act
+        List<String> listed = new ArrayList<>();
+        store.list(prefix, object -> listed.add(object.key()));
+        store.delete(first).await().indefinitely();
+        List<String> afterDelete = new ArrayList<>();
+        store.list(prefix, object -> afterDelete.add(object.key()));
+
+        // Assert
+        assertEquals(2, listed.size());
+        assertTrue(listed.containsAll(List.of(first, second)));
+        assertEquals(List.of(second), afterDelete);
+        assertTrue(store.deleteAll(List.of(first, second)).isEmpty());
+    }
+}
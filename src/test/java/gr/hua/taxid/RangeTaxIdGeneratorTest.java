@@ -0,0 +1,80 @@
+package gr.hua.taxid;
+
+import io.quarkus.arc.ClientProxy;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@QuarkusTest
+@DisplayName("RangeTaxIdGenerator Tests")
+class RangeTaxIdGeneratorTest {
+
+    @Inject
+    TaxIdGenerator taxIdGenerator;
+
+    @Test
+    @DisplayName("default generator should be the range generator")
+    void defaultGenerator_shouldBeRangeGenerator() {
+        // Assert
+        assertInstanceOf(RangeTaxIdGenerator.class, ClientProxy.unwrap(taxIdGenerator));
+    }
+
+    @Test
+    @DisplayName("next should issue nine-digit ids with a valid check digit")
+    void next_shouldIssueValidIds() {
+        // Act
+        String taxId = taxIdGenerator.next();
+
+        // Assert
+        assertEquals(TaxIdFormat.LENGTH, taxId.length());
+        assertTrue(TaxIdFormat.isValid(taxId));
+    }
+
+    @Test
+    @DisplayName("next under concurrency should never repeat an id across block boundaries")
+    void next_withConcurrentCallers_shouldIssueDistinctIds() throws Exception {
+        // Arrange
+        Set<String> issued = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            // Act: 2500 ids span at least three blocks of 1000
+            List<? extends Future<?>> results = IntStream.range(0, 8)
+                    .mapToObj(i -> executor.submit(() -> {
+                        for (int j = 0; j < 2500 / 8 + 1; j++) {
+                            assertTrue(issued.add(taxIdGenerator.next()));
+                        }
+                    }))
+                    .toList();
+            for (Future<?> result : results) {
+                result.get();
+            }
+
+            // Assert
+            assertEquals(8 * (2500 / 8 + 1), issued.size());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("isValid should accept known ids and reject typos")
+    void isValid_shouldCheckDigit() {
+        // Assert
+        assertTrue(TaxIdFormat.isValid("090000045"));
+        assertFalse(TaxIdFormat.isValid("090000046"));
+        assertFalse(TaxIdFormat.isValid("09000045"));
+        assertFalse(TaxIdFormat.isValid("09000004a"));
+        assertEquals("100000003", TaxIdFormat.format(10_000_000L));
+    }
+}
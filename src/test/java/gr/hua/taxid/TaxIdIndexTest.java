@@ -0,0 +1,127 @@
+package gr.hua.taxid;
+
+import gr.hua.cache.CacheRegion;
+import gr.hua.cache.InvalidationBus;
+import gr.hua.model.entity.Company;
+import gr.hua.model.entity.KeycloakUser;
+import gr.hua.model.enums.RegistrationState;
+import gr.hua.repository.ArticleDocumentRepository;
+import gr.hua.repository.CompanyRepository;
+import gr.hua.repository.KeycloakUserRepository;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@QuarkusTest
+@DisplayName("TaxIdIndex Tests")
+class TaxIdIndexTest {
+
+    @Inject
+    TaxIdIndex taxIdIndex;
+
+    @Inject
+    InvalidationBus invalidationBus;
+
+    @Inject
+    CompanyRepository companyRepository;
+
+    @Inject
+    ArticleDocumentRepository articleDocumentRepository;
+
+    @Inject
+    KeycloakUserRepository keycloakUserRepository;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        QuarkusTransaction.requiringNew().run(() -> {
+            articleDocumentRepository.deleteAll();
+            companyRepository.deleteAll();
+            keycloakUserRepository.deleteAll();
+            createCompany(0, RegistrationState.ACCEPTED, "100000003");
+            createCompany(1, RegistrationState.ACCEPTED, "c3a1f0e2-legacy");
+            createCompany(2, RegistrationState.PENDING, null);
+        });
+        taxIdIndex.rebuild().get();
+    }
+
+    private Company createCompany(int index, RegistrationState state, String taxId) {
+        KeycloakUser representative = new KeycloakUser();
+        representative.setKeycloakId("index-rep-" + index);
+        keycloakUserRepository.persist(representative);
+
+        Company company = new Company(representative, "Index " + index, "index" + index + "@test.com", "Goal", "HQ", "Execs");
+        company.setState(state);
+        company.setTaxId(taxId);
+        companyRepository.persist(company);
+        return company;
+    }
+
+    @Test
+    @DisplayName("lookup should find numeric and legacy ids loaded at rebuild")
+    void lookup_afterRebuild_shouldFindIssuedIds() {
+        // Assert
+        assertTrue(taxIdIndex.isReady());
+        assertEquals("Index 0", taxIdIndex.lookup("100000003"));
+        assertEquals("Index 1", taxIdIndex.lookup("c3a1f0e2-legacy"));
+        assertNull(taxIdIndex.lookup("100000011"));
+        assertNull(taxIdIndex.lookup("unknown"));
+    }
+
+    @Test
+    @DisplayName("lookup should pick up companies accepted after the rebuild, before and after a merge")
+    void lookup_afterAcceptedInvalidation_shouldFindNewIds() throws InterruptedException {
+        // Arrange: the test profile merges every 2 additions
+        QuarkusTransaction.requiringNew().run(() -> {
+            Company company = createCompany(3, RegistrationState.ACCEPTED, "090000045");
+            invalidationBus.publish(CacheRegion.COMPANY, company.getId());
+        });
+        awaitIndexed("090000045");
+        QuarkusTransaction.requiringNew().run(() -> {
+            Company company = createCompany(4, RegistrationState.ACCEPTED, "c3a1f0e2-imported");
+            invalidationBus.publish(CacheRegion.COMPANY, company.getId());
+        });
+
+        // Act
+        awaitIndexed("c3a1f0e2-imported");
+
+        // Assert
+        assertEquals("Index 3", taxIdIndex.lookup("090000045"));
+        assertEquals("Index 4", taxIdIndex.lookup("c3a1f0e2-imported"));
+        assertEquals("Index 0", taxIdIndex.lookup("100000003"));
+        assertEquals("Index 1", taxIdIndex.lookup("c3a1f0e2-legacy"));
+    }
+
+    private void awaitIndexed(String taxId) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (taxIdIndex.lookup(taxId) == null && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+    }
+
+    @Test
+    @DisplayName("bloom filter should have no false negatives and few false positives")
+    void bloomFilter_shouldRespectFalsePositiveRate() {
+        // Arrange
+        BloomFilter bloom = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            bloom.add("present-" + i);
+        }
+
+        // Act
+        int falsePositives = 0;
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(bloom.mightContain("present-" + i));
+            if (bloom.mightContain("absent-" + i)) {
+                falsePositives++;
+            }
+        }
+
+        // Assert
+        assertTrue(falsePositives < 300, "false positives: " + falsePositives);
+    }
+}